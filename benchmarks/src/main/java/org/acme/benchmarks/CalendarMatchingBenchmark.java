@@ -0,0 +1,91 @@
+package org.acme.benchmarks;
+
+import com.google.api.services.calendar.model.CalendarListEntry;
+import org.acme.tools.extra.CalendarNameIndex;
+import org.acme.tools.extra.FuzzyMatcher;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Calendar name resolution: the edit distance on its own (old matrix vs banded) and the full
+// matching pass
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CalendarMatchingBenchmark {
+
+    @Param({"10", "100", "1000"})
+    int calendars;
+
+    private List<CalendarListEntry> entries;
+    private CalendarNameIndex index;
+    private List<String> names;
+    private final FuzzyMatcher matcher = new FuzzyMatcher();
+    private String exactName;
+    private String typoName;
+
+    @Setup
+    public void setup() {
+        entries = MockCalendars.calendars(calendars);
+        index = new CalendarNameIndex(entries);
+        names = entries.stream().map(e -> e.getSummary().toLowerCase()).toList();
+        exactName = entries.get(calendars / 2).getSummary();
+        // Drop a letter and swap two others so only the fuzzy pass can find it
+        String name = exactName.substring(1);
+        typoName = name.charAt(1) + "" + name.charAt(0) + name.substring(2);
+    }
+
+    @Benchmark
+    public int matrixDistance() {
+        return ReferenceLevenshtein.distance(typoName, exactName);
+    }
+
+    @Benchmark
+    public int bandedDistance() {
+        return matcher.distance(typoName, exactName, Math.max(3, typoName.length() / 2));
+    }
+
+    // The old matching loop: full matrix distance against every calendar
+    @Benchmark
+    public int matrixScan() {
+        int best = Integer.MAX_VALUE;
+        for (String name : names) {
+            best = Math.min(best, ReferenceLevenshtein.distance(typoName, name));
+        }
+        return best;
+    }
+
+    @Benchmark
+    public CalendarListEntry resolveExact() {
+        return index.resolve(exactName);
+    }
+
+    @Benchmark
+    public CalendarListEntry resolveFuzzy() {
+        return index.resolve(typoName);
+    }
+
+    @Benchmark
+    public CalendarListEntry resolveMiss() {
+        return index.resolve("no calendar is called like this");
+    }
+
+    @Benchmark
+    public CalendarNameIndex buildIndex() {
+        return new CalendarNameIndex(entries);
+    }
+}
@@ -0,0 +1,73 @@
+package org.acme.benchmarks;
+
+import com.google.api.client.json.gson.GsonFactory;
+import com.google.api.services.calendar.model.Event;
+import org.acme.tools.ListEventsTool;
+import org.acme.tools.extra.EventField;
+import org.acme.tools.extra.EventJsonWriter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Replies built by listEvents in each format, without any I/O
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ListEventsFormattingBenchmark {
+
+    @Param({"100", "1000", "10000", "100000"})
+    int events;
+
+    private List<Event> eventList;
+
+    @Setup
+    public void setup() {
+        eventList = MockCalendars.events(events);
+    }
+
+    @Benchmark
+    public String format() {
+        StringBuilder response = new StringBuilder("Events in calendar primary:\n");
+        for (Event event : eventList) {
+            ListEventsTool.appendEvent(response, event);
+        }
+        return response.toString();
+    }
+
+    @Benchmark
+    public String formatJson() throws IOException {
+        return json(false);
+    }
+
+    @Benchmark
+    public String formatCompact() throws IOException {
+        return json(true);
+    }
+
+    private String json(boolean compact) throws IOException {
+        StringWriter out = new StringWriter(256);
+        EventJsonWriter writer = new EventJsonWriter(GsonFactory.getDefaultInstance(), out, compact, EventField.DEFAULT);
+        writer.begin("primary");
+        for (Event event : eventList) {
+            writer.write(event);
+        }
+        writer.end(null);
+        return out.toString();
+    }
+}
@@ -0,0 +1,205 @@
+package org.acme.benchmarks;
+
+import com.google.gson.JsonObject;
+
+import java.io.IOException;
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Drives a running server over the MCP SSE endpoint with a mix of tool calls and reports
+// throughput and latency percentiles per tool. Each session is one SSE connection making one
+// call at a time. Meant to run against a server started with calendar.simulator.enabled=true:
+//
+//   java -cp benchmarks/target/benchmarks.jar org.acme.benchmarks.LoadDriver \
+//       --url http://localhost:8080 --sessions 16 --duration 60s --calendar "Simulated 1"
+//
+// The mix is given as tool=weight pairs, e.g. --mix createEvent=2,listEvents=6,deleteEventsByQuery=1,selectCalendar=1.
+// Events are created with a per-session summary prefix so deleteEventsByQuery only removes the
+// session's own events.
+public class LoadDriver {
+    private final HttpClient client = HttpClient.newHttpClient();
+    private final Map<String, String> options;
+    private final Map<String, Integer> mix = new LinkedHashMap<>();
+    private final Map<String, Stats> stats = new ConcurrentHashMap<>();
+
+    LoadDriver(Map<String, String> options) {
+        this.options = options;
+        for (String pair : options.getOrDefault("mix",
+                "createEvent=2,listEvents=6,deleteEventsByQuery=1,selectCalendar=1").split(",")) {
+            String[] parts = pair.split("=", 2);
+            mix.put(parts[0].trim(), parts.length > 1 ? Integer.parseInt(parts[1].trim()) : 1);
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>();
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            if (!args[i].startsWith("--")) {
+                throw new IllegalArgumentException("Unexpected argument: " + args[i]);
+            }
+            options.put(args[i].substring(2), args[i + 1]);
+        }
+        new LoadDriver(options).run();
+    }
+
+    void run() throws Exception {
+        int sessions = Integer.parseInt(options.getOrDefault("sessions", "8"));
+        long duration = parseSeconds(options.getOrDefault("duration", "30s"));
+        long warmup = parseSeconds(options.getOrDefault("warmup", "5s"));
+        System.out.printf("%d session(s) against %s for %ds after %ds of warmup, mix %s%n",
+                sessions, url(""), duration, warmup, mix);
+
+        long start = System.nanoTime();
+        long measureFrom = start + TimeUnit.SECONDS.toNanos(warmup);
+        long until = measureFrom + TimeUnit.SECONDS.toNanos(duration);
+        List<Thread> threads = new ArrayList<>();
+        for (int s = 0; s < sessions; s++) {
+            int session = s;
+            Thread thread = new Thread(() -> drive(session, measureFrom, until), "load-" + s);
+            thread.start();
+            threads.add(thread);
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        report(duration);
+    }
+
+    private void drive(int session, long measureFrom, long until) {
+        try (McpSession mcp = open(session)) {
+            int sequence = 0;
+            while (System.nanoTime() < until) {
+                String tool = pick();
+                JsonObject arguments = arguments(tool, session, sequence++);
+                long started = System.nanoTime();
+                boolean ok;
+                try {
+                    ok = McpSession.succeeded(mcp.callTool(tool, arguments));
+                } catch (IOException e) {
+                    ok = false;
+                }
+                long elapsed = System.nanoTime() - started;
+                if (started >= measureFrom) {
+                    stats.computeIfAbsent(tool, t -> new Stats()).record(elapsed, ok);
+                }
+            }
+        } catch (Exception e) {
+            System.err.printf("Session %d failed: %s%n", session, e);
+        }
+    }
+
+    private String pick() {
+        int total = mix.values().stream().mapToInt(Integer::intValue).sum();
+        int n = ThreadLocalRandom.current().nextInt(total);
+        for (Map.Entry<String, Integer> entry : mix.entrySet()) {
+            n -= entry.getValue();
+            if (n < 0) {
+                return entry.getKey();
+            }
+        }
+        throw new IllegalStateException("Empty mix");
+    }
+
+    private JsonObject arguments(String tool, int session, int sequence) {
+        String calendar = options.getOrDefault("calendar", "Simulated 1");
+        String prefix = "Load " + session + "-";
+        LocalDate day = LocalDate.now().plusDays(1 + ThreadLocalRandom.current().nextInt(30));
+        JsonObject arguments = new JsonObject();
+        switch (tool) {
+            case "createEvent":
+                int hour = 8 + ThreadLocalRandom.current().nextInt(10);
+                arguments.addProperty("calendarName", calendar);
+                arguments.addProperty("summary", prefix + sequence);
+                arguments.addProperty("start", day + String.format(Locale.ROOT, "T%02d:00:00", hour));
+                arguments.addProperty("end", day + String.format(Locale.ROOT, "T%02d:30:00", hour));
+                arguments.addProperty("timeZone", "Europe/Madrid");
+                break;
+            case "listEvents":
+                arguments.addProperty("calendarName", calendar);
+                arguments.addProperty("startDate", day + "T00:00:00");
+                arguments.addProperty("endDate", day.plusDays(7) + "T23:59:59");
+                arguments.addProperty("limit", 50);
+                break;
+            case "deleteEventsByQuery":
+                arguments.addProperty("calendarName", calendar);
+                arguments.addProperty("query", prefix);
+                break;
+            case "selectCalendar":
+                arguments.addProperty("calendarName", calendar);
+                break;
+            default:
+                break;
+        }
+        return arguments;
+    }
+
+    private void report(long seconds) {
+        System.out.printf("%-22s %9s %8s %7s %9s %9s %9s %9s%n",
+                "tool", "calls", "calls/s", "errors", "p50 ms", "p90 ms", "p99 ms", "max ms");
+        long calls = 0;
+        for (Map.Entry<String, Stats> entry : new TreeMap<>(stats).entrySet()) {
+            Stats s = entry.getValue();
+            long[] latencies = s.sorted();
+            calls += latencies.length;
+            System.out.printf(Locale.ROOT, "%-22s %9d %8.1f %7d %9.2f %9.2f %9.2f %9.2f%n",
+                    entry.getKey(), latencies.length, (double) latencies.length / seconds, s.errors.get(),
+                    percentile(latencies, 50), percentile(latencies, 90), percentile(latencies, 99),
+                    latencies.length == 0 ? 0 : latencies[latencies.length - 1] / 1e6);
+        }
+        System.out.printf(Locale.ROOT, "total %d call(s), %.1f calls/s%n", calls, (double) calls / seconds);
+    }
+
+    private static double percentile(long[] sorted, int percent) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(percent / 100.0 * sorted.length) - 1;
+        return sorted[Math.max(0, index)] / 1e6;
+    }
+
+    private static long parseSeconds(String value) {
+        return Duration.parse("PT" + value.toUpperCase(Locale.ROOT)).toSeconds();
+    }
+
+    private String url(String path) {
+        String base = options.getOrDefault("url", "http://localhost:8080");
+        return (base.endsWith("/") ? base.substring(0, base.length() - 1) : base) + path;
+    }
+
+    private McpSession open(int session) throws IOException, InterruptedException {
+        String tenants = options.get("tenants");
+        String tenant = tenants != null ? "load-" + (session % Integer.parseInt(tenants)) + "@example.com" : null;
+        return McpSession.open(client, url(""), options.getOrDefault("tenant-header", "X-Calendar-User"), tenant);
+    }
+
+    private static final class Stats {
+        private final List<Long> latencies = new ArrayList<>();
+        private final AtomicLong errors = new AtomicLong();
+
+        synchronized void record(long nanos, boolean ok) {
+            latencies.add(nanos);
+            if (!ok) {
+                errors.incrementAndGet();
+            }
+        }
+
+        synchronized long[] sorted() {
+            long[] result = latencies.stream().mapToLong(Long::longValue).toArray();
+            Arrays.sort(result);
+            return result;
+        }
+    }
+}
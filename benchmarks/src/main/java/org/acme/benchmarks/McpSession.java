@@ -0,0 +1,180 @@
+package org.acme.benchmarks;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// One MCP connection over SSE: requests are posted to the message endpoint and answered on the
+// event stream, matched by their JSON-RPC id
+final class McpSession implements AutoCloseable {
+    private static final Gson GSON = new Gson();
+
+    private final HttpClient client;
+    private final String baseUrl;
+    private final String tenantHeader;
+    private final String tenant;
+    private final InputStream stream;
+    private final BufferedReader events;
+    private final Map<Long, CompletableFuture<JsonObject>> pending = new ConcurrentHashMap<>();
+    private final AtomicLong ids = new AtomicLong();
+    private final CompletableFuture<String> endpoint = new CompletableFuture<>();
+
+    private McpSession(HttpClient client, String baseUrl, String tenantHeader, String tenant, InputStream stream) {
+        this.client = client;
+        this.baseUrl = baseUrl;
+        this.tenantHeader = tenantHeader;
+        this.tenant = tenant;
+        this.stream = stream;
+        this.events = new BufferedReader(new InputStreamReader(stream, StandardCharsets.UTF_8));
+        Thread reader = new Thread(this::read, Thread.currentThread().getName() + "-sse");
+        reader.setDaemon(true);
+        reader.start();
+    }
+
+    // Connects to baseUrl/mcp/sse and completes the initialize handshake; tenant may be null
+    static McpSession open(HttpClient client, String baseUrl, String tenantHeader, String tenant)
+            throws IOException, InterruptedException {
+        baseUrl = baseUrl.endsWith("/") ? baseUrl.substring(0, baseUrl.length() - 1) : baseUrl;
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(baseUrl + "/mcp/sse"))
+                .header("Accept", "text/event-stream");
+        if (tenant != null) {
+            request.header(tenantHeader, tenant);
+        }
+        HttpResponse<InputStream> response = client.send(request.build(), HttpResponse.BodyHandlers.ofInputStream());
+        if (response.statusCode() != 200) {
+            response.body().close();
+            throw new IOException("SSE endpoint answered " + response.statusCode());
+        }
+        McpSession session = new McpSession(client, baseUrl, tenantHeader, tenant, response.body());
+        try {
+            session.call("initialize", GSON.fromJson("{\"protocolVersion\":\"2024-11-05\",\"capabilities\":{},"
+                    + "\"clientInfo\":{\"name\":\"calendar-mcp-benchmarks\",\"version\":\"1.0\"}}", JsonObject.class));
+            session.notify("notifications/initialized");
+        } catch (IOException e) {
+            session.close();
+            throw e;
+        }
+        return session;
+    }
+
+    // The JSON-RPC response of a tools/call
+    JsonObject callTool(String tool, JsonObject arguments) throws IOException {
+        JsonObject params = new JsonObject();
+        params.addProperty("name", tool);
+        params.add("arguments", arguments);
+        return call("tools/call", params);
+    }
+
+    // False for JSON-RPC errors and for tool results flagged isError
+    static boolean succeeded(JsonObject response) {
+        if (response.has("error")) {
+            return false;
+        }
+        JsonObject result = response.getAsJsonObject("result");
+        return result != null && !(result.has("isError") && result.get("isError").getAsBoolean());
+    }
+
+    JsonObject call(String method, JsonObject params) throws IOException {
+        long id = ids.incrementAndGet();
+        CompletableFuture<JsonObject> response = new CompletableFuture<>();
+        pending.put(id, response);
+        JsonObject message = new JsonObject();
+        message.addProperty("jsonrpc", "2.0");
+        message.addProperty("id", id);
+        message.addProperty("method", method);
+        message.add("params", params);
+        try {
+            post(message);
+            return response.get(60, TimeUnit.SECONDS);
+        } catch (Exception e) {
+            throw e instanceof IOException ? (IOException) e : new IOException(method + " failed", e);
+        } finally {
+            pending.remove(id);
+        }
+    }
+
+    void notify(String method) throws IOException {
+        JsonObject message = new JsonObject();
+        message.addProperty("jsonrpc", "2.0");
+        message.addProperty("method", method);
+        post(message);
+    }
+
+    private void post(JsonObject message) throws IOException {
+        try {
+            String path = endpoint.get(30, TimeUnit.SECONDS);
+            HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(path.startsWith("http") ? path : baseUrl + path))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(GSON.toJson(message)));
+            if (tenant != null) {
+                request.header(tenantHeader, tenant);
+            }
+            HttpResponse<Void> response = client.send(request.build(), HttpResponse.BodyHandlers.discarding());
+            if (response.statusCode() >= 300) {
+                throw new IOException("Message endpoint answered " + response.statusCode());
+            }
+        } catch (IOException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IOException("Could not post " + message.get("method"), e);
+        }
+    }
+
+    private void read() {
+        String event = "message";
+        StringBuilder data = new StringBuilder();
+        try {
+            for (String line = events.readLine(); line != null; line = events.readLine()) {
+                if (line.startsWith("event:")) {
+                    event = line.substring(6).trim();
+                } else if (line.startsWith("data:")) {
+                    data.append(line.substring(5).trim());
+                } else if (line.isEmpty() && data.length() > 0) {
+                    dispatch(event, data.toString());
+                    event = "message";
+                    data.setLength(0);
+                }
+            }
+        } catch (IOException e) {
+            // Closed
+        }
+        IOException closed = new IOException("SSE stream closed");
+        endpoint.completeExceptionally(closed);
+        pending.values().forEach(response -> response.completeExceptionally(closed));
+    }
+
+    private void dispatch(String event, String data) {
+        if ("endpoint".equals(event)) {
+            endpoint.complete(data);
+            return;
+        }
+        JsonObject message = JsonParser.parseString(data).getAsJsonObject();
+        if (message.has("id") && !message.has("method")) {
+            CompletableFuture<JsonObject> response = pending.get(message.get("id").getAsLong());
+            if (response != null) {
+                response.complete(message);
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        // Not the reader, which the SSE thread holds while blocked on a read
+        stream.close();
+    }
+}
@@ -0,0 +1,45 @@
+package org.acme.benchmarks;
+
+import com.google.api.client.util.DateTime;
+import com.google.api.services.calendar.model.CalendarListEntry;
+import com.google.api.services.calendar.model.Event;
+import com.google.api.services.calendar.model.EventDateTime;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+// Fixtures shared by the benchmarks: generated calendars and events
+public final class MockCalendars {
+    private static final String[] WORDS = {
+            "team", "project", "alpha", "personal", "family", "work", "ai", "test", "sprint", "holidays",
+            "gym", "travel", "release", "planning", "support", "on-call", "marketing", "sales", "design", "review"
+    };
+    private static final long START = new DateTime("2025-06-02T08:00:00Z").getValue();
+
+    private MockCalendars() {
+    }
+
+    public static List<CalendarListEntry> calendars(int count) {
+        Random random = new Random(42);
+        List<CalendarListEntry> entries = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            String name = WORDS[random.nextInt(WORDS.length)] + " " + WORDS[random.nextInt(WORDS.length)] + " " + i;
+            entries.add(new CalendarListEntry().setId("cal" + i + "@group.calendar.google.com").setSummary(name));
+        }
+        return entries;
+    }
+
+    public static List<Event> events(int count) {
+        List<Event> events = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            long start = START + i * 30L * 60 * 1000;
+            events.add(new Event()
+                    .setId("evt" + i)
+                    .setSummary("Meeting " + WORDS[i % WORDS.length] + " " + i)
+                    .setStart(new EventDateTime().setDateTime(new DateTime(start)))
+                    .setEnd(new EventDateTime().setDateTime(new DateTime(start + 25L * 60 * 1000))));
+        }
+        return events;
+    }
+}
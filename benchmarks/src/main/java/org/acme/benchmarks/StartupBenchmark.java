@@ -0,0 +1,137 @@
+package org.acme.benchmarks;
+
+import com.google.gson.JsonObject;
+
+import java.io.IOException;
+import java.net.http.HttpClient;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// Cold start of the server as a sidecar sees it: launches the given command, measures the time
+// until the first Hello.hello tool call over MCP is answered, and the resident set size (Linux)
+// right after it. The server runs against the Calendar API simulator so no Google account is
+// needed. Exits with status 1 if the median of the runs exceeds --max-startup or --max-rss, so it
+// can guard against regressions:
+//
+//   java -cp benchmarks/target/benchmarks.jar org.acme.benchmarks.StartupBenchmark \
+//       --runs 5 --max-startup 1s --max-rss 100 -- target/calendar-mcp-1.0.0-SNAPSHOT-runner
+//
+// Anything after "--" is the command, e.g. "java -jar target/calendar-mcp-1.0.0-SNAPSHOT-runner.jar" or
+// "java -XX:SharedArchiveFile=target/quarkus-app/app-cds.jsa -jar target/quarkus-app/quarkus-run.jar".
+public class StartupBenchmark {
+    private static final long POLL_MILLIS = 5;
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>();
+        int separator = Arrays.asList(args).indexOf("--");
+        if (separator < 0 || separator == args.length - 1) {
+            throw new IllegalArgumentException("Usage: StartupBenchmark [--runs N] [--port P] [--max-startup 1s] [--max-rss MB] -- <command>");
+        }
+        for (int i = 0; i + 1 < separator; i += 2) {
+            options.put(args[i].substring(2), args[i + 1]);
+        }
+        List<String> command = Arrays.asList(args).subList(separator + 1, args.length);
+        int runs = Integer.parseInt(options.getOrDefault("runs", "5"));
+        int port = Integer.parseInt(options.getOrDefault("port", "18080"));
+
+        long[] startup = new long[runs];
+        long[] rss = new long[runs];
+        for (int run = 0; run < runs; run++) {
+            long[] result = measure(command, port);
+            startup[run] = result[0];
+            rss[run] = result[1];
+            System.out.printf(Locale.ROOT, "run %d: first tool call after %d ms, RSS %s%n", run + 1,
+                    TimeUnit.NANOSECONDS.toMillis(startup[run]), rss[run] < 0 ? "n/a" : rss[run] / 1024 + " MB");
+        }
+        Arrays.sort(startup);
+        Arrays.sort(rss);
+        long startupMillis = TimeUnit.NANOSECONDS.toMillis(startup[runs / 2]);
+        long rssMegabytes = rss[runs / 2] / 1024;
+        System.out.printf(Locale.ROOT, "median: first tool call after %d ms, RSS %s%n", startupMillis,
+                rss[runs / 2] < 0 ? "n/a" : rssMegabytes + " MB");
+
+        boolean failed = false;
+        if (options.containsKey("max-startup")) {
+            long limit = Duration.parse("PT" + options.get("max-startup").toUpperCase(Locale.ROOT)).toMillis();
+            if (startupMillis > limit) {
+                System.out.printf("Startup regression: %d ms > %d ms%n", startupMillis, limit);
+                failed = true;
+            }
+        }
+        if (options.containsKey("max-rss") && rss[runs / 2] >= 0) {
+            long limit = Long.parseLong(options.get("max-rss"));
+            if (rssMegabytes > limit) {
+                System.out.printf("RSS regression: %d MB > %d MB%n", rssMegabytes, limit);
+                failed = true;
+            }
+        }
+        System.exit(failed ? 1 : 0);
+    }
+
+    // Nanoseconds until the first tool call is answered and RSS in kB afterwards (-1 if unknown)
+    private static long[] measure(List<String> command, int port) throws Exception {
+        ProcessBuilder builder = new ProcessBuilder(command)
+                .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                .redirectError(ProcessBuilder.Redirect.DISCARD);
+        builder.environment().put("QUARKUS_HTTP_PORT", Integer.toString(port));
+        builder.environment().put("CALENDAR_SIMULATOR_ENABLED", "true");
+        HttpClient client = HttpClient.newHttpClient();
+        long started = System.nanoTime();
+        Process process = builder.start();
+        try {
+            McpSession session = connect(client, port, process);
+            try (session) {
+                JsonObject arguments = new JsonObject();
+                arguments.addProperty("name", "startup");
+                if (!McpSession.succeeded(session.callTool("hello", arguments))) {
+                    throw new IOException("hello failed");
+                }
+                long elapsed = System.nanoTime() - started;
+                return new long[]{elapsed, rss(process.pid())};
+            }
+        } finally {
+            process.destroy();
+            if (!process.waitFor(10, TimeUnit.SECONDS)) {
+                process.destroyForcibly().waitFor();
+            }
+        }
+    }
+
+    // Retries until the launched server accepts an MCP session
+    static McpSession connect(HttpClient client, int port, Process process) throws Exception {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(60);
+        while (true) {
+            try {
+                return McpSession.open(client, "http://localhost:" + port, "X-Calendar-User", null);
+            } catch (IOException e) {
+                if (!process.isAlive()) {
+                    throw new IOException("Server exited with status " + process.exitValue());
+                }
+                if (System.nanoTime() > deadline) {
+                    throw new IOException("Server did not answer within 60s", e);
+                }
+                Thread.sleep(POLL_MILLIS);
+            }
+        }
+    }
+
+    private static long rss(long pid) throws IOException {
+        Path status = Path.of("/proc", Long.toString(pid), "status");
+        if (!Files.exists(status)) {
+            return -1;
+        }
+        for (String line : Files.readAllLines(status)) {
+            if (line.startsWith("VmRSS:")) {
+                return Long.parseLong(line.replaceAll("[^0-9]", ""));
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,141 @@
+package org.acme.benchmarks;
+
+import com.google.gson.JsonObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.net.http.HttpClient;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+// Whole tool calls over MCP against a server started with the Calendar API simulator and no
+// simulated latency, so the numbers cover the MCP round trip, request building, JSON parsing and
+// reply formatting but no Google. Run from the project root after building the server, or point
+// the server parameter at another launch command.
+// A zero directory TTL re-reads the calendar list on every call, as the server did originally.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ToolInvocationBenchmark {
+
+    @Param({"java -jar target/calendar-mcp-1.0.0-SNAPSHOT-runner.jar"})
+    String server;
+
+    @Param({"18081"})
+    int port;
+
+    @Param({"100"})
+    int calendars;
+
+    @Param({"250"})
+    int events;
+
+    @Param({"PT0S", "PT5M"})
+    String directoryTtl;
+
+    private Process process;
+    private McpSession session;
+    private JsonObject select;
+    private JsonObject list;
+    private JsonObject listFiltered;
+    private JsonObject listCompact;
+    private JsonObject create;
+
+    @Setup
+    public void setup() throws Exception {
+        ProcessBuilder builder = new ProcessBuilder(Arrays.asList(server.split(" +")))
+                .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                .redirectError(ProcessBuilder.Redirect.DISCARD);
+        builder.environment().put("QUARKUS_HTTP_PORT", Integer.toString(port));
+        builder.environment().put("CALENDAR_SIMULATOR_ENABLED", "true");
+        builder.environment().put("CALENDAR_SIMULATOR_CALENDARS", Integer.toString(calendars));
+        builder.environment().put("CALENDAR_SIMULATOR_EVENTS_PER_CALENDAR", Integer.toString(events));
+        builder.environment().put("CALENDAR_SIMULATOR_LATENCY", "0ms");
+        builder.environment().put("CALENDAR_SIMULATOR_LATENCY_JITTER", "0ms");
+        builder.environment().put("CALENDAR_DIRECTORY_TTL", directoryTtl);
+        process = builder.start();
+        session = StartupBenchmark.connect(HttpClient.newHttpClient(), port, process);
+
+        String calendarName = "Simulated " + calendars / 2;
+        LocalDate today = LocalDate.now();
+        select = new JsonObject();
+        select.addProperty("calendarName", calendarName);
+        list = new JsonObject();
+        list.addProperty("calendarName", calendarName);
+        list.addProperty("startDate", today + "T00:00:00");
+        list.addProperty("endDate", today.plusDays(30) + "T00:00:00");
+        listFiltered = list.deepCopy();
+        listFiltered.addProperty("filter", "duration>=60m -summary~\"^(gym|travel)\"");
+        listFiltered.addProperty("limit", 50);
+        listCompact = list.deepCopy();
+        listCompact.addProperty("format", "compact");
+        create = new JsonObject();
+        create.addProperty("calendarName", calendarName);
+        create.addProperty("summary", "Benchmark");
+        create.addProperty("location", "Room A");
+        create.addProperty("description", "Created by JMH");
+        create.addProperty("start", today.plusDays(1) + "T10:00:00");
+        create.addProperty("end", today.plusDays(1) + "T11:00:00");
+        create.addProperty("timeZone", "Europe/Madrid");
+
+        // Fail here rather than time error replies
+        check("selectCalendar", select);
+        check("listEvents", list);
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        session.close();
+        process.destroy();
+        if (!process.waitFor(10, TimeUnit.SECONDS)) {
+            process.destroyForcibly().waitFor();
+        }
+    }
+
+    private void check(String tool, JsonObject arguments) throws IOException {
+        JsonObject response = session.callTool(tool, arguments);
+        if (!McpSession.succeeded(response)) {
+            throw new IOException(tool + " failed: " + response);
+        }
+    }
+
+    @Benchmark
+    public JsonObject selectCalendar() throws IOException {
+        return session.callTool("selectCalendar", select);
+    }
+
+    @Benchmark
+    public JsonObject listEvents() throws IOException {
+        return session.callTool("listEvents", list);
+    }
+
+    @Benchmark
+    public JsonObject listEventsFiltered() throws IOException {
+        return session.callTool("listEvents", listFiltered);
+    }
+
+    @Benchmark
+    public JsonObject listEventsCompact() throws IOException {
+        return session.callTool("listEvents", listCompact);
+    }
+
+    @Benchmark
+    public JsonObject createEvent() throws IOException {
+        return session.callTool("createEvent", create);
+    }
+}
@@ -0,0 +1,68 @@
+package org.acme.benchmarks;
+
+import com.google.api.client.http.HttpTransport;
+import com.google.api.client.http.javanet.NetHttpTransport;
+import com.google.api.client.json.gson.GsonFactory;
+import com.google.api.services.calendar.Calendar;
+import com.google.api.services.calendar.model.Events;
+import org.acme.JdkHttpTransport;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.net.http.HttpClient;
+import java.util.concurrent.TimeUnit;
+
+// events().list() round trips over TLS against a local stub, 8 callers at a time.
+// net-http is the HttpURLConnection transport the server used to build; jdk-http is the shared
+// JdkHttpTransport. The stub only speaks HTTP/1.1, so this measures connection reuse, not
+// multiplexing.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(8)
+@Fork(1)
+public class TransportBenchmark {
+
+    @Param({"net-http", "jdk-http"})
+    String transport;
+
+    private TlsStub stub;
+    private Calendar calendar;
+
+    @Setup
+    public void setup() throws Exception {
+        GsonFactory json = GsonFactory.getDefaultInstance();
+        stub = new TlsStub(json.toString(new Events().setItems(MockCalendars.events(50))));
+        HttpTransport httpTransport = "jdk-http".equals(transport)
+                ? new JdkHttpTransport(HttpClient.newBuilder().sslContext(stub.clientContext()).build())
+                : new NetHttpTransport.Builder().trustCertificates(stub.getKeyStore()).build();
+        calendar = new Calendar.Builder(httpTransport, json, null)
+                .setRootUrl(stub.getUrl())
+                .setApplicationName("Google Calendar MCP Server benchmarks")
+                .build();
+    }
+
+    @TearDown
+    public void tearDown() {
+        stub.close();
+    }
+
+    @Benchmark
+    public Events listEvents() throws IOException {
+        return calendar.events().list("primary").execute();
+    }
+}
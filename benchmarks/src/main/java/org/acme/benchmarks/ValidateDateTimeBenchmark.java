@@ -0,0 +1,43 @@
+package org.acme.benchmarks;
+
+import org.acme.tools.CreateEvent;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+// Date parsing done on every create, list and delete call
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ValidateDateTimeBenchmark {
+
+    @Param({"2025-06-04T10:00:00", "2025-06-04T10:00:00.000+02:00", "2025-06-04"})
+    String dateTime;
+
+    @Benchmark
+    public void valid() {
+        CreateEvent.validateDateTime(dateTime, "start");
+    }
+
+    @Benchmark
+    public boolean invalid() {
+        try {
+            CreateEvent.validateDateTime("04/06/2025 10:00", "start");
+            return true;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+}
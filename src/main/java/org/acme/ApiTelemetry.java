@@ -0,0 +1,192 @@
+package org.acme;
+
+import com.google.api.client.http.HttpExecuteInterceptor;
+import com.google.api.client.http.HttpIOExceptionHandler;
+import com.google.api.client.http.HttpRequest;
+import com.google.api.client.http.HttpRequestInitializer;
+import com.google.api.client.http.HttpResponseInterceptor;
+import com.google.api.client.http.HttpUnsuccessfulResponseHandler;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.SpanKind;
+import io.opentelemetry.api.trace.StatusCode;
+import io.opentelemetry.api.trace.Tracer;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+
+import java.io.IOException;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+// Metrics and spans for every HTTP attempt made through the Calendar client: latency per
+// endpoint and status, retries, and request/response payload sizes. Each attempt is a client
+// span under whatever span is current, normally the tool call that triggered it.
+@ApplicationScoped
+public class ApiTelemetry {
+    private static final String API_PREFIX = "/calendar/v3";
+
+    @Inject
+    MeterRegistry registry;
+
+    @Inject
+    Tracer tracer;
+
+    // Wraps the initializer that is already in place (credential and rate limiter), so attempts
+    // are timed from the moment the permit is granted until the response arrives
+    public HttpRequestInitializer wrap(HttpRequestInitializer delegate) {
+        return request -> {
+            if (delegate != null) {
+                delegate.initialize(request);
+            }
+            if (BatchParts.isBuilding()) {
+                // Recorded as part of the batch request; a part never sees a response of its own
+                return;
+            }
+            Attempt attempt = new Attempt();
+            HttpExecuteInterceptor interceptor = request.getInterceptor();
+            request.setInterceptor(r -> {
+                if (interceptor != null) {
+                    interceptor.intercept(r);
+                }
+                attempt.start(r);
+            });
+            HttpResponseInterceptor responseInterceptor = request.getResponseInterceptor();
+            request.setResponseInterceptor(response -> {
+                // Runs once, for the final response; unsuccessful ones were already recorded
+                if (response.isSuccessStatusCode()) {
+                    attempt.finish(response.getStatusCode(), response.getHeaders().getContentLength());
+                }
+                if (responseInterceptor != null) {
+                    responseInterceptor.interceptResponse(response);
+                }
+            });
+            HttpUnsuccessfulResponseHandler unsuccessfulHandler = request.getUnsuccessfulResponseHandler();
+            request.setUnsuccessfulResponseHandler((r, response, supportsRetry) -> {
+                attempt.finish(response.getStatusCode(), response.getHeaders().getContentLength());
+                return unsuccessfulHandler != null && unsuccessfulHandler.handleResponse(r, response, supportsRetry);
+            });
+            HttpIOExceptionHandler ioExceptionHandler = request.getIOExceptionHandler();
+            request.setIOExceptionHandler((r, supportsRetry) -> {
+                attempt.finish(0, null);
+                return ioExceptionHandler != null && ioExceptionHandler.handleIOException(r, supportsRetry);
+            });
+        };
+    }
+
+    // Logical endpoint of a Calendar API URL, e.g. events.list or calendarList.list
+    static String endpoint(String method, String path) {
+        if (path.startsWith(API_PREFIX)) {
+            path = path.substring(API_PREFIX.length());
+        }
+        if (path.startsWith("/batch")) {
+            return "batch";
+        }
+        if (path.equals("/freeBusy")) {
+            return "freebusy.query";
+        }
+        if (path.equals("/channels/stop")) {
+            return "channels.stop";
+        }
+        String resource;
+        String rest;
+        int events = path.indexOf("/events");
+        if (path.startsWith("/users/me/calendarList")) {
+            resource = "calendarList";
+            rest = path.substring("/users/me/calendarList".length());
+        } else if (events >= 0) {
+            resource = "events";
+            rest = path.substring(events + "/events".length());
+        } else if (path.startsWith("/calendars")) {
+            resource = "calendars";
+            rest = path.substring("/calendars".length());
+        } else {
+            return "other";
+        }
+        if (rest.equals("/watch")) {
+            return resource + ".watch";
+        }
+        if (rest.endsWith("/instances")) {
+            return resource + ".instances";
+        }
+        if (rest.equals("/quickAdd") || rest.equals("/import")) {
+            return resource + rest.replace('/', '.');
+        }
+        boolean collection = rest.isEmpty() || rest.equals("/");
+        switch (method) {
+            case "GET":
+                return resource + (collection ? ".list" : ".get");
+            case "POST":
+                return resource + (collection ? ".insert" : ".move");
+            case "PUT":
+                return resource + ".update";
+            case "PATCH":
+                return resource + ".patch";
+            case "DELETE":
+                return resource + ".delete";
+            default:
+                return resource + "." + method.toLowerCase(Locale.ROOT);
+        }
+    }
+
+    private final class Attempt {
+        private String method;
+        private String endpoint;
+        private int count;
+        private long startNanos;
+        private Span span;
+
+        void start(HttpRequest request) throws IOException {
+            method = request.getRequestMethod();
+            endpoint = endpoint(method, request.getUrl().getRawPath());
+            if (++count > 1) {
+                registry.counter("calendar.api.retries", "endpoint", endpoint).increment();
+            }
+            long requestBytes = request.getContent() != null ? request.getContent().getLength() : 0;
+            if (requestBytes >= 0) {
+                DistributionSummary.builder("calendar.api.request.bytes")
+                        .baseUnit("bytes")
+                        .tags("endpoint", endpoint)
+                        .register(registry)
+                        .record(requestBytes);
+            }
+            span = tracer.spanBuilder(method + " " + endpoint)
+                    .setSpanKind(SpanKind.CLIENT)
+                    .setAttribute("http.request.method", method)
+                    .setAttribute("calendar.endpoint", endpoint)
+                    .setAttribute("http.request.resend_count", (long) count - 1)
+                    .startSpan();
+            startNanos = System.nanoTime();
+        }
+
+        void finish(int status, Long responseBytes) {
+            if (span == null) {
+                return;
+            }
+            long nanos = System.nanoTime() - startNanos;
+            String statusTag = status > 0 ? Integer.toString(status) : "IO_ERROR";
+            Timer.builder("calendar.api.requests")
+                    .description("Calendar API request latency per attempt")
+                    .tags("endpoint", endpoint, "method", method, "status", statusTag)
+                    .publishPercentileHistogram()
+                    .register(registry)
+                    .record(nanos, TimeUnit.NANOSECONDS);
+            if (responseBytes != null) {
+                DistributionSummary.builder("calendar.api.response.bytes")
+                        .baseUnit("bytes")
+                        .tags("endpoint", endpoint)
+                        .register(registry)
+                        .record(responseBytes);
+            }
+            if (status > 0) {
+                span.setAttribute("http.response.status_code", (long) status);
+            }
+            if (status == 0 || status >= 400) {
+                span.setStatus(StatusCode.ERROR);
+            }
+            span.end();
+            span = null;
+        }
+    }
+}
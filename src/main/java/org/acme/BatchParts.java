@@ -0,0 +1,42 @@
+package org.acme;
+
+import com.google.api.client.googleapis.batch.BatchRequest;
+import com.google.api.client.googleapis.batch.json.JsonBatchCallback;
+import com.google.api.client.googleapis.json.GoogleJsonErrorContainer;
+import com.google.api.client.http.HttpRequest;
+import com.google.api.client.http.MultipartContent;
+import com.google.api.services.calendar.CalendarRequest;
+
+import java.io.IOException;
+
+// Queues requests into an HTTP batch. A part travels inside the batch request, so the
+// initializers that throttle, back off and time requests leave parts alone: only the batch
+// request itself waits for permits (one per part), is retried and is recorded, and the error of
+// a single part goes to its callback instead of holding up or failing the whole batch.
+public final class BatchParts {
+    private static final ThreadLocal<Boolean> BUILDING = new ThreadLocal<>();
+
+    private BatchParts() {
+    }
+
+    public static <T> void queue(CalendarRequest<T> request, BatchRequest batch, JsonBatchCallback<T> callback) throws IOException {
+        HttpRequest part;
+        BUILDING.set(Boolean.TRUE);
+        try {
+            part = request.buildHttpRequest();
+        } finally {
+            BUILDING.remove();
+        }
+        batch.queue(part, request.getResponseClass(), GoogleJsonErrorContainer.class, callback);
+    }
+
+    // Whether the request being initialized is a batch part
+    static boolean isBuilding() {
+        return BUILDING.get() != null;
+    }
+
+    // The API requests an HTTP request stands for: its parts for a batch, otherwise one
+    static int requests(HttpRequest request) {
+        return request.getContent() instanceof MultipartContent multipart ? Math.max(1, multipart.getParts().size()) : 1;
+    }
+}
@@ -0,0 +1,162 @@
+package org.acme;
+
+import com.google.api.client.googleapis.batch.BatchRequest;
+import com.google.api.client.googleapis.batch.json.JsonBatchCallback;
+import com.google.api.client.googleapis.json.GoogleJsonError;
+import com.google.api.client.http.HttpHeaders;
+import com.google.api.services.calendar.Calendar;
+import com.google.api.services.calendar.CalendarRequest;
+import com.google.api.services.calendar.model.Event;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.acme.tools.extra.BulkResult;
+import org.acme.tools.extra.MutationOutcome;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadLocalRandom;
+
+// Sends Calendar mutations as HTTP batch requests, running the batches concurrently on the
+// CalendarExecutor, and retries only the items that failed with a transient error.
+@ApplicationScoped
+public class BulkMutationEngine {
+    private static final Logger LOG = Logger.getLogger(BulkMutationEngine.class);
+
+    @Inject
+    Calendar calendarService;
+
+    @Inject
+    CalendarExecutor calendarExecutor;
+
+    @Inject
+    CalendarRateLimiter rateLimiter;
+
+    @ConfigProperty(name = "calendar.batch.size", defaultValue = "50")
+    int batchSize;
+
+    @ConfigProperty(name = "calendar.batch.max-attempts", defaultValue = "4")
+    int maxAttempts;
+
+    @ConfigProperty(name = "calendar.batch.backoff-millis", defaultValue = "500")
+    long backoffMillis;
+
+    // A single queued call. A failure with one of the tolerated statuses counts as success, e.g.
+    // 410 or 404 for a delete of an event that is already gone.
+    public record Mutation(String key, CalendarRequest<?> request, Set<Integer> toleratedStatuses) {
+    }
+
+    // Google answers 410 for a deleted event it still remembers and 404 once it has forgotten it
+    public Mutation delete(String calendarId, String eventId) throws IOException {
+        return new Mutation(eventId, calendarService.events().delete(calendarId, eventId), Set.of(404, 410));
+    }
+
+    // The event must carry its own ID, so a retried insert that already went through fails with
+    // 409 instead of creating a duplicate
+    public Mutation insert(String calendarId, Event event) throws IOException {
+        return new Mutation(event.getId(), calendarService.events().insert(calendarId, event), Set.of(409));
+    }
+
+    // Overwrites an existing event, e.g. to restore a deleted one whose ID an insert cannot reuse
+    public Mutation update(String calendarId, Event event) throws IOException {
+        return new Mutation(event.getId(), calendarService.events().update(calendarId, event.getId(), event), Set.of());
+    }
+
+    public BulkResult execute(List<Mutation> mutations) throws IOException {
+        Map<String, MutationOutcome> outcomes = Collections.synchronizedMap(new LinkedHashMap<>());
+        for (Mutation mutation : mutations) {
+            outcomes.put(mutation.key(), null);
+        }
+        int roundTrips = 0;
+        List<Mutation> pending = mutations;
+        for (int attempt = 1; !pending.isEmpty(); attempt++) {
+            int currentAttempt = attempt;
+            boolean lastAttempt = attempt >= maxAttempts;
+            List<Mutation> retry = Collections.synchronizedList(new ArrayList<>());
+            List<CompletableFuture<Void>> batches = new ArrayList<>();
+            for (int from = 0; from < pending.size(); from += batchSize) {
+                List<Mutation> chunk = pending.subList(from, Math.min(pending.size(), from + batchSize));
+                // CalendarRateLimiter bills every item to the tenant, not just the batch request
+                batches.add(calendarExecutor.submit("batch", () -> {
+                    try {
+                        executeBatch(chunk, currentAttempt, lastAttempt, outcomes, retry);
+                    } catch (IOException e) {
+                        // The whole batch failed in transit, so every item in it is worth another try
+                        for (Mutation mutation : chunk) {
+                            outcomes.put(mutation.key(), new MutationOutcome(mutation.key(), false, 0, e.getMessage(), currentAttempt));
+                        }
+                        if (!lastAttempt) {
+                            retry.addAll(chunk);
+                        }
+                    }
+                    return null;
+                }));
+            }
+            for (CompletableFuture<Void> batch : batches) {
+                CalendarExecutor.await(batch);
+            }
+            roundTrips += batches.size();
+            if (!retry.isEmpty()) {
+                LOG.debugf("Retrying %d of %d mutation(s) after attempt %d", retry.size(), pending.size(), attempt);
+                backoff(attempt);
+            }
+            pending = new ArrayList<>(retry);
+        }
+        return new BulkResult(new ArrayList<>(outcomes.values()), roundTrips);
+    }
+
+    private void executeBatch(List<Mutation> chunk, int attempt, boolean lastAttempt,
+                              Map<String, MutationOutcome> outcomes, List<Mutation> retry) throws IOException {
+        BatchRequest batch = calendarService.batch();
+        for (Mutation mutation : chunk) {
+            queue(mutation.request(), batch, new JsonBatchCallback<>() {
+                @Override
+                public void onSuccess(Object result, HttpHeaders responseHeaders) {
+                    outcomes.put(mutation.key(), new MutationOutcome(mutation.key(), true, 200, null, attempt));
+                }
+
+                @Override
+                public void onFailure(GoogleJsonError error, HttpHeaders responseHeaders) {
+                    boolean tolerated = mutation.toleratedStatuses().contains(error.getCode());
+                    if (CalendarRateLimiter.isRateLimitError(error)) {
+                        // Parts are queued without the limiter's backoff handler (see BatchParts),
+                        // so their quota errors are reported here and retried by the next attempt
+                        rateLimiter.onQuotaError();
+                    }
+                    outcomes.put(mutation.key(), new MutationOutcome(
+                            mutation.key(), tolerated, error.getCode(), error.getMessage(), attempt));
+                    if (!tolerated && !lastAttempt && isRetryable(error)) {
+                        retry.add(mutation);
+                    }
+                }
+            });
+        }
+        batch.execute();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> void queue(CalendarRequest<T> request, BatchRequest batch, JsonBatchCallback<?> callback) throws IOException {
+        BatchParts.queue(request, batch, (JsonBatchCallback<T>) callback);
+    }
+
+    public static boolean isRetryable(GoogleJsonError error) {
+        return error.getCode() >= 500 || CalendarRateLimiter.isRateLimitError(error);
+    }
+
+    private void backoff(int attempt) throws IOException {
+        long delay = backoffMillis << (attempt - 1);
+        try {
+            Thread.sleep(delay + ThreadLocalRandom.current().nextLong(delay / 2 + 1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting to retry batch", e);
+        }
+    }
+}
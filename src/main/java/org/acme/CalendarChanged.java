@@ -0,0 +1,6 @@
+package org.acme;
+
+// Fired when a push notification reports a change: to the events of calendarId, or to the
+// calendar list when calendarId is null
+public record CalendarChanged(String tenant, String calendarId) {
+}
@@ -0,0 +1,191 @@
+package org.acme;
+
+import com.google.api.client.googleapis.json.GoogleJsonResponseException;
+import com.google.api.services.calendar.Calendar;
+import com.google.api.services.calendar.model.CalendarList;
+import com.google.api.services.calendar.model.CalendarListEntry;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import org.acme.tools.extra.CalendarNameIndex;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+// In-memory copy of each tenant's calendar list. Name resolution runs against a precomputed
+// index; the list itself is refreshed with the calendar list sync token once the TTL expires or,
+// while the calendar list is watched, when a push notification reports a change and at least
+// every max-staleness.
+@ApplicationScoped
+public class CalendarDirectory {
+    private static final Logger LOG = Logger.getLogger(CalendarDirectory.class);
+
+    @Inject
+    Calendar calendarService;
+
+    @Inject
+    ResponseCache responseCache;
+
+    @Inject
+    WatchChannels watchChannels;
+
+    @ConfigProperty(name = "calendar.directory.ttl", defaultValue = "5m")
+    Duration ttl;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong refreshes = new AtomicLong();
+    private final AtomicLong fullLoads = new AtomicLong();
+    private final Map<String, TenantDirectory> directories = new ConcurrentHashMap<>();
+    private final SingleFlight<TenantDirectory, Snapshot> loads = new SingleFlight<>(0);
+
+    // Calendar list of the current tenant
+    public CalendarNameIndex index() throws IOException {
+        return directories.computeIfAbsent(TenantContext.current(), t -> new TenantDirectory()).index();
+    }
+
+    public void invalidate() {
+        directories.remove(TenantContext.current());
+    }
+
+    void onTenantEvicted(@Observes TenantEvicted event) {
+        directories.remove(event.tenant());
+    }
+
+    void onCalendarChanged(@Observes CalendarChanged event) {
+        TenantDirectory directory = directories.get(event.tenant());
+        if (directory != null && event.calendarId() == null) {
+            directory.stale = true;
+        }
+    }
+
+    public long getHitCount() {
+        return hits.get();
+    }
+
+    public long getMissCount() {
+        return misses.get();
+    }
+
+    public long getRefreshCount() {
+        return refreshes.get();
+    }
+
+    public long getFullLoadCount() {
+        return fullLoads.get();
+    }
+
+    public SingleFlight<?, ?> getLoads() {
+        return loads;
+    }
+
+    private Snapshot fullLoad() throws IOException {
+        fullLoads.incrementAndGet();
+        Map<String, CalendarListEntry> entries = new LinkedHashMap<>();
+        String syncToken = fetch(null, entries);
+        LOG.debugf("Loaded %d calendars into the directory", entries.size());
+        return new Snapshot(entries, syncToken);
+    }
+
+    private Snapshot refresh(Snapshot current) throws IOException {
+        if (current.syncToken == null) {
+            return fullLoad();
+        }
+        refreshes.incrementAndGet();
+        Map<String, CalendarListEntry> entries = new LinkedHashMap<>(current.entries);
+        try {
+            String syncToken = fetch(current.syncToken, entries);
+            return new Snapshot(entries, syncToken);
+        } catch (GoogleJsonResponseException e) {
+            if (e.getStatusCode() == 410) {
+                // Sync token expired, start over
+                return fullLoad();
+            }
+            throw e;
+        }
+    }
+
+    // Applies every page of the (incremental) calendar list to entries and returns the next sync token
+    private String fetch(String syncToken, Map<String, CalendarListEntry> entries) throws IOException {
+        String pageToken = null;
+        CalendarList page;
+        do {
+            Calendar.CalendarList.List request = calendarService.calendarList().list()
+                    .setSyncToken(syncToken)
+                    .setPageToken(pageToken);
+            page = responseCache.execute(request);
+            List<CalendarListEntry> items = page.getItems() != null ? page.getItems() : List.of();
+            for (CalendarListEntry entry : items) {
+                // Incremental results always include deleted and hidden entries, a plain list does not
+                if (Boolean.TRUE.equals(entry.getDeleted()) || Boolean.TRUE.equals(entry.getHidden())) {
+                    entries.remove(entry.getId());
+                } else {
+                    entries.put(entry.getId(), entry);
+                }
+            }
+            pageToken = page.getNextPageToken();
+        } while (pageToken != null);
+        return page.getNextSyncToken();
+    }
+
+    private final class TenantDirectory {
+        private volatile Snapshot snapshot;
+        private volatile boolean stale;
+
+        CalendarNameIndex index() throws IOException {
+            boolean watched = watchChannels.watchCalendarList();
+            Snapshot current = snapshot;
+            if (current != null && !isDue(current, watched)) {
+                hits.incrementAndGet();
+                return current.index;
+            }
+            misses.incrementAndGet();
+            if (current != null && loads.isInFlight(this)) {
+                // Someone else is already refreshing; the previous list is good enough meanwhile
+                return current.index;
+            }
+            // Concurrent misses share one load
+            Snapshot loaded = loads.execute(this, () -> {
+                Snapshot latest = snapshot;
+                if (latest == null) {
+                    latest = fullLoad();
+                } else if (isDue(latest, watched)) {
+                    stale = false;
+                    latest = refresh(latest);
+                }
+                snapshot = latest;
+                return latest;
+            });
+            return loaded.index;
+        }
+
+        private boolean isDue(Snapshot current, boolean watched) {
+            return stale || current.isExpired(watchChannels.refreshInterval(watched, ttl));
+        }
+    }
+
+    private static final class Snapshot {
+        final Map<String, CalendarListEntry> entries;
+        final CalendarNameIndex index;
+        final String syncToken;
+        final long loadedAt = System.nanoTime();
+
+        Snapshot(Map<String, CalendarListEntry> entries, String syncToken) {
+            this.entries = entries;
+            this.index = new CalendarNameIndex(new ArrayList<>(entries.values()));
+            this.syncToken = syncToken;
+        }
+
+        boolean isExpired(Duration ttl) {
+            return System.nanoTime() - loadedAt >= ttl.toNanos();
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package org.acme;
+
+import io.opentelemetry.context.Context;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+// Runs independent Calendar API calls concurrently. Every call goes through a global
+// concurrency limit, and its latency is recorded per operation. The requests a call makes are
+// paced by the tenant's budget in CalendarRateLimiter, not here.
+@ApplicationScoped
+public class CalendarExecutor {
+    private static final Logger LOG = Logger.getLogger(CalendarExecutor.class);
+    public static final String DEFAULT_USER = TenantContext.DEFAULT;
+
+    @ConfigProperty(name = "calendar.executor.max-concurrency", defaultValue = "16")
+    int maxConcurrency;
+
+    private ExecutorService executor;
+    private Semaphore permits;
+    private final Map<String, LatencyStats> latencies = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    void init() {
+        executor = newExecutor(maxConcurrency);
+        permits = new Semaphore(maxConcurrency, true);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    // Runs as the caller's tenant
+    public <T> CompletableFuture<T> submit(String operation, Callable<T> call) {
+        return submit(TenantContext.current(), operation, call);
+    }
+
+    public <T> CompletableFuture<T> submit(String user, String operation, Callable<T> call) {
+        // Carry the caller's trace context so API calls stay under the tool span, and run as the user
+        Callable<T> traced = Context.current().wrap(() -> TenantContext.call(user, call));
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                permits.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new CompletionException(e);
+            }
+            long start = System.nanoTime();
+            try {
+                return traced.call();
+            } catch (Exception e) {
+                throw new CompletionException(e);
+            } finally {
+                permits.release();
+                record(operation, System.nanoTime() - start);
+            }
+        }, executor);
+    }
+
+    // Runs all calls concurrently and waits for them, rethrowing the first IOException
+    public <T> List<T> invokeAll(String operation, List<Callable<T>> calls) throws IOException {
+        List<CompletableFuture<T>> futures = new ArrayList<>(calls.size());
+        for (Callable<T> call : calls) {
+            futures.add(submit(operation, call));
+        }
+        List<T> results = new ArrayList<>(futures.size());
+        for (CompletableFuture<T> future : futures) {
+            results.add(await(future));
+        }
+        return results;
+    }
+
+    // Adapter for code that takes a plain Executor, such as EventPager page prefetch
+    public Executor asExecutor(String operation) {
+        return command -> submit(operation, () -> {
+            command.run();
+            return null;
+        });
+    }
+
+    public static <T> T await(CompletableFuture<T> future) throws IOException {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException io) {
+                throw io;
+            }
+            if (cause instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new IOException(cause);
+        }
+    }
+
+    public Map<String, LatencyStats> getLatencies() {
+        return latencies;
+    }
+
+    public int getActiveCalls() {
+        return maxConcurrency - permits.availablePermits();
+    }
+
+    private void record(String operation, long nanos) {
+        latencies.computeIfAbsent(operation, o -> new LatencyStats()).record(nanos);
+        LOG.debugf("%s took %.1f ms", operation, nanos / 1_000_000.0);
+    }
+
+    // Virtual threads when running on JDK 21+, a bounded platform pool otherwise
+    private static ExecutorService newExecutor(int maxConcurrency) {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            AtomicInteger counter = new AtomicInteger();
+            return Executors.newFixedThreadPool(maxConcurrency, runnable -> {
+                Thread thread = new Thread(runnable, "calendar-api-" + counter.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    public static class LatencyStats {
+        private final LongAdder count = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+
+        void record(long nanos) {
+            count.increment();
+            totalNanos.add(nanos);
+            maxNanos.accumulate(nanos);
+        }
+
+        public long getCount() {
+            return count.sum();
+        }
+
+        public double getMeanMillis() {
+            long n = count.sum();
+            return n == 0 ? 0 : totalNanos.sum() / (n * 1_000_000.0);
+        }
+
+        public double getMaxMillis() {
+            return maxNanos.get() / 1_000_000.0;
+        }
+    }
+}
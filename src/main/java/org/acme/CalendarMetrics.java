@@ -0,0 +1,130 @@
+package org.acme;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.inject.Inject;
+import jakarta.inject.Singleton;
+
+// Publishes the counters the caching and throttling beans already keep
+@Singleton
+public class CalendarMetrics implements MeterBinder {
+
+    @Inject
+    CalendarDirectory calendarDirectory;
+
+    @Inject
+    CalendarRateLimiter rateLimiter;
+
+    @Inject
+    CalendarExecutor calendarExecutor;
+
+    @Inject
+    TenantRegistry tenantRegistry;
+
+    @Inject
+    ReadCoalescer readCoalescer;
+
+    @Inject
+    ResponseCache responseCache;
+
+    @Inject
+    WriteBehind writeBehind;
+
+    @Inject
+    WatchChannels watchChannels;
+
+    @Inject
+    RecurrenceCache recurrenceCache;
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("calendar.directory.lookups", calendarDirectory, CalendarDirectory::getHitCount)
+                .tags("result", "hit")
+                .register(registry);
+        FunctionCounter.builder("calendar.directory.lookups", calendarDirectory, CalendarDirectory::getMissCount)
+                .tags("result", "miss")
+                .register(registry);
+        FunctionCounter.builder("calendar.directory.loads", calendarDirectory, CalendarDirectory::getRefreshCount)
+                .tags("kind", "incremental")
+                .register(registry);
+        FunctionCounter.builder("calendar.directory.loads", calendarDirectory, CalendarDirectory::getFullLoadCount)
+                .tags("kind", "full")
+                .register(registry);
+
+        bindCoalescing(registry, "calendarList.list", calendarDirectory.getLoads());
+        bindCoalescing(registry, "events.list", readCoalescer.getEvents());
+
+        FunctionCounter.builder("calendar.http.cache.requests", responseCache, ResponseCache::getRevalidatedCount)
+                .tags("result", "not-modified")
+                .register(registry);
+        FunctionCounter.builder("calendar.http.cache.requests", responseCache, ResponseCache::getFetchedCount)
+                .tags("result", "fetched")
+                .register(registry);
+        FunctionCounter.builder("calendar.http.cache.evictions", responseCache, ResponseCache::getEvictionCount)
+                .register(registry);
+        Gauge.builder("calendar.http.cache.size", responseCache, ResponseCache::getBytes)
+                .baseUnit("bytes")
+                .description("Response bodies kept for conditional requests")
+                .register(registry);
+
+        Gauge.builder("calendar.rate-limit.qps", tenantRegistry, TenantRegistry::getLowestRate)
+                .description("Lowest client-side request rate of any tenant")
+                .register(registry);
+        Gauge.builder("calendar.rate-limit.waiting", rateLimiter, CalendarRateLimiter::getQueueDepth)
+                .description("Requests waiting for a permit")
+                .register(registry);
+        FunctionCounter.builder("calendar.rate-limit.throttled", rateLimiter, CalendarRateLimiter::getThrottledCount)
+                .register(registry);
+        FunctionCounter.builder("calendar.rate-limit.quota-errors", rateLimiter, CalendarRateLimiter::getQuotaErrorCount)
+                .register(registry);
+        FunctionCounter.builder("calendar.rate-limit.retries", rateLimiter, CalendarRateLimiter::getRetryCount)
+                .register(registry);
+
+        Gauge.builder("calendar.executor.active", calendarExecutor, CalendarExecutor::getActiveCalls)
+                .description("Calendar API calls running on the shared executor")
+                .register(registry);
+
+        Gauge.builder("calendar.write-behind.pending", writeBehind, WriteBehind::getPendingCount)
+                .description("Queued creates and deletes not yet applied")
+                .register(registry);
+        FunctionCounter.builder("calendar.write-behind.mutations", writeBehind, WriteBehind::getAppliedCount)
+                .tags("result", "applied")
+                .register(registry);
+        FunctionCounter.builder("calendar.write-behind.mutations", writeBehind, WriteBehind::getFailedCount)
+                .tags("result", "failed")
+                .register(registry);
+        FunctionCounter.builder("calendar.write-behind.mutations", writeBehind, WriteBehind::getCancelledCount)
+                .tags("result", "cancelled")
+                .register(registry);
+
+        Gauge.builder("calendar.watch.channels", watchChannels, WatchChannels::getOpenCount)
+                .description("Open push notification channels")
+                .register(registry);
+        FunctionCounter.builder("calendar.watch.notifications", watchChannels, WatchChannels::getNotificationCount)
+                .description("Change notifications received")
+                .register(registry);
+
+        Gauge.builder("calendar.recurrence.instances", recurrenceCache, RecurrenceCache::getCachedInstances)
+                .description("Instances of recurring events kept in the cache")
+                .register(registry);
+
+        Gauge.builder("calendar.tenants.active", tenantRegistry, TenantRegistry::size)
+                .description("Tenants with a loaded credential")
+                .register(registry);
+    }
+
+    // Reads per outcome: executed made the request, joined and cached shared another caller's result
+    private static void bindCoalescing(MeterRegistry registry, String operation, SingleFlight<?, ?> flight) {
+        FunctionCounter.builder("calendar.coalesce.calls", flight, SingleFlight::getExecutedCount)
+                .tags("operation", operation, "result", "executed")
+                .register(registry);
+        FunctionCounter.builder("calendar.coalesce.calls", flight, SingleFlight::getJoinedCount)
+                .tags("operation", operation, "result", "joined")
+                .register(registry);
+        FunctionCounter.builder("calendar.coalesce.calls", flight, SingleFlight::getCachedCount)
+                .tags("operation", operation, "result", "cached")
+                .register(registry);
+    }
+}
@@ -0,0 +1,207 @@
+package org.acme;
+
+import com.google.api.client.googleapis.json.GoogleJsonError;
+import com.google.api.client.googleapis.json.GoogleJsonResponseException;
+import com.google.api.client.http.HttpExecuteInterceptor;
+import com.google.api.client.http.HttpRequest;
+import com.google.api.client.http.HttpRequestInitializer;
+import com.google.api.client.http.HttpResponse;
+import com.google.api.client.http.HttpResponseInterceptor;
+import com.google.api.client.http.HttpUnsuccessfulResponseHandler;
+import com.google.api.client.json.JsonFactory;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Client-side rate limiting for every request made through the Calendar client. Requests take
+// a permit from the budget of their tenant before they are sent, a batch one per part; 429 and
+// 403 rate-limit responses are retried with jittered exponential backoff and halve that
+// tenant's rate and burst, which then creep back up as requests succeed. Batch parts are left
+// to BulkMutationEngine.
+@ApplicationScoped
+public class CalendarRateLimiter {
+    private static final Logger LOG = Logger.getLogger(CalendarRateLimiter.class);
+    private static final Set<String> RATE_LIMIT_REASONS = Set.of("rateLimitExceeded", "userRateLimitExceeded");
+
+    @Inject
+    JsonFactory jsonFactory;
+
+    @Inject
+    TenantRegistry tenantRegistry;
+
+    @ConfigProperty(name = "calendar.rate-limit.min-qps", defaultValue = "1")
+    double minQps;
+
+    @ConfigProperty(name = "calendar.rate-limit.max-retries", defaultValue = "6")
+    int maxRetries;
+
+    @ConfigProperty(name = "calendar.rate-limit.backoff-millis", defaultValue = "1000")
+    long backoffMillis;
+
+    @ConfigProperty(name = "calendar.rate-limit.max-backoff-millis", defaultValue = "32000")
+    long maxBackoffMillis;
+
+    private final AtomicLong throttled = new AtomicLong();
+    private final AtomicLong quotaErrors = new AtomicLong();
+    private final AtomicLong retries = new AtomicLong();
+
+    public HttpRequestInitializer wrap(HttpRequestInitializer delegate) {
+        return request -> {
+            if (delegate != null) {
+                delegate.initialize(request);
+            }
+            if (BatchParts.isBuilding()) {
+                return;
+            }
+            TenantRegistry.Budget budget = tenantRegistry.budget();
+            HttpExecuteInterceptor interceptor = request.getInterceptor();
+            request.setInterceptor(r -> {
+                acquire(budget, BatchParts.requests(r));
+                if (interceptor != null) {
+                    interceptor.intercept(r);
+                }
+            });
+            HttpResponseInterceptor responseInterceptor = request.getResponseInterceptor();
+            request.setResponseInterceptor(response -> {
+                if (response.isSuccessStatusCode()) {
+                    budget.increase();
+                }
+                if (responseInterceptor != null) {
+                    responseInterceptor.interceptResponse(response);
+                }
+            });
+            request.setUnsuccessfulResponseHandler(new BackoffHandler(budget, request.getUnsuccessfulResponseHandler()));
+            request.setNumberOfRetries(maxRetries);
+        };
+    }
+
+    public static boolean isRateLimitError(GoogleJsonError error) {
+        if (error == null) {
+            return false;
+        }
+        if (error.getCode() == 429) {
+            return true;
+        }
+        return error.getCode() == 403 && error.getErrors() != null && error.getErrors().stream()
+                .anyMatch(info -> RATE_LIMIT_REASONS.contains(info.getReason()));
+    }
+
+    // Lowers the rate of the current tenant
+    public void onQuotaError() {
+        onQuotaError(tenantRegistry.budget());
+    }
+
+    private void onQuotaError(TenantRegistry.Budget budget) {
+        quotaErrors.incrementAndGet();
+        double rate = budget.decrease(minQps);
+        if (rate > 0) {
+            LOG.debugf("Quota error from Calendar API, lowering the rate of %s to %.2f req/s", TenantContext.current(), rate);
+        }
+    }
+
+    // Of the current tenant
+    public double getCurrentRate() {
+        return tenantRegistry.budget().getRate();
+    }
+
+    public int getQueueDepth() {
+        return tenantRegistry.getWaiting();
+    }
+
+    public long getThrottledCount() {
+        return throttled.get();
+    }
+
+    public long getQuotaErrorCount() {
+        return quotaErrors.get();
+    }
+
+    public long getRetryCount() {
+        return retries.get();
+    }
+
+    private void acquire(TenantRegistry.Budget budget, int permits) throws IOException {
+        long start = System.nanoTime();
+        try {
+            budget.bucket.acquire(permits);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for a Calendar API permit");
+        }
+        if (System.nanoTime() - start > 1_000_000L) {
+            throttled.incrementAndGet();
+        }
+    }
+
+    private class BackoffHandler implements HttpUnsuccessfulResponseHandler {
+        private final TenantRegistry.Budget budget;
+        private final HttpUnsuccessfulResponseHandler delegate;
+        private int attempt;
+
+        BackoffHandler(TenantRegistry.Budget budget, HttpUnsuccessfulResponseHandler delegate) {
+            this.budget = budget;
+            this.delegate = delegate;
+        }
+
+        @Override
+        public boolean handleResponse(HttpRequest request, HttpResponse response, boolean supportsRetry) throws IOException {
+            // The credential gets the first look so expired tokens are still refreshed
+            if (delegate != null && delegate.handleResponse(request, response, supportsRetry)) {
+                return true;
+            }
+            int status = response.getStatusCode();
+            if (status != 429 && status != 403) {
+                return false;
+            }
+            if (status == 403) {
+                // The reason is only in the body; once read it cannot be parsed again, so a
+                // non-quota 403 is rethrown here with its details intact
+                GoogleJsonResponseException error = GoogleJsonResponseException.from(jsonFactory, response);
+                if (!isRateLimitError(error.getDetails())) {
+                    throw error;
+                }
+                onQuotaError(budget);
+                if (!supportsRetry) {
+                    throw error;
+                }
+            } else {
+                onQuotaError(budget);
+                if (!supportsRetry) {
+                    return false;
+                }
+            }
+            retries.incrementAndGet();
+            sleep(delayMillis(response));
+            return true;
+        }
+
+        private long delayMillis(HttpResponse response) {
+            String retryAfter = response.getHeaders().getRetryAfter();
+            if (retryAfter != null) {
+                try {
+                    return Math.min(maxBackoffMillis, Long.parseLong(retryAfter.trim()) * 1000);
+                } catch (NumberFormatException ignored) {
+                    // HTTP-date form, fall back to exponential backoff
+                }
+            }
+            long delay = Math.min(maxBackoffMillis, backoffMillis << Math.min(attempt++, 20));
+            return delay / 2 + ThreadLocalRandom.current().nextLong(delay / 2 + 1);
+        }
+
+        private void sleep(long millis) throws IOException {
+            try {
+                Thread.sleep(millis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while backing off from a Calendar API quota error");
+            }
+        }
+    }
+}
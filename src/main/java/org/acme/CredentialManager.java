@@ -0,0 +1,160 @@
+package org.acme;
+
+import com.google.api.client.auth.oauth2.Credential;
+import com.google.api.client.http.HttpRequestInitializer;
+import io.quarkus.runtime.StartupEvent;
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+// Loads the Google credential in the background when the server starts, instead of on the first
+// injection of the Calendar client, and refreshes the access token ahead of its expiry so tool
+// calls never wait for a refresh. Requests made before the credential is ready wait for it.
+// The credentials of other tenants, loaded by TenantRegistry, are kept fresh the same way until
+// the tenant is evicted.
+@ApplicationScoped
+public class CredentialManager {
+    private static final Logger LOG = Logger.getLogger(CredentialManager.class);
+    private static final long RETRY_SECONDS = 30;
+
+    @Inject
+    GoogleAuthService authService;
+
+    @ConfigProperty(name = "calendar.auth.refresh-margin", defaultValue = "5m")
+    Duration refreshMargin;
+
+    @ConfigProperty(name = "calendar.auth.wait-timeout", defaultValue = "2m")
+    Duration waitTimeout;
+
+    @ConfigProperty(name = "calendar.simulator.enabled", defaultValue = "false")
+    boolean simulated;
+
+    private final CompletableFuture<Credential> credential = new CompletableFuture<>();
+    // Tenant -> credential kept fresh; a refresh whose credential is no longer here stops
+    private final Map<String, Credential> tenants = new ConcurrentHashMap<>();
+    private ScheduledExecutorService scheduler;
+    private boolean started;
+    private volatile String lastError;
+
+    void onStart(@Observes StartupEvent event) {
+        // The simulator needs no credentials, so do not start an authorization nobody will finish
+        if (!simulated) {
+            start();
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    // Initializer for the Calendar client that applies the credential once it is loaded
+    public HttpRequestInitializer initializer() {
+        return request -> current().initialize(request);
+    }
+
+    public boolean isReady() {
+        return credential.isDone();
+    }
+
+    // Refreshes another tenant's credential ahead of expiry until the tenant is evicted
+    public void keepRefreshed(String tenant, Credential loaded) {
+        tenants.put(tenant, loaded);
+        scheduler().execute(() -> refresh(tenant, loaded));
+    }
+
+    void onTenantEvicted(@Observes TenantEvicted event) {
+        tenants.remove(event.tenant());
+    }
+
+    private synchronized void start() {
+        if (!started) {
+            started = true;
+            scheduler().execute(this::load);
+        }
+    }
+
+    private synchronized ScheduledExecutorService scheduler() {
+        if (scheduler == null) {
+            scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "calendar-credentials");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        return scheduler;
+    }
+
+    private Credential current() throws IOException {
+        start();
+        if (!credential.isDone() && lastError != null) {
+            // Loading already failed once; fail fast rather than hold the tool call
+            throw new IOException("Google credentials are not available: " + lastError);
+        }
+        try {
+            return credential.get(waitTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            throw new IOException("Timed out waiting for Google credentials; complete the authorization in the browser");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for Google credentials");
+        } catch (ExecutionException e) {
+            throw new IOException(e.getCause());
+        }
+    }
+
+    private void load() {
+        try {
+            Credential loaded = authService.authorize();
+            lastError = null;
+            credential.complete(loaded);
+            LOG.info("Google credentials loaded");
+            refresh(TenantContext.DEFAULT, loaded);
+        } catch (Exception e) {
+            lastError = e.getMessage();
+            LOG.errorf("Could not load Google credentials, retrying in %d s: %s", RETRY_SECONDS, e.getMessage());
+            scheduler.schedule(this::load, RETRY_SECONDS, TimeUnit.SECONDS);
+        }
+    }
+
+    // Refreshes when the token is within the margin of its expiry, then schedules the next check
+    private void refresh(String tenant, Credential loaded) {
+        if (!TenantContext.DEFAULT.equals(tenant) && tenants.get(tenant) != loaded) {
+            return;
+        }
+        long delay;
+        try {
+            Long expiresIn = loaded.getExpiresInSeconds();
+            if (expiresIn == null || expiresIn <= refreshMargin.toSeconds()) {
+                if (loaded.refreshToken()) {
+                    LOG.debugf("Google access token of %s refreshed, valid for %d s", tenant, loaded.getExpiresInSeconds());
+                } else {
+                    LOG.warnf("Google access token of %s could not be refreshed, no refresh token is stored", tenant);
+                }
+            }
+            Long remaining = loaded.getExpiresInSeconds();
+            delay = remaining == null ? RETRY_SECONDS : Math.max(RETRY_SECONDS, remaining - refreshMargin.toSeconds());
+        } catch (IOException e) {
+            LOG.warnf("Refreshing the Google access token of %s failed, retrying in %d s: %s", tenant, RETRY_SECONDS, e.getMessage());
+            delay = RETRY_SECONDS;
+        }
+        scheduler.schedule(() -> refresh(tenant, loaded), delay, TimeUnit.SECONDS);
+    }
+}
@@ -0,0 +1,236 @@
+package org.acme;
+
+import com.google.api.client.googleapis.json.GoogleJsonResponseException;
+import com.google.api.services.calendar.Calendar;
+import com.google.api.services.calendar.model.Event;
+import com.google.api.services.calendar.model.Events;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import org.acme.tools.extra.EventIntervalIndex;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Optional local copy of the events of each calendar that has been read. The first read does a
+// full sync; afterwards only the changes since the last sync token are fetched, at most once per
+// sync interval, or after a push notification (and at most max-staleness apart) while the
+// calendar is watched. Queries are answered from an interval index over the copy.
+@ApplicationScoped
+public class EventMirror {
+    private static final Logger LOG = Logger.getLogger(EventMirror.class);
+    private static final String SYNC_FIELDS =
+            "nextPageToken,nextSyncToken,timeZone,items(id,status,transparency,recurringEventId,summary,description,location,start,end)";
+
+    @Inject
+    Calendar calendarService;
+
+    @Inject
+    WatchChannels watchChannels;
+
+    @ConfigProperty(name = "calendar.mirror.enabled", defaultValue = "false")
+    boolean enabled;
+
+    @ConfigProperty(name = "calendar.mirror.sync-interval", defaultValue = "30s")
+    Duration syncInterval;
+
+    // Tenant -> calendar ID -> mirror
+    private final Map<String, Map<String, CalendarMirror>> tenants = new ConcurrentHashMap<>();
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    // Events overlapping [timeMin, timeMax) whose summary, description or location contains
+    // the query; null bounds and an empty query match everything
+    public List<Event> query(String calendarId, String query, Long timeMin, Long timeMax) throws IOException {
+        CalendarMirror mirror = mirrors().computeIfAbsent(calendarId, CalendarMirror::new);
+        EventIntervalIndex index = mirror.fresh();
+        List<Event> candidates = timeMin == null && timeMax == null
+                ? index.all()
+                : index.overlapping(timeMin != null ? timeMin : Long.MIN_VALUE, timeMax != null ? timeMax : Long.MAX_VALUE);
+        if (query == null || query.trim().isEmpty()) {
+            return candidates;
+        }
+        List<Event> matches = new ArrayList<>();
+        for (Event event : candidates) {
+            if (matches(event, query)) {
+                matches.add(event);
+            }
+        }
+        return matches;
+    }
+
+    // Whether the summary, description or location contains the query, ignoring case
+    static boolean matches(Event event, String query) {
+        String needle = query.trim().toLowerCase(Locale.ROOT);
+        return contains(event.getSummary(), needle) || contains(event.getDescription(), needle)
+                || contains(event.getLocation(), needle);
+    }
+
+    // The whole current copy of a calendar as an index, synced first if it is stale
+    public EventIntervalIndex index(String calendarId) throws IOException {
+        return mirrors().computeIfAbsent(calendarId, CalendarMirror::new).fresh();
+    }
+
+    // The current copy without syncing, or null if the calendar has not been mirrored yet
+    public EventIntervalIndex cachedIndex(String calendarId) {
+        CalendarMirror mirror = mirrors().get(calendarId);
+        return mirror != null ? mirror.current() : null;
+    }
+
+    // Write-through for events created by this server
+    public void put(String calendarId, Event event) {
+        CalendarMirror mirror = mirrors().get(calendarId);
+        if (mirror != null) {
+            mirror.apply(List.of(event));
+        }
+    }
+
+    // Write-through for deletes; deleting a recurring event also drops its expanded instances
+    public void remove(String calendarId, String eventId) {
+        CalendarMirror mirror = mirrors().get(calendarId);
+        if (mirror != null) {
+            mirror.remove(eventId);
+        }
+    }
+
+    public void invalidate(String calendarId) {
+        mirrors().remove(calendarId);
+    }
+
+    void onTenantEvicted(@Observes TenantEvicted event) {
+        tenants.remove(event.tenant());
+    }
+
+    // The next read fetches the changes since the sync token instead of waiting for the interval
+    void onCalendarChanged(@Observes CalendarChanged event) {
+        Map<String, CalendarMirror> mirrors = tenants.get(event.tenant());
+        CalendarMirror mirror = mirrors != null && event.calendarId() != null ? mirrors.get(event.calendarId()) : null;
+        if (mirror != null) {
+            mirror.stale = true;
+        }
+    }
+
+    private Map<String, CalendarMirror> mirrors() {
+        return tenants.computeIfAbsent(TenantContext.current(), t -> new ConcurrentHashMap<>());
+    }
+
+    private static boolean contains(String text, String needle) {
+        return text != null && text.toLowerCase(Locale.ROOT).contains(needle);
+    }
+
+    private final class CalendarMirror {
+        private final String calendarId;
+        private Map<String, Event> events = new HashMap<>();
+        private ZoneId zone = ZoneOffset.UTC;
+        private String syncToken;
+        private long lastSync;
+        private EventIntervalIndex index;
+        private volatile boolean stale;
+
+        CalendarMirror(String calendarId) {
+            this.calendarId = calendarId;
+        }
+
+        synchronized EventIntervalIndex fresh() throws IOException {
+            boolean watched = watchChannels.watchEvents(calendarId);
+            long interval = watchChannels.refreshInterval(watched, syncInterval).toNanos();
+            if (syncToken == null || stale || System.nanoTime() - lastSync >= interval) {
+                stale = false;
+                sync();
+            }
+            return current();
+        }
+
+        synchronized EventIntervalIndex current() {
+            if (syncToken == null) {
+                return null;
+            }
+            if (index == null) {
+                index = new EventIntervalIndex(new ArrayList<>(events.values()), zone);
+            }
+            return index;
+        }
+
+        synchronized void apply(List<Event> changes) {
+            apply(events, changes);
+            if (!changes.isEmpty()) {
+                index = null;
+            }
+        }
+
+        private void apply(Map<String, Event> target, List<Event> changes) {
+            for (Event event : changes) {
+                if ("cancelled".equals(event.getStatus())) {
+                    target.remove(event.getId());
+                } else {
+                    target.put(event.getId(), event);
+                }
+            }
+        }
+
+        synchronized void remove(String eventId) {
+            events.remove(eventId);
+            events.values().removeIf(event -> eventId.equals(event.getRecurringEventId()));
+            index = null;
+        }
+
+        private void sync() throws IOException {
+            boolean full = syncToken == null;
+            index = null;
+            try {
+                syncToken = full ? fullSync() : fetch(syncToken, events);
+            } catch (GoogleJsonResponseException e) {
+                if (e.getStatusCode() != 410) {
+                    throw e;
+                }
+                // Sync token expired, start over
+                LOG.debugf("Sync token for calendar %s expired, doing a full sync", calendarId);
+                full = true;
+                syncToken = null;
+                syncToken = fullSync();
+            }
+            lastSync = System.nanoTime();
+            LOG.debugf("%s sync of calendar %s done, %d events mirrored", full ? "Full" : "Incremental", calendarId, events.size());
+        }
+
+        // Fetched into a new map that replaces the copy only once every page has arrived, so a
+        // sync that fails halfway leaves the previous copy and no sync token behind
+        private String fullSync() throws IOException {
+            Map<String, Event> fetched = new HashMap<>();
+            String token = fetch(null, fetched);
+            events = fetched;
+            return token;
+        }
+
+        // Incremental pages go straight into the copy; one that fails keeps the old sync token,
+        // and applying the same changes again on the retry is harmless
+        private String fetch(String token, Map<String, Event> target) throws IOException {
+            Calendar.Events.List request = calendarService.events().list(calendarId)
+                    .setSingleEvents(true)
+                    .setMaxResults(2500)
+                    .setFields(SYNC_FIELDS)
+                    .setSyncToken(token);
+            String pageToken = null;
+            Events page;
+            do {
+                page = request.setPageToken(pageToken).execute();
+                apply(target, page.getItems() != null ? page.getItems() : List.of());
+                pageToken = page.getNextPageToken();
+            } while (pageToken != null);
+            zone = EventIntervalIndex.zone(page.getTimeZone());
+            return page.getNextSyncToken();
+        }
+    }
+}
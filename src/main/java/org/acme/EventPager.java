@@ -0,0 +1,149 @@
+package org.acme;
+
+import com.google.api.services.calendar.Calendar;
+import com.google.api.services.calendar.model.Event;
+import com.google.api.services.calendar.model.Events;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+
+// Walks every page of an events().list() request, fetching pages only as they are consumed.
+// With a prefetch executor the next page is requested while the current one is being read, and
+// with a ReadCoalescer identical page reads running at the same time are made only once.
+//
+// A cursor is "<offset>:<pageToken>" and points at the next unread event, so a caller can stop
+// anywhere and resume later with the same request parameters.
+public class EventPager implements EventStream {
+    public static final String DEFAULT_FIELDS = "nextPageToken,items(id,summary,start,end)";
+
+    private final Calendar.Events.List request;
+    private final Executor prefetchExecutor;
+    private final ReadCoalescer reads;
+
+    private List<Event> page;
+    private int position;
+    private String pageToken;
+    private String nextPageToken;
+    private String timeZone;
+    private CompletableFuture<Events> prefetched;
+    private int pagesFetched;
+
+    public EventPager(Calendar.Events.List request, int pageSize, String fields, String cursor, Executor prefetchExecutor,
+                      ReadCoalescer reads) {
+        this.request = request.setMaxResults(pageSize).setFields(fields);
+        this.prefetchExecutor = prefetchExecutor;
+        this.reads = reads;
+        if (cursor != null && !cursor.isEmpty()) {
+            int separator = cursor.indexOf(':');
+            if (separator < 0) {
+                throw new IllegalArgumentException("cursor is not a value returned by a previous call.");
+            }
+            try {
+                this.position = Integer.parseInt(cursor.substring(0, separator));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("cursor is not a value returned by a previous call.");
+            }
+            if (position < 0) {
+                throw new IllegalArgumentException("cursor is not a value returned by a previous call.");
+            }
+            this.nextPageToken = cursor.substring(separator + 1);
+        }
+    }
+
+    @Override
+    public boolean hasNext() throws IOException {
+        while (page == null || position >= page.size()) {
+            if (page != null && nextPageToken == null) {
+                return false;
+            }
+            int skip = page == null ? position : 0;
+            load(nextPageToken != null && !nextPageToken.isEmpty() ? nextPageToken : null);
+            position = skip;
+        }
+        return true;
+    }
+
+    @Override
+    public Event next() throws IOException {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        return page.get(position++);
+    }
+
+    // Never fetches: past the end of the current page the cursor is the start of the next one
+    @Override
+    public String cursor() {
+        if (page == null) {
+            return position + ":" + (nextPageToken != null ? nextPageToken : "");
+        }
+        if (position < page.size()) {
+            return position + ":" + (pageToken != null ? pageToken : "");
+        }
+        return nextPageToken != null ? "0:" + nextPageToken : null;
+    }
+
+    @Override
+    public void close() {
+        if (prefetched != null) {
+            // A prefetch still queued on the executor is skipped; one already running is discarded
+            prefetched.cancel(false);
+            prefetched = null;
+        }
+    }
+
+    // The calendar's zone as sent with the last page, when the fields ask for timeZone
+    public String getTimeZone() {
+        return timeZone;
+    }
+
+    public int getPagesFetched() {
+        return pagesFetched;
+    }
+
+    private void load(String token) throws IOException {
+        Events events;
+        if (prefetched != null) {
+            events = join(prefetched);
+            prefetched = null;
+        } else {
+            events = fetch(token);
+        }
+        pageToken = token;
+        page = events.getItems() != null ? events.getItems() : List.of();
+        nextPageToken = events.getNextPageToken();
+        timeZone = events.getTimeZone();
+        if (prefetchExecutor != null && nextPageToken != null) {
+            String following = nextPageToken;
+            prefetched = CompletableFuture.supplyAsync(() -> {
+                try {
+                    return fetch(following);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }, prefetchExecutor);
+        }
+    }
+
+    private Events fetch(String token) throws IOException {
+        pagesFetched++;
+        request.setPageToken(token);
+        return reads != null ? reads.events(request) : request.execute();
+    }
+
+    private static Events join(CompletableFuture<Events> future) throws IOException {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof UncheckedIOException io) {
+                throw io.getCause();
+            }
+            throw e;
+        }
+    }
+}
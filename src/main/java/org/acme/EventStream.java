@@ -0,0 +1,107 @@
+package org.acme;
+
+import com.google.api.services.calendar.model.Event;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.function.Predicate;
+
+// Events read one at a time, either paged from the API or served from memory.
+public interface EventStream {
+
+    boolean hasNext() throws IOException;
+
+    Event next() throws IOException;
+
+    // Position of the next unread event, or null once the stream is exhausted
+    String cursor() throws IOException;
+
+    // Called when the caller stops reading, so read-ahead can be dropped
+    default void close() {
+    }
+
+    // In-memory results; the cursor is "<offset>:", the offset into the list with no page token
+    static EventStream of(List<Event> events, String cursor) {
+        int start = 0;
+        if (cursor != null && !cursor.isEmpty()) {
+            int separator = cursor.indexOf(':');
+            if (separator < 0 || separator != cursor.length() - 1) {
+                throw new IllegalArgumentException("cursor is not a value returned by a previous call.");
+            }
+            try {
+                start = Integer.parseInt(cursor.substring(0, separator));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("cursor is not a value returned by a previous call.");
+            }
+            if (start < 0) {
+                throw new IllegalArgumentException("cursor is not a value returned by a previous call.");
+            }
+        }
+        int first = start;
+        return new EventStream() {
+            private int position = first;
+
+            @Override
+            public boolean hasNext() {
+                return position < events.size();
+            }
+
+            @Override
+            public Event next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return events.get(position++);
+            }
+
+            @Override
+            public String cursor() {
+                return hasNext() ? position + ":" : null;
+            }
+        };
+    }
+
+    // Only the events matching the filter, read lazily from the source. The cursor points into the
+    // source: at the next match if one has been read ahead, otherwise at the next unread event, so
+    // stopping at a limit never scans further for a match that may not exist.
+    static EventStream filter(EventStream source, Predicate<Event> filter) {
+        return new EventStream() {
+            private Event next;
+            private String nextCursor;
+
+            @Override
+            public boolean hasNext() throws IOException {
+                while (next == null && source.hasNext()) {
+                    String position = source.cursor();
+                    Event event = source.next();
+                    if (filter.test(event)) {
+                        next = event;
+                        nextCursor = position;
+                    }
+                }
+                return next != null;
+            }
+
+            @Override
+            public Event next() throws IOException {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                Event event = next;
+                next = null;
+                return event;
+            }
+
+            @Override
+            public String cursor() throws IOException {
+                return next != null ? nextCursor : source.cursor();
+            }
+
+            @Override
+            public void close() {
+                source.close();
+            }
+        };
+    }
+}
@@ -1,17 +1,19 @@
 package org.acme;
 
 import com.google.api.client.auth.oauth2.Credential;
-import com.google.api.client.googleapis.javanet.GoogleNetHttpTransport;
 import com.google.api.client.extensions.java6.auth.oauth2.AuthorizationCodeInstalledApp;
 import com.google.api.client.extensions.jetty.auth.oauth2.LocalServerReceiver;
 import com.google.api.client.googleapis.auth.oauth2.GoogleAuthorizationCodeFlow;
 import com.google.api.client.googleapis.auth.oauth2.GoogleClientSecrets;
+import com.google.api.client.http.HttpTransport;
 import com.google.api.client.json.JsonFactory;
-import com.google.api.client.json.gson.GsonFactory;
-import com.google.api.client.json.jackson2.JacksonFactory;
-import com.google.api.client.util.store.FileDataStoreFactory;
+import com.google.api.client.util.store.DataStoreFactory;
 import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
 import java.awt.Desktop;
+import java.io.IOException;
 import java.io.InputStreamReader;
 import java.net.URI;
 import java.util.Collections;
@@ -20,19 +22,32 @@ import java.util.Objects;
 
 @ApplicationScoped
 public class GoogleAuthService {
-    private static final JsonFactory JSON_FACTORY = JacksonFactory.getDefaultInstance();
     private static final List<String> SCOPES = Collections.singletonList("https://www.googleapis.com/auth/calendar");
 
+    @Inject
+    HttpTransport httpTransport;
+
+    @Inject
+    JsonFactory jsonFactory;
+
+    @Inject
+    DataStoreFactory dataStoreFactory;
+
+    // Without a browser or a person at the console, only stored tokens can be used
+    @ConfigProperty(name = "calendar.auth.interactive", defaultValue = "true")
+    boolean interactive;
+
+    private GoogleAuthorizationCodeFlow codeFlow;
+
     public Credential authorize() throws Exception {
-        GoogleClientSecrets clientSecrets = GoogleClientSecrets.load(
-                JSON_FACTORY,
-                new InputStreamReader(Objects.requireNonNull(getClass().getResourceAsStream("/credentials.json")))
-        );
-        GoogleAuthorizationCodeFlow flow = new GoogleAuthorizationCodeFlow.Builder(
-                GoogleNetHttpTransport.newTrustedTransport(), JSON_FACTORY, clientSecrets, SCOPES)
-                .setDataStoreFactory(new FileDataStoreFactory(new java.io.File("tokens")))
-                .setAccessType("offline")
-                .build();
+        GoogleAuthorizationCodeFlow flow = flow();
+        if (!interactive) {
+            Credential stored = flow.loadCredential(TenantContext.DEFAULT);
+            if (stored == null) {
+                throw new IllegalStateException("No stored Google credentials and interactive authorization is disabled");
+            }
+            return stored;
+        }
         LocalServerReceiver receiver = new LocalServerReceiver.Builder().setPort(8888).build();
         AuthorizationCodeInstalledApp app = new AuthorizationCodeInstalledApp(flow, receiver, authEndpoint -> {
             if (Desktop.isDesktopSupported()) {
@@ -47,6 +62,31 @@ public class GoogleAuthService {
             System.out.println("Please visit: " + authEndpoint);
             org.jboss.logging.Logger.getLogger(GoogleAuthService.class).info("Auth endpoint URL: " + authEndpoint);
         });
-        return app.authorize("user");
+        return app.authorize(TenantContext.DEFAULT);
+    }
+
+    // Stored credential of another tenant; those are never authorized interactively
+    public Credential load(String userId) throws IOException {
+        Credential stored = flow().loadCredential(userId);
+        if (stored == null) {
+            throw new IOException("No stored Google credentials for " + userId);
+        }
+        return stored;
+    }
+
+    // One flow for every tenant: it only holds the client secrets and the token store
+    private synchronized GoogleAuthorizationCodeFlow flow() throws IOException {
+        if (codeFlow == null) {
+            GoogleClientSecrets clientSecrets = GoogleClientSecrets.load(
+                    jsonFactory,
+                    new InputStreamReader(Objects.requireNonNull(getClass().getResourceAsStream("/credentials.json")))
+            );
+            codeFlow = new GoogleAuthorizationCodeFlow.Builder(
+                    httpTransport, jsonFactory, clientSecrets, SCOPES)
+                    .setDataStoreFactory(dataStoreFactory)
+                    .setAccessType("offline")
+                    .build();
+        }
+        return codeFlow;
     }
-}
\ No newline at end of file
+}
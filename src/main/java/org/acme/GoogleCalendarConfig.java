@@ -1,26 +1,71 @@
 package org.acme;
 
+import com.google.api.client.http.HttpRequestInitializer;
+import com.google.api.client.http.HttpTransport;
+import com.google.api.client.json.JsonFactory;
+import com.google.api.client.util.store.DataStoreFactory;
+import com.google.api.client.util.store.FileDataStoreFactory;
 import com.google.api.services.calendar.Calendar;
-import io.quarkus.arc.Unremovable;
+import io.quarkus.arc.DefaultBean;
 import jakarta.enterprise.inject.Produces;
 import jakarta.inject.Inject;
 import jakarta.inject.Singleton;
-import com.google.api.client.googleapis.javanet.GoogleNetHttpTransport;
-import com.google.api.client.json.gson.GsonFactory;
+import org.acme.simulator.CalendarSimulator;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.io.File;
+import java.io.IOException;
+import java.time.Duration;
 
 public class GoogleCalendarConfig {
 
     @Inject
-    GoogleAuthService authService;
+    TenantRegistry tenantRegistry;
+
+    @Inject
+    CalendarRateLimiter rateLimiter;
+
+    @Inject
+    ApiTelemetry telemetry;
+
+    @Inject
+    HttpTransport httpTransport;
+
+    @Inject
+    JsonFactory jsonFactory;
+
+    @Inject
+    CalendarSimulator simulator;
+
+    @ConfigProperty(name = "calendar.http.read-timeout", defaultValue = "30s")
+    Duration readTimeout;
+
+    @ConfigProperty(name = "calendar.auth.token-dir", defaultValue = "tokens")
+    String tokenDir;
+
+    @Produces
+    @Singleton
+    public Calendar calendarService() {
+        // Does not wait for the credential, requests do; each uses the credential of its tenant
+        HttpRequestInitializer credential = tenantRegistry.initializer();
+        HttpRequestInitializer initializer = request -> {
+            credential.initialize(request);
+            request.setReadTimeout((int) readTimeout.toMillis());
+        };
+        Calendar.Builder builder = new Calendar.Builder(httpTransport, jsonFactory, telemetry.wrap(rateLimiter.wrap(initializer)))
+                .setApplicationName("Google Calendar MCP Server");
+        if (simulator.isEnabled()) {
+            // Load tests: every call, batches included, goes to the in-process simulator
+            builder.setRootUrl(simulator.rootUrl());
+        }
+        return builder.build();
+    }
 
+    // Where OAuth tokens are stored; replace by declaring another DataStoreFactory bean
     @Produces
     @Singleton
-    public Calendar calendarService() throws Exception {
-        return new Calendar.Builder(
-                GoogleNetHttpTransport.newTrustedTransport(),
-                GsonFactory.getDefaultInstance(),
-                authService.authorize())
-                .setApplicationName("Google Calendar MCP Server")
-                .build();
+    @DefaultBean
+    public DataStoreFactory dataStoreFactory() throws IOException {
+        return new FileDataStoreFactory(new File(tokenDir));
     }
 }
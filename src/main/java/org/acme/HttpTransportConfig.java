@@ -0,0 +1,38 @@
+package org.acme;
+
+import com.google.api.client.http.HttpTransport;
+import com.google.api.client.json.JsonFactory;
+import com.google.api.client.json.gson.GsonFactory;
+import jakarta.enterprise.inject.Produces;
+import jakarta.inject.Singleton;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.net.http.HttpClient;
+import java.time.Duration;
+
+// The HTTP transport and JSON factory shared by the OAuth flow and the Calendar client
+public class HttpTransportConfig {
+
+    @ConfigProperty(name = "calendar.http.version", defaultValue = "HTTP_2")
+    HttpClient.Version version;
+
+    @ConfigProperty(name = "calendar.http.connect-timeout", defaultValue = "10s")
+    Duration connectTimeout;
+
+    @Produces
+    @Singleton
+    public HttpTransport httpTransport() {
+        // The JDK client takes its pool settings only from the command line, see application.properties
+        return new JdkHttpTransport(HttpClient.newBuilder()
+                .version(version)
+                .connectTimeout(connectTimeout)
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .build());
+    }
+
+    @Produces
+    @Singleton
+    public JsonFactory jsonFactory() {
+        return GsonFactory.getDefaultInstance();
+    }
+}
@@ -0,0 +1,173 @@
+package org.acme;
+
+import com.google.api.client.http.HttpTransport;
+import com.google.api.client.http.LowLevelHttpRequest;
+import com.google.api.client.http.LowLevelHttpResponse;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+// HttpTransport on top of the JDK HttpClient. One client is shared by every request, so TLS
+// connections are kept alive and reused, and HTTP/2 is negotiated when the server offers it,
+// multiplexing concurrent calls over a single connection.
+public class JdkHttpTransport extends HttpTransport {
+    // Headers the JDK client sets itself and refuses to take from the caller
+    private static final Set<String> RESTRICTED_HEADERS = Set.of("connection", "content-length", "expect", "host", "upgrade");
+
+    private final HttpClient client;
+
+    public JdkHttpTransport(HttpClient client) {
+        this.client = client;
+    }
+
+    public HttpClient getClient() {
+        return client;
+    }
+
+    @Override
+    public boolean supportsMethod(String method) {
+        return true;
+    }
+
+    @Override
+    protected LowLevelHttpRequest buildRequest(String method, String url) {
+        return new JdkRequest(method, url);
+    }
+
+    private final class JdkRequest extends LowLevelHttpRequest {
+        private final HttpRequest.Builder builder;
+        private final String method;
+
+        JdkRequest(String method, String url) {
+            this.method = method;
+            this.builder = HttpRequest.newBuilder(URI.create(url));
+        }
+
+        @Override
+        public void addHeader(String name, String value) {
+            if (!RESTRICTED_HEADERS.contains(name.toLowerCase(Locale.ROOT))) {
+                builder.header(name, value);
+            }
+        }
+
+        @Override
+        public void setTimeout(int connectTimeout, int readTimeout) {
+            // The connect timeout belongs to the shared client; 0 means no read timeout
+            if (readTimeout > 0) {
+                builder.timeout(Duration.ofMillis(readTimeout));
+            }
+        }
+
+        @Override
+        public LowLevelHttpResponse execute() throws IOException {
+            HttpRequest.BodyPublisher body = HttpRequest.BodyPublishers.noBody();
+            if (getStreamingContent() != null) {
+                ByteArrayOutputStream out = new ByteArrayOutputStream(
+                        getContentLength() > 0 ? (int) Math.min(getContentLength(), Integer.MAX_VALUE) : 256);
+                getStreamingContent().writeTo(out);
+                body = HttpRequest.BodyPublishers.ofByteArray(out.toByteArray());
+                if (getContentType() != null) {
+                    builder.setHeader("Content-Type", getContentType());
+                }
+                if (getContentEncoding() != null) {
+                    builder.setHeader("Content-Encoding", getContentEncoding());
+                }
+            }
+            try {
+                return new JdkResponse(client.send(builder.method(method, body).build(), HttpResponse.BodyHandlers.ofInputStream()));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted during " + method + " request");
+            }
+        }
+    }
+
+    private static final class JdkResponse extends LowLevelHttpResponse {
+        private final HttpResponse<InputStream> response;
+        private final List<String> names = new ArrayList<>();
+        private final List<String> values = new ArrayList<>();
+
+        JdkResponse(HttpResponse<InputStream> response) {
+            this.response = response;
+            for (Map.Entry<String, List<String>> header : response.headers().map().entrySet()) {
+                // HTTP/2 pseudo-headers such as :status are not real headers
+                if (header.getKey().startsWith(":")) {
+                    continue;
+                }
+                for (String value : header.getValue()) {
+                    names.add(header.getKey());
+                    values.add(value);
+                }
+            }
+        }
+
+        @Override
+        public InputStream getContent() {
+            return response.body();
+        }
+
+        @Override
+        public String getContentEncoding() {
+            return response.headers().firstValue("Content-Encoding").orElse(null);
+        }
+
+        @Override
+        public long getContentLength() {
+            return response.headers().firstValueAsLong("Content-Length").orElse(-1);
+        }
+
+        @Override
+        public String getContentType() {
+            return response.headers().firstValue("Content-Type").orElse(null);
+        }
+
+        @Override
+        public String getStatusLine() {
+            return (response.version() == HttpClient.Version.HTTP_2 ? "HTTP/2 " : "HTTP/1.1 ") + response.statusCode();
+        }
+
+        @Override
+        public int getStatusCode() {
+            return response.statusCode();
+        }
+
+        @Override
+        public String getReasonPhrase() {
+            // Not available from the JDK client (and absent in HTTP/2)
+            return null;
+        }
+
+        @Override
+        public int getHeaderCount() {
+            return names.size();
+        }
+
+        @Override
+        public String getHeaderName(int index) {
+            return names.get(index);
+        }
+
+        @Override
+        public String getHeaderValue(int index) {
+            return values.get(index);
+        }
+
+        @Override
+        public void disconnect() throws IOException {
+            // Closing the body hands the connection back to the pool
+            response.body().close();
+        }
+    }
+}
@@ -0,0 +1,237 @@
+package org.acme;
+
+import com.google.api.client.json.JsonFactory;
+import org.acme.tools.extra.JournalRecord;
+import org.jboss.logging.Logger;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+// Append-only file of JSON lines. Appends only queue their records; one committer thread writes
+// whatever has queued up and forces it to disk once (group commit), so concurrent writers share
+// an fsync. A rewrite replaces the file with a smaller one and is ordered with the appends.
+public class MutationJournal implements AutoCloseable {
+    private static final Logger LOG = Logger.getLogger(MutationJournal.class);
+
+    private final Path path;
+    private final JsonFactory jsonFactory;
+    private final long commitDelayNanos;
+    private final BlockingQueue<Write> queue = new LinkedBlockingQueue<>();
+    private final Thread committer;
+    private FileChannel channel;
+    private volatile long bytes;
+    private volatile boolean closed;
+    private long commits;
+
+    // Waits up to commitDelay after the first queued record for others to join its commit
+    public MutationJournal(Path path, JsonFactory jsonFactory, long commitDelayNanos) throws IOException {
+        this.path = path;
+        this.jsonFactory = jsonFactory;
+        this.commitDelayNanos = commitDelayNanos;
+        if (path.getParent() != null) {
+            Files.createDirectories(path.getParent());
+        }
+        this.channel = open(path);
+        this.bytes = channel.size();
+        this.committer = new Thread(this::commitLoop, "mutation-journal");
+        this.committer.setDaemon(true);
+        this.committer.start();
+    }
+
+    // Every complete record in the file. Only newline-terminated lines count, so a torn last line
+    // left by a crash is dropped rather than parsed leniently into a partial record.
+    public static List<JournalRecord> read(Path path, JsonFactory jsonFactory) throws IOException {
+        List<JournalRecord> records = new ArrayList<>();
+        if (!Files.exists(path)) {
+            return records;
+        }
+        String content = Files.readString(path, StandardCharsets.UTF_8);
+        int end = content.lastIndexOf('\n') + 1;
+        if (end < content.length()) {
+            LOG.warnf("Dropping an incomplete last record in %s", path);
+        }
+        for (String line : content.substring(0, end).split("\n")) {
+            if (line.isBlank()) {
+                continue;
+            }
+            try {
+                records.add(jsonFactory.fromString(line, JournalRecord.class));
+            } catch (IOException | IllegalArgumentException e) {
+                LOG.warnf("Skipping unreadable journal record in %s: %s", path, e.getMessage());
+            }
+        }
+        return records;
+    }
+
+    // Completes once the records are on disk
+    public CompletableFuture<Void> append(List<JournalRecord> records) {
+        return enqueue(new Write(records, false));
+    }
+
+    // Replaces the whole file with the records, after every append queued before it
+    public CompletableFuture<Void> rewrite(List<JournalRecord> records) {
+        return enqueue(new Write(records, true));
+    }
+
+    public long getBytes() {
+        return bytes;
+    }
+
+    public synchronized long getCommitCount() {
+        return commits;
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        // Wake the committer rather than interrupt it; an interrupt closes the channel mid-write
+        queue.add(new Write(List.of(), false));
+        try {
+            committer.join(TimeUnit.SECONDS.toMillis(5));
+            channel.close();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            LOG.warnf("Could not close journal %s: %s", path, e.getMessage());
+        }
+    }
+
+    private CompletableFuture<Void> enqueue(Write write) {
+        if (closed) {
+            return CompletableFuture.failedFuture(new IOException("The mutation journal is closed"));
+        }
+        queue.add(write);
+        return write.done;
+    }
+
+    private void commitLoop() {
+        List<Write> group = new ArrayList<>();
+        while (!closed || !queue.isEmpty()) {
+            try {
+                Write first = queue.poll(1, TimeUnit.SECONDS);
+                if (first == null) {
+                    continue;
+                }
+                group.add(first);
+                long deadline = System.nanoTime() + commitDelayNanos;
+                for (long wait = commitDelayNanos; wait > 0; wait = deadline - System.nanoTime()) {
+                    Write next = queue.poll(wait, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    group.add(next);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            queue.drainTo(group);
+            if (!group.isEmpty()) {
+                commit(group);
+                group.clear();
+            }
+        }
+    }
+
+    private void commit(List<Write> group) {
+        ByteArrayOutputStream pending = new ByteArrayOutputStream();
+        try {
+            for (Write write : group) {
+                if (write.rewrite) {
+                    flush(pending);
+                    replace(write.records);
+                } else {
+                    for (JournalRecord record : write.records) {
+                        pending.write(jsonFactory.toString(record).getBytes(StandardCharsets.UTF_8));
+                        pending.write('\n');
+                    }
+                }
+            }
+            flush(pending);
+            channel.force(false);
+            synchronized (this) {
+                commits++;
+            }
+            group.forEach(write -> write.done.complete(null));
+        } catch (IOException e) {
+            LOG.errorf("Could not write journal %s: %s", path, e.getMessage());
+            IOException failure = new IOException("Could not write the mutation journal: " + e.getMessage(), e);
+            group.forEach(write -> write.done.completeExceptionally(failure));
+        }
+    }
+
+    private void flush(ByteArrayOutputStream pending) throws IOException {
+        if (pending.size() == 0) {
+            return;
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(pending.toByteArray());
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        bytes = channel.size();
+        pending.reset();
+    }
+
+    private void replace(List<JournalRecord> records) throws IOException {
+        Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+        try (FileChannel out = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteArrayOutputStream content = new ByteArrayOutputStream();
+            for (JournalRecord record : records) {
+                content.write(jsonFactory.toString(record).getBytes(StandardCharsets.UTF_8));
+                content.write('\n');
+            }
+            ByteBuffer buffer = ByteBuffer.wrap(content.toByteArray());
+            while (buffer.hasRemaining()) {
+                out.write(buffer);
+            }
+            out.force(true);
+        }
+        channel.close();
+        try {
+            Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            channel = open(path);
+            bytes = channel.size();
+        }
+        // The rename is only durable once the directory entry is on disk
+        syncDirectory(path.toAbsolutePath().getParent());
+    }
+
+    private static void syncDirectory(Path directory) {
+        try (FileChannel dir = FileChannel.open(directory, StandardOpenOption.READ)) {
+            dir.force(true);
+        } catch (IOException e) {
+            // Some platforms cannot open or force a directory
+            LOG.debugf("Could not sync directory %s: %s", directory, e.getMessage());
+        }
+    }
+
+    private static FileChannel open(Path path) throws IOException {
+        return FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+
+    private static final class Write {
+        final List<JournalRecord> records;
+        final boolean rewrite;
+        final CompletableFuture<Void> done = new CompletableFuture<>();
+
+        Write(List<JournalRecord> records, boolean rewrite) {
+            this.records = records;
+            this.rewrite = rewrite;
+        }
+    }
+}
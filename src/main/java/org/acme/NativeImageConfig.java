@@ -0,0 +1,57 @@
+package org.acme;
+
+import com.google.api.client.auth.oauth2.StoredCredential;
+import com.google.api.client.auth.oauth2.TokenErrorResponse;
+import com.google.api.client.auth.oauth2.TokenResponse;
+import com.google.api.client.googleapis.auth.oauth2.GoogleClientSecrets;
+import com.google.api.client.googleapis.auth.oauth2.GoogleTokenResponse;
+import com.google.api.client.googleapis.json.GoogleJsonError;
+import com.google.api.client.googleapis.json.GoogleJsonErrorContainer;
+import com.google.api.services.calendar.model.CalendarList;
+import com.google.api.services.calendar.model.CalendarListEntry;
+import com.google.api.services.calendar.model.Channel;
+import com.google.api.services.calendar.model.Error;
+import com.google.api.services.calendar.model.Event;
+import com.google.api.services.calendar.model.EventAttendee;
+import com.google.api.services.calendar.model.EventDateTime;
+import com.google.api.services.calendar.model.EventReminder;
+import com.google.api.services.calendar.model.Events;
+import com.google.api.services.calendar.model.FreeBusyCalendar;
+import com.google.api.services.calendar.model.FreeBusyRequest;
+import com.google.api.services.calendar.model.FreeBusyRequestItem;
+import com.google.api.services.calendar.model.FreeBusyResponse;
+import com.google.api.services.calendar.model.TimePeriod;
+import io.quarkus.runtime.annotations.RegisterForReflection;
+
+// Native image: the Google client maps JSON onto these classes through their @Key fields, which
+// the image only keeps if they are registered. Nested classes (Event.Creator, GoogleJsonError.ErrorInfo,
+// GoogleClientSecrets.Details, ...) are included.
+@RegisterForReflection(targets = {
+        Event.class,
+        Events.class,
+        EventDateTime.class,
+        EventAttendee.class,
+        EventReminder.class,
+        CalendarList.class,
+        CalendarListEntry.class,
+        Channel.class,
+        FreeBusyRequest.class,
+        FreeBusyRequestItem.class,
+        FreeBusyResponse.class,
+        FreeBusyCalendar.class,
+        TimePeriod.class,
+        Error.class,
+        GoogleJsonError.class,
+        GoogleJsonErrorContainer.class,
+        GoogleClientSecrets.class,
+        TokenResponse.class,
+        GoogleTokenResponse.class,
+        TokenErrorResponse.class
+}, registerFullHierarchy = true)
+public class NativeImageConfig {
+
+    // FileDataStoreFactory keeps tokens with Java serialization
+    @RegisterForReflection(targets = StoredCredential.class, serialization = true)
+    static class TokenStore {
+    }
+}
@@ -0,0 +1,59 @@
+package org.acme;
+
+import com.google.api.services.calendar.Calendar;
+import com.google.api.services.calendar.model.Events;
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.io.IOException;
+import java.time.Duration;
+
+// Shares identical events().list() page reads between concurrent callers. Requests are keyed on
+// the tenant and the full request URL (calendar, query, time bounds, fields, page size and page
+// token), and a result is reused for calendar.coalesce.window after it arrives. Writes made
+// through this server, and push notifications about changes made elsewhere, drop the kept pages
+// of the calendar they touched.
+@ApplicationScoped
+public class ReadCoalescer {
+
+    @Inject
+    ResponseCache responseCache;
+
+    @ConfigProperty(name = "calendar.coalesce.window", defaultValue = "1s")
+    Duration window;
+
+    private SingleFlight<String, Events> events;
+
+    @PostConstruct
+    void init() {
+        events = new SingleFlight<>(window.toNanos());
+    }
+
+    public Events events(Calendar.Events.List request) throws IOException {
+        String key = prefix(TenantContext.current(), request.getCalendarId()) + request.buildHttpRequestUrl().build();
+        return events.execute(key, () -> responseCache.execute(request));
+    }
+
+    public void invalidate(String calendarId) {
+        String prefix = prefix(TenantContext.current(), calendarId);
+        events.invalidate(key -> key.startsWith(prefix));
+    }
+
+    void onCalendarChanged(@Observes CalendarChanged event) {
+        if (event.calendarId() != null) {
+            String prefix = prefix(event.tenant(), event.calendarId());
+            events.invalidate(key -> key.startsWith(prefix));
+        }
+    }
+
+    public SingleFlight<String, Events> getEvents() {
+        return events;
+    }
+
+    private static String prefix(String tenant, String calendarId) {
+        return tenant + '\n' + calendarId + '\n';
+    }
+}
@@ -0,0 +1,244 @@
+package org.acme;
+
+import com.google.api.client.googleapis.json.GoogleJsonResponseException;
+import com.google.api.client.util.DateTime;
+import com.google.api.services.calendar.Calendar;
+import com.google.api.services.calendar.model.Event;
+import com.google.api.services.calendar.model.Events;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import org.acme.tools.extra.SeriesInstances;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+
+// Expanded instances of recurring events, fetched with one events().instances() call per series
+// and kept until the TTL expires, the series is changed through this server or a push
+// notification reports a change to its calendar. Looking up or listing instances of a cached
+// series needs no further requests. The cache is weighted by instance count and evicts expired
+// series first, then the least recently used.
+@ApplicationScoped
+public class RecurrenceCache {
+    private static final Logger LOG = Logger.getLogger(RecurrenceCache.class);
+    private static final String INSTANCE_FIELDS = "nextPageToken,items(id,status,summary,originalStartTime,start,end)";
+    private static final long DAY_MILLIS = 86_400_000L;
+
+    @Inject
+    Calendar calendarService;
+
+    @Inject
+    ResponseCache responseCache;
+
+    @ConfigProperty(name = "calendar.recurrence.ttl", defaultValue = "10m")
+    Duration ttl;
+
+    @ConfigProperty(name = "calendar.recurrence.max-instances", defaultValue = "2500")
+    int maxInstances;
+
+    // Instances kept across all series and tenants
+    @ConfigProperty(name = "calendar.recurrence.max-cached-instances", defaultValue = "100000")
+    long maxCachedInstances;
+
+    // "tenant\ncalendarId/seriesId" -> instances, in access order
+    private final LinkedHashMap<String, Series> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long weight;
+
+    // Instances of the series, or null if there is no such event
+    public SeriesInstances instances(String calendarId, String seriesId) throws IOException {
+        String key = key(calendarId, seriesId);
+        Series series;
+        synchronized (entries) {
+            series = entries.computeIfAbsent(key, k -> new Series(k, calendarId, seriesId));
+        }
+        return series.get();
+    }
+
+    // Instances overlapping [timeMin, timeMax); null bounds are open. Ranges past the cached part of
+    // a long series are fetched directly. Null if there is no such event.
+    public List<Event> instances(String calendarId, String seriesId, Long timeMin, Long timeMax) throws IOException {
+        SeriesInstances series = instances(calendarId, seriesId);
+        if (series == null) {
+            return null;
+        }
+        long min = timeMin != null ? timeMin : Long.MIN_VALUE;
+        long max = timeMax != null ? timeMax : Long.MAX_VALUE;
+        if (series.isComplete() || max <= series.horizon()) {
+            return series.overlapping(min, max);
+        }
+        return fetch(calendarId, seriesId, timeMin, timeMax, maxInstances).getInstances();
+    }
+
+    // The instance originally scheduled at instanceDate (see SeriesInstances.find), or null
+    public Event find(String calendarId, String seriesId, String instanceDate) throws IOException {
+        SeriesInstances series = instances(calendarId, seriesId);
+        if (series == null) {
+            return null;
+        }
+        Event match = series.find(instanceDate);
+        if (match != null || series.isComplete()) {
+            return match;
+        }
+        // Past the cached part of the series; a moved instance may start up to a day or so away
+        long wanted = new DateTime(instanceDate).getValue();
+        return fetch(calendarId, seriesId, wanted - 2 * DAY_MILLIS, wanted + 2 * DAY_MILLIS, maxInstances)
+                .find(instanceDate);
+    }
+
+    // Write-through for deleted instances
+    public void removeInstance(String calendarId, String seriesId, String instanceId) {
+        Series series;
+        synchronized (entries) {
+            series = entries.get(key(calendarId, seriesId));
+        }
+        if (series != null) {
+            series.remove(instanceId);
+        }
+    }
+
+    public void invalidate(String calendarId, String seriesId) {
+        String key = key(calendarId, seriesId);
+        removeIf(k -> k.equals(key));
+    }
+
+    public void invalidate(String calendarId) {
+        String prefix = TenantContext.current() + '\n' + calendarId + '/';
+        removeIf(key -> key.startsWith(prefix));
+    }
+
+    public long getCachedInstances() {
+        synchronized (entries) {
+            return weight;
+        }
+    }
+
+    void onTenantEvicted(@Observes TenantEvicted event) {
+        String prefix = event.tenant() + '\n';
+        removeIf(key -> key.startsWith(prefix));
+    }
+
+    void onCalendarChanged(@Observes CalendarChanged event) {
+        if (event.calendarId() != null) {
+            String prefix = event.tenant() + '\n' + event.calendarId() + '/';
+            removeIf(key -> key.startsWith(prefix));
+        }
+    }
+
+    private void removeIf(Predicate<String> matches) {
+        synchronized (entries) {
+            Iterator<Map.Entry<String, Series>> iterator = entries.entrySet().iterator();
+            while (iterator.hasNext()) {
+                Map.Entry<String, Series> entry = iterator.next();
+                if (matches.test(entry.getKey())) {
+                    weight -= entry.getValue().weight;
+                    iterator.remove();
+                }
+            }
+        }
+    }
+
+    // Records the new size of a series that has just loaded, then drops expired series and, while
+    // over the limit, the least recently used ones
+    private void resize(Series series, int instances) {
+        synchronized (entries) {
+            if (entries.get(series.key) != series) {
+                // Invalidated while it was loading
+                return;
+            }
+            weight += instances - series.weight;
+            series.weight = instances;
+            long now = System.nanoTime();
+            Iterator<Series> eldest = entries.values().iterator();
+            while (eldest.hasNext()) {
+                Series candidate = eldest.next();
+                if (candidate != series && (weight > maxCachedInstances || candidate.isExpired(now))) {
+                    weight -= candidate.weight;
+                    eldest.remove();
+                }
+            }
+        }
+    }
+
+    private static String key(String calendarId, String seriesId) {
+        return TenantContext.current() + '\n' + calendarId + '/' + seriesId;
+    }
+
+    private SeriesInstances fetch(String calendarId, String seriesId, Long timeMin, Long timeMax, int limit) throws IOException {
+        Calendar.Events.Instances request = calendarService.events().instances(calendarId, seriesId)
+                .setMaxResults(Math.min(limit, 2500))
+                .setFields(INSTANCE_FIELDS);
+        if (timeMin != null) {
+            request.setTimeMin(new DateTime(timeMin));
+        }
+        if (timeMax != null) {
+            request.setTimeMax(new DateTime(timeMax));
+        }
+        List<Event> instances = new ArrayList<>();
+        String pageToken = null;
+        do {
+            Events page = responseCache.execute(request.setPageToken(pageToken));
+            if (page.getItems() != null) {
+                instances.addAll(page.getItems());
+            }
+            pageToken = page.getNextPageToken();
+        } while (pageToken != null && instances.size() < limit);
+        return new SeriesInstances(instances, pageToken == null);
+    }
+
+    private final class Series {
+        private final String key;
+        private final String calendarId;
+        private final String seriesId;
+        private volatile SeriesInstances instances;
+        // Guarded by entries
+        private int weight;
+
+        Series(String key, String calendarId, String seriesId) {
+            this.key = key;
+            this.calendarId = calendarId;
+            this.seriesId = seriesId;
+        }
+
+        boolean isExpired(long now) {
+            SeriesInstances current = instances;
+            return current != null && now - current.getLoadedAt() >= ttl.toNanos();
+        }
+
+        synchronized SeriesInstances get() throws IOException {
+            if (instances == null || System.nanoTime() - instances.getLoadedAt() >= ttl.toNanos()) {
+                try {
+                    instances = fetch(calendarId, seriesId, null, null, maxInstances);
+                } catch (IOException | RuntimeException e) {
+                    boolean gone = e instanceof GoogleJsonResponseException error
+                            && (error.getStatusCode() == 404 || error.getStatusCode() == 410);
+                    // Keep no entry for a series that is gone or has never loaded
+                    if (gone || instances == null) {
+                        removeIf(key::equals);
+                    }
+                    if (gone) {
+                        return null;
+                    }
+                    throw e;
+                }
+                LOG.debugf("Loaded %d instance(s) of event %s in calendar %s%s", instances.getInstances().size(),
+                        seriesId, calendarId, instances.isComplete() ? "" : " (truncated)");
+                resize(this, instances.getInstances().size());
+            }
+            return instances;
+        }
+
+        synchronized void remove(String instanceId) {
+            if (instances != null) {
+                instances = instances.without(instanceId);
+            }
+        }
+    }
+}
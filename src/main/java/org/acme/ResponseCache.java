@@ -0,0 +1,158 @@
+package org.acme;
+
+import com.google.api.client.http.HttpResponse;
+import com.google.api.client.http.HttpResponseException;
+import com.google.api.services.calendar.CalendarRequest;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Conditional GETs for Calendar reads. The parsed result of every read that came with an ETag is
+// kept, per tenant and URL; the next identical read sends If-None-Match, and a 304 answer is
+// served from the kept object without downloading or parsing the body again. Entries are
+// weighted by body size and evicted least recently used first.
+@ApplicationScoped
+public class ResponseCache {
+
+    @ConfigProperty(name = "calendar.http.cache.max-bytes", defaultValue = "16777216")
+    long maxBytes;
+
+    // Access order, so iteration starts at the least recently used response
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long bytes;
+    private final AtomicLong revalidated = new AtomicLong();
+    private final AtomicLong fetched = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    // Executes a read, conditionally when an earlier response to it is kept. Writes go straight through.
+    @SuppressWarnings("unchecked")
+    public <T> T execute(CalendarRequest<T> request) throws IOException {
+        if (!"GET".equals(request.getRequestMethod())) {
+            return request.execute();
+        }
+        String key = TenantContext.current() + '\n' + request.buildHttpRequestUrl().build();
+        Entry cached = get(key);
+        if (cached != null) {
+            request.getRequestHeaders().setIfNoneMatch(cached.etag);
+        }
+        try {
+            HttpResponse response = request.executeUnparsed();
+            byte[] body;
+            try (InputStream content = response.getContent()) {
+                body = content != null ? content.readAllBytes() : new byte[0];
+            } finally {
+                response.disconnect();
+            }
+            T result = request.getAbstractGoogleClient().getObjectParser().parseAndClose(
+                    new ByteArrayInputStream(body), response.getContentCharset(), request.getResponseClass());
+            fetched.incrementAndGet();
+            String etag = response.getHeaders().getETag();
+            if (etag != null) {
+                put(key, new Entry(etag, result, body.length));
+            } else if (cached != null) {
+                remove(key);
+            }
+            return result;
+        } catch (HttpResponseException e) {
+            if (e.getStatusCode() == 304 && cached != null) {
+                revalidated.incrementAndGet();
+                return (T) cached.value;
+            }
+            throw e;
+        } finally {
+            // Requests are reused page after page
+            request.getRequestHeaders().setIfNoneMatch(null);
+        }
+    }
+
+    void onTenantEvicted(@Observes TenantEvicted event) {
+        String prefix = event.tenant() + '\n';
+        synchronized (entries) {
+            Iterator<Map.Entry<String, Entry>> it = entries.entrySet().iterator();
+            while (it.hasNext()) {
+                Map.Entry<String, Entry> entry = it.next();
+                if (entry.getKey().startsWith(prefix)) {
+                    bytes -= entry.getValue().weight;
+                    it.remove();
+                }
+            }
+        }
+    }
+
+    // Reads answered with 304 from a kept response
+    public long getRevalidatedCount() {
+        return revalidated.get();
+    }
+
+    // Reads that downloaded a full body
+    public long getFetchedCount() {
+        return fetched.get();
+    }
+
+    public long getEvictionCount() {
+        return evictions.get();
+    }
+
+    public long getBytes() {
+        synchronized (entries) {
+            return bytes;
+        }
+    }
+
+    private Entry get(String key) {
+        synchronized (entries) {
+            return entries.get(key);
+        }
+    }
+
+    private void remove(String key) {
+        synchronized (entries) {
+            Entry removed = entries.remove(key);
+            if (removed != null) {
+                bytes -= removed.weight;
+            }
+        }
+    }
+
+    private void put(String key, Entry entry) {
+        synchronized (entries) {
+            Entry previous = entries.remove(key);
+            if (previous != null) {
+                bytes -= previous.weight;
+            }
+            // A single response may take at most a quarter of the cache
+            if (entry.weight > maxBytes / 4) {
+                return;
+            }
+            entries.put(key, entry);
+            bytes += entry.weight;
+            Iterator<Entry> eldest = entries.values().iterator();
+            while (bytes > maxBytes && eldest.hasNext()) {
+                bytes -= eldest.next().weight;
+                eldest.remove();
+                evictions.incrementAndGet();
+            }
+        }
+    }
+
+    private static final class Entry {
+        final String etag;
+        final Object value;
+        final long weight;
+
+        Entry(String etag, Object value, long weight) {
+            this.etag = etag;
+            this.value = value;
+            // Keys and object overhead are small next to the body
+            this.weight = weight + 256;
+        }
+    }
+}
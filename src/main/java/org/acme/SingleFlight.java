@@ -0,0 +1,106 @@
+package org.acme;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+
+// Runs at most one load per key at a time: callers asking for a key that is already being
+// loaded wait for that load and share its result. A completed result is also handed out for a
+// short window afterwards, so a burst of identical reads costs a single request. Failures are
+// shared with the callers already waiting but never kept.
+public class SingleFlight<K, V> {
+    // Past this many keys, expired results are swept whenever a new load starts
+    private static final int SWEEP_THRESHOLD = 1024;
+
+    private final long windowNanos;
+    private final Map<K, Flight<V>> flights = new ConcurrentHashMap<>();
+    private final AtomicLong executed = new AtomicLong();
+    private final AtomicLong joined = new AtomicLong();
+    private final AtomicLong cached = new AtomicLong();
+
+    public SingleFlight(long windowNanos) {
+        this.windowNanos = windowNanos;
+    }
+
+    public V execute(K key, Loader<V> loader) throws IOException {
+        while (true) {
+            Flight<V> flight = flights.get(key);
+            if (flight != null) {
+                if (!flight.future.isDone()) {
+                    joined.incrementAndGet();
+                    return CalendarExecutor.await(flight.future);
+                }
+                if (flight.isFresh(windowNanos)) {
+                    cached.incrementAndGet();
+                    return CalendarExecutor.await(flight.future);
+                }
+                flights.remove(key, flight);
+            }
+            Flight<V> mine = new Flight<>();
+            if (flights.putIfAbsent(key, mine) != null) {
+                continue;
+            }
+            if (flights.size() > SWEEP_THRESHOLD) {
+                flights.values().removeIf(f -> f.future.isDone() && !f.isFresh(windowNanos));
+            }
+            executed.incrementAndGet();
+            V value;
+            try {
+                value = loader.load();
+            } catch (IOException | RuntimeException | Error e) {
+                flights.remove(key, mine);
+                mine.future.completeExceptionally(e);
+                throw e;
+            }
+            mine.completedAt = System.nanoTime();
+            mine.future.complete(value);
+            if (windowNanos <= 0) {
+                flights.remove(key, mine);
+            }
+            return value;
+        }
+    }
+
+    public boolean isInFlight(K key) {
+        Flight<V> flight = flights.get(key);
+        return flight != null && !flight.future.isDone();
+    }
+
+    // Drops kept results; loads in progress are left to finish
+    public void invalidate(Predicate<K> keys) {
+        flights.entrySet().removeIf(entry -> entry.getValue().future.isDone() && keys.test(entry.getKey()));
+    }
+
+    // Calls that started a load
+    public long getExecutedCount() {
+        return executed.get();
+    }
+
+    // Calls that waited for a load another caller had started
+    public long getJoinedCount() {
+        return joined.get();
+    }
+
+    // Calls answered from a result completed within the window
+    public long getCachedCount() {
+        return cached.get();
+    }
+
+    @FunctionalInterface
+    public interface Loader<V> {
+        V load() throws IOException;
+    }
+
+    private static final class Flight<V> {
+        final CompletableFuture<V> future = new CompletableFuture<>();
+        volatile long completedAt;
+
+        boolean isFresh(long windowNanos) {
+            return future.isDone() && !future.isCompletedExceptionally()
+                    && System.nanoTime() - completedAt < windowNanos;
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package org.acme;
+
+import java.util.concurrent.Callable;
+
+// The tenant (Google account) the current thread is acting for. Set around each tool call by
+// TenantInterceptor and carried onto the shared executor by CalendarExecutor.
+public final class TenantContext {
+    public static final String DEFAULT = "user";
+
+    private static final ThreadLocal<String> CURRENT = new ThreadLocal<>();
+
+    private TenantContext() {
+    }
+
+    public static String current() {
+        String tenant = CURRENT.get();
+        return tenant != null ? tenant : DEFAULT;
+    }
+
+    public static <T> T call(String tenant, Callable<T> call) throws Exception {
+        String previous = CURRENT.get();
+        CURRENT.set(tenant);
+        try {
+            return call.call();
+        } finally {
+            if (previous != null) {
+                CURRENT.set(previous);
+            } else {
+                CURRENT.remove();
+            }
+        }
+    }
+}
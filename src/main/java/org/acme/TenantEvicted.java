@@ -0,0 +1,5 @@
+package org.acme;
+
+// Fired when TenantRegistry drops a tenant, so per-tenant caches can release its state
+public record TenantEvicted(String tenant) {
+}
@@ -0,0 +1,30 @@
+package org.acme;
+
+import io.vertx.ext.web.Router;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+// Binds MCP connections to tenants from a request header on the message endpoint
+// (<root>/messages/<connection id>). The header is trusted as is, so it must be set by a
+// gateway that has authenticated the caller, never passed through from the client.
+@ApplicationScoped
+public class TenantFilter {
+
+    @Inject
+    TenantRegistry tenantRegistry;
+
+    @ConfigProperty(name = "calendar.tenants.header", defaultValue = "X-Calendar-User")
+    String header;
+
+    void register(@Observes Router router) {
+        router.routeWithRegex(".*/messages/([^/]+)").order(-1).handler(context -> {
+            String tenant = context.request().getHeader(header);
+            if (tenant != null && !tenant.isBlank()) {
+                tenantRegistry.bindConnection(context.pathParam("param0"), tenant.trim());
+            }
+            context.next();
+        });
+    }
+}
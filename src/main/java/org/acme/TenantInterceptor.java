@@ -0,0 +1,29 @@
+package org.acme;
+
+import io.quarkiverse.mcp.server.McpConnection;
+import jakarta.annotation.Priority;
+import jakarta.inject.Inject;
+import jakarta.interceptor.AroundInvoke;
+import jakarta.interceptor.Interceptor;
+import jakarta.interceptor.InvocationContext;
+
+// Tool methods that take the McpConnection run as the tenant bound to that connection; calls
+// without one (nested tool calls, benchmarks) keep the tenant already in place.
+@TenantAware
+@Interceptor
+@Priority(Interceptor.Priority.APPLICATION - 10)
+public class TenantInterceptor {
+
+    @Inject
+    TenantRegistry tenantRegistry;
+
+    @AroundInvoke
+    Object bind(InvocationContext context) throws Exception {
+        for (Object parameter : context.getParameters()) {
+            if (parameter instanceof McpConnection connection) {
+                return TenantContext.call(tenantRegistry.tenantOf(connection.id()), context::proceed);
+            }
+        }
+        return context.proceed();
+    }
+}
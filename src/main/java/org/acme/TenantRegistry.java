@@ -0,0 +1,260 @@
+package org.acme;
+
+import com.google.api.client.auth.oauth2.Credential;
+import com.google.api.client.http.HttpRequest;
+import com.google.api.client.http.HttpRequestInitializer;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Event;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Credentials and request budgets of the tenants this server acts for. There is one Calendar
+// client; its requests pick the credential of the tenant in TenantContext here. The default
+// tenant uses the credential kept by CredentialManager, any other tenant must already have
+// tokens under its own id in the DataStoreFactory. Each tenant has one adaptive budget, so a
+// quota error slows down only the tenant that hit it. Tenants are dropped when idle or, least
+// recently used first, when there are too many, and their cached state goes with them.
+@ApplicationScoped
+public class TenantRegistry {
+    private static final Logger LOG = Logger.getLogger(TenantRegistry.class);
+    private static final long SWEEP_NANOS = TimeUnit.MINUTES.toNanos(1);
+
+    @Inject
+    CredentialManager credentialManager;
+
+    @Inject
+    GoogleAuthService authService;
+
+    @Inject
+    Event<TenantEvicted> evictions;
+
+    @ConfigProperty(name = "calendar.tenants.max", defaultValue = "1000")
+    int maxTenants;
+
+    @ConfigProperty(name = "calendar.tenants.idle-timeout", defaultValue = "30m")
+    Duration idleTimeout;
+
+    @ConfigProperty(name = "calendar.tenants.qps", defaultValue = "20")
+    double tenantQps;
+
+    @ConfigProperty(name = "calendar.simulator.enabled", defaultValue = "false")
+    boolean simulated;
+
+    // Access order, so iteration starts at the least recently used tenant
+    private final LinkedHashMap<String, Tenant> tenants = new LinkedHashMap<>(16, 0.75f, true);
+    // MCP connection ID -> tenant. The MCP server does not tell when a connection closes, so
+    // bindings the gateway has not renewed within the idle timeout are swept instead.
+    private final Map<String, Binding> connections = new ConcurrentHashMap<>();
+    private final AtomicLong lastSweep = new AtomicLong(System.nanoTime());
+
+    // Initializer for the shared Calendar client
+    public HttpRequestInitializer initializer() {
+        return request -> tenant(TenantContext.current()).initialize(request);
+    }
+
+    // The request budget of the current tenant
+    public Budget budget() {
+        return tenant(TenantContext.current()).budget;
+    }
+
+    public void bindConnection(String connectionId, String tenant) {
+        long now = System.nanoTime();
+        connections.put(connectionId, new Binding(tenant, now));
+        long last = lastSweep.get();
+        if (now - last >= SWEEP_NANOS && lastSweep.compareAndSet(last, now)) {
+            connections.values().removeIf(binding -> now - binding.boundAt() >= idleTimeout.toNanos());
+        }
+    }
+
+    public String tenantOf(String connectionId) {
+        Binding binding = connections.get(connectionId);
+        return binding != null ? binding.tenant() : TenantContext.DEFAULT;
+    }
+
+    public int size() {
+        synchronized (tenants) {
+            return tenants.size();
+        }
+    }
+
+    // Lowest current request rate of any tenant, which shows whether one is being throttled
+    public double getLowestRate() {
+        synchronized (tenants) {
+            double lowest = tenantQps;
+            for (Tenant tenant : tenants.values()) {
+                lowest = Math.min(lowest, tenant.budget.getRate());
+            }
+            return lowest;
+        }
+    }
+
+    // Requests of all tenants waiting for a permit
+    public int getWaiting() {
+        synchronized (tenants) {
+            int waiting = 0;
+            for (Tenant tenant : tenants.values()) {
+                waiting += tenant.budget.bucket.getWaiting();
+            }
+            return waiting;
+        }
+    }
+
+    private Tenant tenant(String id) {
+        List<String> evicted = new ArrayList<>();
+        Tenant tenant;
+        synchronized (tenants) {
+            long now = System.nanoTime();
+            Iterator<Map.Entry<String, Tenant>> eldest = tenants.entrySet().iterator();
+            while (eldest.hasNext()) {
+                Map.Entry<String, Tenant> entry = eldest.next();
+                if (now - entry.getValue().lastUsed < idleTimeout.toNanos() || entry.getKey().equals(id)) {
+                    break;
+                }
+                eldest.remove();
+                evicted.add(entry.getKey());
+            }
+            tenant = tenants.get(id);
+            if (tenant == null) {
+                // The credential is loaded by the first request, outside the lock
+                tenant = new Tenant(id, new Budget(tenantQps));
+                tenants.put(id, tenant);
+                eldest = tenants.entrySet().iterator();
+                while (tenants.size() > maxTenants && eldest.hasNext()) {
+                    evicted.add(eldest.next().getKey());
+                    eldest.remove();
+                }
+            }
+            tenant.lastUsed = now;
+        }
+        for (String gone : evicted) {
+            connections.values().removeIf(binding -> binding.tenant().equals(gone));
+            LOG.debugf("Tenant %s evicted", gone);
+            evictions.fire(new TenantEvicted(gone));
+        }
+        return tenant;
+    }
+
+    // Forgets a tenant whose credential could not be loaded, so the next request tries again
+    private void forget(Tenant tenant) {
+        synchronized (tenants) {
+            tenants.remove(tenant.id, tenant);
+        }
+    }
+
+    private HttpRequestInitializer credential(String id) throws IOException {
+        if (simulated) {
+            return request -> {
+            };
+        }
+        if (TenantContext.DEFAULT.equals(id)) {
+            return credentialManager.initializer();
+        }
+        Credential stored = authService.load(id);
+        credentialManager.keepRefreshed(id, stored);
+        return stored;
+    }
+
+    private record Binding(String tenant, long boundAt) {
+    }
+
+    // Request budget of one tenant: a token bucket whose rate CalendarRateLimiter halves on quota
+    // errors and raises back towards the configured rate as requests succeed
+    public static final class Budget {
+        final TokenBucket bucket;
+        final double maxRate;
+        private final AtomicLong lastDecrease = new AtomicLong(System.nanoTime() - 1_000_000_000L);
+
+        Budget(double maxRate) {
+            this.maxRate = maxRate;
+            this.bucket = new TokenBucket(maxRate, burst(maxRate));
+        }
+
+        public double getRate() {
+            return bucket.getRate();
+        }
+
+        // Multiplicative decrease, at most once per second so a burst of errors counts once;
+        // returns the new rate, or 0 if it was left alone
+        double decrease(double minRate) {
+            long now = System.nanoTime();
+            long last = lastDecrease.get();
+            if (now - last < 1_000_000_000L || !lastDecrease.compareAndSet(last, now)) {
+                return 0;
+            }
+            double rate = Math.max(minRate, bucket.getRate() / 2);
+            // A full-size burst right after a quota error would only hit the limit again
+            bucket.setRate(rate, burst(rate));
+            return rate;
+        }
+
+        // Additive increase back towards the configured rate
+        void increase() {
+            double rate = bucket.getRate();
+            if (rate < maxRate) {
+                double raised = Math.min(maxRate, rate + maxRate / 100);
+                bucket.setRate(raised, burst(raised));
+            }
+        }
+
+        // One second's worth of requests, as at the configured rate
+        private static double burst(double rate) {
+            return Math.max(1, rate);
+        }
+    }
+
+    private final class Tenant {
+        private final String id;
+        private final Budget budget;
+        private final CompletableFuture<HttpRequestInitializer> credential = new CompletableFuture<>();
+        private final AtomicBoolean loading = new AtomicBoolean();
+        private volatile long lastUsed;
+
+        Tenant(String id, Budget budget) {
+            this.id = id;
+            this.budget = budget;
+        }
+
+        void initialize(HttpRequest request) throws IOException {
+            credential().initialize(request);
+        }
+
+        // Loaded by the first request; concurrent requests of the tenant wait for it
+        private HttpRequestInitializer credential() throws IOException {
+            if (loading.compareAndSet(false, true)) {
+                try {
+                    credential.complete(TenantRegistry.this.credential(id));
+                } catch (IOException | RuntimeException e) {
+                    forget(this);
+                    credential.completeExceptionally(e);
+                }
+            }
+            try {
+                return credential.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting for the credentials of " + id);
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof IOException io) {
+                    throw io;
+                }
+                throw new IOException(e.getCause());
+            }
+        }
+    }
+}
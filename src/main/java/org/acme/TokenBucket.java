@@ -0,0 +1,87 @@
+package org.acme;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Token bucket that hands out permits ahead of time: a caller reserves the next permit and
+// sleeps until it is due, so waiters are served in arrival order without a queue.
+public class TokenBucket {
+    private double capacity;
+    private double ratePerSecond;
+    private double tokens;
+    private long lastRefill = System.nanoTime();
+    private final AtomicInteger waiting = new AtomicInteger();
+
+    public TokenBucket(double ratePerSecond, double capacity) {
+        this.ratePerSecond = ratePerSecond;
+        this.capacity = capacity;
+        this.tokens = capacity;
+    }
+
+    public void acquire() throws InterruptedException {
+        acquire(1);
+    }
+
+    // Several permits at once, e.g. one per item of an HTTP batch
+    public void acquire(int permits) throws InterruptedException {
+        long waitNanos = reserve(permits);
+        if (waitNanos > 0) {
+            waiting.incrementAndGet();
+            try {
+                TimeUnit.NANOSECONDS.sleep(waitNanos);
+            } finally {
+                waiting.decrementAndGet();
+            }
+        }
+    }
+
+    // Takes a permit only if one is available right now
+    public synchronized boolean tryAcquire() {
+        refill();
+        if (tokens < 1) {
+            return false;
+        }
+        tokens -= 1;
+        return true;
+    }
+
+    public synchronized double getRate() {
+        return ratePerSecond;
+    }
+
+    public synchronized void setRate(double ratePerSecond) {
+        refill();
+        this.ratePerSecond = ratePerSecond;
+    }
+
+    // Changes the burst along with the rate; saved-up permits beyond the new burst are dropped
+    public synchronized void setRate(double ratePerSecond, double capacity) {
+        refill();
+        this.ratePerSecond = ratePerSecond;
+        this.capacity = capacity;
+        tokens = Math.min(tokens, capacity);
+    }
+
+    public synchronized double getCapacity() {
+        return capacity;
+    }
+
+    public int getWaiting() {
+        return waiting.get();
+    }
+
+    private synchronized long reserve(int permits) {
+        refill();
+        tokens -= permits;
+        if (tokens >= 0) {
+            return 0;
+        }
+        return (long) (-tokens / ratePerSecond * TimeUnit.SECONDS.toNanos(1));
+    }
+
+    private void refill() {
+        long now = System.nanoTime();
+        tokens = Math.min(capacity, tokens + (now - lastRefill) * ratePerSecond / TimeUnit.SECONDS.toNanos(1));
+        lastRefill = now;
+    }
+}
@@ -0,0 +1,59 @@
+package org.acme;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.StatusCode;
+import io.opentelemetry.api.trace.Tracer;
+import io.opentelemetry.context.Scope;
+import io.quarkiverse.mcp.server.Tool;
+import jakarta.annotation.Priority;
+import jakarta.inject.Inject;
+import jakarta.interceptor.AroundInvoke;
+import jakarta.interceptor.Interceptor;
+import jakarta.interceptor.InvocationContext;
+
+import java.util.concurrent.TimeUnit;
+
+// One timer sample and one span per tool call. The span is current while the tool runs, so the
+// Calendar API calls it makes (see ApiTelemetry) become its children.
+@ToolTelemetry
+@Interceptor
+@Priority(Interceptor.Priority.APPLICATION)
+public class ToolTelemetryInterceptor {
+
+    @Inject
+    MeterRegistry registry;
+
+    @Inject
+    Tracer tracer;
+
+    @AroundInvoke
+    Object record(InvocationContext context) throws Exception {
+        if (!context.getMethod().isAnnotationPresent(Tool.class)) {
+            return context.proceed();
+        }
+        String tool = context.getMethod().getName();
+        Span span = tracer.spanBuilder("tool " + tool)
+                .setAttribute("mcp.tool", tool)
+                .startSpan();
+        long start = System.nanoTime();
+        String outcome = "success";
+        try (Scope ignored = span.makeCurrent()) {
+            return context.proceed();
+        } catch (Exception e) {
+            outcome = "error";
+            span.recordException(e);
+            span.setStatus(StatusCode.ERROR);
+            throw e;
+        } finally {
+            span.end();
+            Timer.builder("mcp.tool.calls")
+                    .description("MCP tool call latency")
+                    .tags("tool", tool, "outcome", outcome)
+                    .publishPercentileHistogram()
+                    .register(registry)
+                    .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+}
@@ -0,0 +1,303 @@
+package org.acme;
+
+import com.google.api.services.calendar.Calendar;
+import com.google.api.services.calendar.model.Channel;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Event;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+// Push notification channels (events().watch and calendarList().watch) for the calendars the
+// caches hold. A cache asks for a channel when it reads a calendar; the channel is opened in the
+// background and, while it is open, the cache keeps its copy until a notification arrives at
+// <address>/calendar/notifications instead of polling on a timer. Notifications are turned into
+// CalendarChanged events. Channels are renewed ahead of expiry while the calendar is still read,
+// and a calendar whose channel cannot be opened is simply polled as before. Watched copies are
+// still refreshed after max-staleness, in case a notification is lost on the way.
+@ApplicationScoped
+public class WatchChannels {
+    private static final Logger LOG = Logger.getLogger(WatchChannels.class);
+    public static final String CALLBACK_PATH = "/calendar/notifications";
+    private static final long MAX_RETRY_NANOS = TimeUnit.HOURS.toNanos(1);
+
+    @Inject
+    Calendar calendarService;
+
+    @Inject
+    Event<CalendarChanged> changes;
+
+    @ConfigProperty(name = "calendar.watch.enabled", defaultValue = "false")
+    boolean enabled;
+
+    @ConfigProperty(name = "calendar.watch.address")
+    Optional<String> address;
+
+    @ConfigProperty(name = "calendar.watch.ttl", defaultValue = "7d")
+    Duration ttl;
+
+    @ConfigProperty(name = "calendar.watch.renew-margin", defaultValue = "1h")
+    Duration renewMargin;
+
+    @ConfigProperty(name = "calendar.watch.check-interval", defaultValue = "1m")
+    Duration checkInterval;
+
+    @ConfigProperty(name = "calendar.watch.max-staleness", defaultValue = "1h")
+    Duration maxStaleness;
+
+    private final SecureRandom random = new SecureRandom();
+    private final LongAdder notifications = new LongAdder();
+    // Tenant + calendar ID ("" for the calendar list) -> watch
+    private final Map<String, Watch> watches = new ConcurrentHashMap<>();
+    // Channel ID -> watch; a renewed watch is briefly listed under both channels
+    private final Map<String, Watch> channels = new ConcurrentHashMap<>();
+    private ScheduledExecutorService scheduler;
+
+    @PostConstruct
+    void init() {
+        if (!enabled) {
+            return;
+        }
+        if (address.isEmpty()) {
+            LOG.warn("calendar.watch.enabled is set but calendar.watch.address is not; caches keep polling");
+            enabled = false;
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "watch-channels");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::maintain, checkInterval.toMillis(), checkInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        if (scheduler == null) {
+            return;
+        }
+        scheduler.shutdownNow();
+        // Tell Google to stop sending; channels left open expire on their own
+        for (Watch watch : watches.values()) {
+            if (watch.channelId != null) {
+                stop(watch, watch.channelId, watch.resourceId);
+            }
+        }
+    }
+
+    // Whether an open channel reports changes to the events of the calendar for the current
+    // tenant. The first call opens one in the background; until then the caller keeps polling.
+    public boolean watchEvents(String calendarId) {
+        return watch(calendarId);
+    }
+
+    // The same for the current tenant's calendar list
+    public boolean watchCalendarList() {
+        return watch(null);
+    }
+
+    // Handles one notification; returns the HTTP status to answer with
+    public int notified(String channelId, String token, String resourceState) {
+        Watch watch = channelId != null ? channels.get(channelId) : null;
+        if (watch == null) {
+            return 404;
+        }
+        String expected = watch.tokens.get(channelId);
+        if (expected == null || token == null
+                || !MessageDigest.isEqual(expected.getBytes(StandardCharsets.UTF_8), token.getBytes(StandardCharsets.UTF_8))) {
+            return 403;
+        }
+        // "sync" only confirms a new channel; the change it could stand for is sent when it opens
+        if (!"sync".equals(resourceState)) {
+            notifications.increment();
+            changes.fire(new CalendarChanged(watch.tenant, watch.calendarId));
+        }
+        return 204;
+    }
+
+    // How long a cache may keep its copy without refreshing it: its own interval while unwatched,
+    // and no less than max-staleness while a channel reports the changes
+    public Duration refreshInterval(boolean watched, Duration interval) {
+        return watched && maxStaleness.compareTo(interval) > 0 ? maxStaleness : interval;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public int getOpenCount() {
+        int open = 0;
+        for (Watch watch : watches.values()) {
+            if (watch.isOpen()) {
+                open++;
+            }
+        }
+        return open;
+    }
+
+    public long getNotificationCount() {
+        return notifications.sum();
+    }
+
+    void onTenantEvicted(@Observes TenantEvicted event) {
+        // Its credential is gone, so the channels are left to expire; their notifications are ignored
+        watches.values().removeIf(watch -> {
+            if (!watch.tenant.equals(event.tenant())) {
+                return false;
+            }
+            channels.values().removeIf(watch::equals);
+            return true;
+        });
+    }
+
+    private boolean watch(String calendarId) {
+        if (!enabled) {
+            return false;
+        }
+        String tenant = TenantContext.current();
+        String key = tenant + '\n' + (calendarId != null ? calendarId : "");
+        Watch watch = watches.get(key);
+        if (watch == null) {
+            Watch created = new Watch(tenant, calendarId);
+            watch = watches.putIfAbsent(key, created);
+            if (watch == null) {
+                watch = created;
+                // Not due for maintenance before the first attempt has run
+                created.retryAt = System.nanoTime() + checkInterval.toNanos();
+                scheduler.execute(() -> open(created));
+            }
+        }
+        watch.lastUsed = System.nanoTime();
+        return watch.isOpen();
+    }
+
+    // Opens renewals, retries and first channels that are due, and drops channels nobody reads
+    private void maintain() {
+        try {
+            long now = System.nanoTime();
+            long renewBefore = System.currentTimeMillis() + renewMargin.toMillis();
+            for (Map.Entry<String, Watch> entry : watches.entrySet()) {
+                Watch watch = entry.getValue();
+                if (watch.isOpen() && watch.expiration <= renewBefore) {
+                    if (watch.lastUsed - watch.openedAt < 0) {
+                        // Not read since the channel was opened
+                        watches.remove(entry.getKey());
+                        channels.values().removeIf(watch::equals);
+                        stop(watch, watch.channelId, watch.resourceId);
+                    } else {
+                        open(watch);
+                    }
+                } else if (!watch.isOpen() && watch.retryAt - now <= 0) {
+                    open(watch);
+                }
+            }
+        } catch (Exception e) {
+            // Keep the schedule alive
+            LOG.errorf(e, "Maintaining watch channels failed");
+        }
+    }
+
+    // Opens a channel for the watch, replacing the current one if there is one
+    private void open(Watch watch) {
+        String channelId = UUID.randomUUID().toString();
+        byte[] secret = new byte[16];
+        random.nextBytes(secret);
+        String token = HexFormat.of().formatHex(secret);
+        Channel request = new Channel()
+                .setId(channelId)
+                .setType("web_hook")
+                .setAddress(address.get().replaceAll("/+$", "") + CALLBACK_PATH)
+                .setToken(token)
+                .setParams(Map.of("ttl", Long.toString(ttl.toSeconds())));
+        try {
+            Channel opened = TenantContext.call(watch.tenant, () -> watch.calendarId == null
+                    ? calendarService.calendarList().watch(request).execute()
+                    : calendarService.events().watch(watch.calendarId, request).execute());
+            String previousId = watch.channelId;
+            String previousResource = watch.resourceId;
+            watch.tokens.put(channelId, token);
+            channels.put(channelId, watch);
+            watch.opened(channelId, opened.getResourceId(),
+                    opened.getExpiration() != null ? opened.getExpiration() : System.currentTimeMillis() + ttl.toMillis());
+            if (previousId != null) {
+                stop(watch, previousId, previousResource);
+            } else {
+                // Changes made before the channel opened were not announced
+                changes.fire(new CalendarChanged(watch.tenant, watch.calendarId));
+            }
+            LOG.debugf("Watching %s for %s until %d", watch.describe(), watch.tenant, watch.expiration);
+        } catch (Exception e) {
+            watch.failed(Math.min(MAX_RETRY_NANOS, checkInterval.toNanos() << Math.min(watch.failures, 16)));
+            if (watch.failures == 1) {
+                LOG.warnf("Could not watch %s for %s, polling instead: %s", watch.describe(), watch.tenant, e.getMessage());
+            }
+        }
+    }
+
+    private void stop(Watch watch, String channelId, String resourceId) {
+        channels.remove(channelId);
+        watch.tokens.remove(channelId);
+        try {
+            TenantContext.call(watch.tenant, () -> calendarService.channels()
+                    .stop(new Channel().setId(channelId).setResourceId(resourceId)).execute());
+        } catch (Exception e) {
+            LOG.debugf("Could not stop channel %s: %s", channelId, e.getMessage());
+        }
+    }
+
+    private static final class Watch {
+        final String tenant;
+        final String calendarId;
+        final Map<String, String> tokens = new ConcurrentHashMap<>();
+        volatile String channelId;
+        volatile String resourceId;
+        volatile long expiration;
+        volatile long openedAt;
+        volatile long lastUsed;
+        volatile long retryAt;
+        volatile int failures;
+
+        Watch(String tenant, String calendarId) {
+            this.tenant = tenant;
+            this.calendarId = calendarId;
+        }
+
+        boolean isOpen() {
+            return channelId != null && expiration > System.currentTimeMillis();
+        }
+
+        void opened(String channelId, String resourceId, long expiration) {
+            this.resourceId = resourceId;
+            this.expiration = expiration;
+            this.openedAt = System.nanoTime();
+            this.failures = 0;
+            this.channelId = channelId;
+        }
+
+        void failed(long retryNanos) {
+            failures++;
+            retryAt = System.nanoTime() + retryNanos;
+        }
+
+        String describe() {
+            return calendarId != null ? "calendar " + calendarId : "the calendar list";
+        }
+    }
+}
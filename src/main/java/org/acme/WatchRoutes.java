@@ -0,0 +1,29 @@
+package org.acme;
+
+import io.vertx.ext.web.Router;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+
+// Receives the push notifications of the channels opened by WatchChannels. Google sends the
+// channel, its token and the resource state as headers. Only a 2xx answer acknowledges a
+// notification, so unknown channels (forgotten after a restart or a tenant eviction) get a 404
+// and a wrong token a 403; Google's retries of those stop when the channel expires.
+@ApplicationScoped
+public class WatchRoutes {
+
+    @Inject
+    WatchChannels watchChannels;
+
+    void register(@Observes Router router) {
+        if (!watchChannels.isEnabled()) {
+            return;
+        }
+        router.post(WatchChannels.CALLBACK_PATH).handler(context -> {
+            int status = watchChannels.notified(context.request().getHeader("X-Goog-Channel-ID"),
+                    context.request().getHeader("X-Goog-Channel-Token"),
+                    context.request().getHeader("X-Goog-Resource-State"));
+            context.response().setStatusCode(status).end();
+        });
+    }
+}
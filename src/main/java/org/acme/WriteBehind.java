@@ -0,0 +1,501 @@
+package org.acme;
+
+import com.google.api.client.json.JsonFactory;
+import com.google.api.services.calendar.model.Event;
+import com.google.api.services.calendar.model.EventDateTime;
+import io.quarkus.runtime.StartupEvent;
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import org.acme.tools.extra.BulkResult;
+import org.acme.tools.extra.JournalRecord;
+import org.acme.tools.extra.MutationOutcome;
+import org.acme.tools.extra.QueuedMutation;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+// Optional write-behind mode for creates and deletes. A mutation is acknowledged as soon as it is
+// in the journal on disk; a drainer sends the pending ones every drain interval as HTTP batches
+// and retries transient failures with backoff. Deleting an event whose create has not been sent
+// yet cancels both. Pending mutations are replayed from the journal after a restart, which is
+// safe because inserts carry their event ID and deletes tolerate events that are already gone.
+@ApplicationScoped
+public class WriteBehind {
+    private static final Logger LOG = Logger.getLogger(WriteBehind.class);
+    private static final int MAX_FINISHED = 1000;
+    private static final long COMPACT_BYTES = 1 << 20;
+    private static final long MAX_RETRY_DELAY_NANOS = TimeUnit.MINUTES.toNanos(10);
+
+    @Inject
+    BulkMutationEngine bulkMutationEngine;
+
+    @Inject
+    EventMirror eventMirror;
+
+    @Inject
+    RecurrenceCache recurrenceCache;
+
+    @Inject
+    ReadCoalescer readCoalescer;
+
+    @Inject
+    JsonFactory jsonFactory;
+
+    @ConfigProperty(name = "calendar.write-behind.enabled", defaultValue = "false")
+    boolean enabled;
+
+    @ConfigProperty(name = "calendar.write-behind.journal", defaultValue = "journal/mutations.log")
+    String journalPath;
+
+    @ConfigProperty(name = "calendar.write-behind.commit-delay", defaultValue = "2ms")
+    Duration commitDelay;
+
+    @ConfigProperty(name = "calendar.write-behind.drain-interval", defaultValue = "200ms")
+    Duration drainInterval;
+
+    @ConfigProperty(name = "calendar.write-behind.retry-delay", defaultValue = "5s")
+    Duration retryDelay;
+
+    @ConfigProperty(name = "calendar.write-behind.max-retries", defaultValue = "8")
+    int maxRetries;
+
+    private MutationJournal journal;
+    private ScheduledExecutorService drainer;
+    private final AtomicLong sequence = new AtomicLong();
+    private final LongAdder applied = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder cancelled = new LongAdder();
+
+    // Guarded by this. Unsynced mutations are not on disk yet, in-flight ones are being sent.
+    private final NavigableMap<Long, QueuedMutation> pending = new TreeMap<>();
+    private final Set<Long> unsynced = new HashSet<>();
+    private final Set<Long> inFlight = new HashSet<>();
+    private final Map<Long, QueuedMutation> finished = new LinkedHashMap<>() {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, QueuedMutation> eldest) {
+            return size() > MAX_FINISHED;
+        }
+    };
+
+    void onStart(@Observes StartupEvent event) throws IOException {
+        if (!enabled) {
+            return;
+        }
+        Path path = Path.of(journalPath);
+        replay(MutationJournal.read(path, jsonFactory));
+        journal = new MutationJournal(path, jsonFactory, commitDelay.toNanos());
+        // Start over from a journal holding only what is still pending
+        List<JournalRecord> live = new ArrayList<>();
+        synchronized (this) {
+            live.add(checkpoint());
+            pending.values().forEach(mutation -> live.add(toRecord(mutation)));
+        }
+        await(journal.rewrite(live));
+        drainer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "write-behind");
+            thread.setDaemon(true);
+            return thread;
+        });
+        drainer.scheduleWithFixedDelay(this::drain, drainInterval.toMillis(), drainInterval.toMillis(), TimeUnit.MILLISECONDS);
+        LOG.infof("Write-behind mode on, %d pending mutation(s) in %s", getPendingCount(), path.toAbsolutePath());
+    }
+
+    @PreDestroy
+    void shutdown() {
+        if (drainer != null) {
+            drainer.shutdown();
+            try {
+                drainer.awaitTermination(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        if (journal != null) {
+            journal.close();
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    // Queues an insert of the event, which must carry its own ID
+    public QueuedMutation create(String calendarId, Event event) throws IOException {
+        QueuedMutation mutation;
+        CompletableFuture<Void> written;
+        synchronized (this) {
+            mutation = new QueuedMutation(sequence.incrementAndGet(), JournalRecord.CREATE, TenantContext.current(),
+                    calendarId, event.getId(), event, Instant.now());
+            pending.put(mutation.getSeq(), mutation);
+            unsynced.add(mutation.getSeq());
+            written = journal.append(List.of(toRecord(mutation)));
+        }
+        synced(List.of(mutation), written);
+        return mutation;
+    }
+
+    // Queues a delete of each event. An unsent create of the same event is cancelled together with
+    // it, and an already pending delete of the event is returned instead of a new one.
+    public List<QueuedMutation> delete(String calendarId, Collection<String> eventIds) throws IOException {
+        String tenant = TenantContext.current();
+        List<QueuedMutation> result = new ArrayList<>(eventIds.size());
+        List<QueuedMutation> queued = new ArrayList<>();
+        CompletableFuture<Void> written;
+        synchronized (this) {
+            Map<String, QueuedMutation> latest = new HashMap<>();
+            for (QueuedMutation mutation : pending.values()) {
+                if (mutation.getTenant().equals(tenant) && mutation.getCalendarId().equals(calendarId)) {
+                    latest.put(mutation.getEventId(), mutation);
+                }
+            }
+            List<JournalRecord> records = new ArrayList<>();
+            for (String eventId : eventIds) {
+                QueuedMutation previous = latest.get(eventId);
+                if (previous != null && JournalRecord.DELETE.equals(previous.getOp())) {
+                    result.add(previous);
+                    continue;
+                }
+                QueuedMutation mutation = new QueuedMutation(sequence.incrementAndGet(), JournalRecord.DELETE, tenant,
+                        calendarId, eventId, null, Instant.now());
+                records.add(toRecord(mutation));
+                if (previous != null && !inFlight.contains(previous.getSeq())) {
+                    previous.finish(QueuedMutation.State.CANCELLED, 0, "deleted by " + mutation.getId() + " before it was sent");
+                    mutation.finish(QueuedMutation.State.CANCELLED, 0, "cancelled the unsent create " + previous.getId());
+                    pending.remove(previous.getSeq());
+                    finished.put(previous.getSeq(), previous);
+                    finished.put(mutation.getSeq(), mutation);
+                    latest.remove(eventId);
+                    cancelled.add(2);
+                    records.add(JournalRecord.done(previous));
+                    records.add(JournalRecord.done(mutation));
+                } else {
+                    pending.put(mutation.getSeq(), mutation);
+                    unsynced.add(mutation.getSeq());
+                    latest.put(eventId, mutation);
+                    queued.add(mutation);
+                }
+                result.add(mutation);
+            }
+            if (records.isEmpty()) {
+                return result;
+            }
+            written = journal.append(records);
+        }
+        synced(queued, written);
+        return result;
+    }
+
+    // Unsent creates of the current tenant in the calendar whose summary, description or location
+    // contains the query and that overlap [timeMin, timeMax); null bounds and queries match all
+    public synchronized List<QueuedMutation> pendingCreates(String calendarId, String query, Long timeMin, Long timeMax) {
+        String tenant = TenantContext.current();
+        List<QueuedMutation> matches = new ArrayList<>();
+        for (QueuedMutation mutation : pending.values()) {
+            if (!JournalRecord.CREATE.equals(mutation.getOp()) || !mutation.getTenant().equals(tenant)
+                    || !mutation.getCalendarId().equals(calendarId) || inFlight.contains(mutation.getSeq())) {
+                continue;
+            }
+            Event event = mutation.getEvent();
+            if (query != null && !query.trim().isEmpty() && !EventMirror.matches(event, query)) {
+                continue;
+            }
+            if ((timeMin != null && millis(event.getEnd()) <= timeMin) || (timeMax != null && millis(event.getStart()) >= timeMax)) {
+                continue;
+            }
+            matches.add(mutation);
+        }
+        return matches;
+    }
+
+    // A mutation of the current tenant by ID (e.g. "m12"), or null
+    public synchronized QueuedMutation find(String id) {
+        long seq;
+        try {
+            seq = Long.parseLong(id.trim().startsWith("m") ? id.trim().substring(1) : id.trim());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+        QueuedMutation mutation = pending.containsKey(seq) ? pending.get(seq) : finished.get(seq);
+        return mutation != null && mutation.getTenant().equals(TenantContext.current()) ? mutation : null;
+    }
+
+    // Mutations of the current tenant: pending ones oldest first, then finished ones newest first
+    public synchronized List<QueuedMutation> recent(int limit) {
+        String tenant = TenantContext.current();
+        List<QueuedMutation> result = new ArrayList<>();
+        for (QueuedMutation mutation : pending.values()) {
+            if (result.size() < limit && mutation.getTenant().equals(tenant)) {
+                result.add(mutation);
+            }
+        }
+        List<QueuedMutation> done = new ArrayList<>(finished.values());
+        for (int i = done.size() - 1; i >= 0 && result.size() < limit; i--) {
+            if (done.get(i).getTenant().equals(tenant)) {
+                result.add(done.get(i));
+            }
+        }
+        return result;
+    }
+
+    public synchronized int getPendingCount() {
+        return pending.size();
+    }
+
+    public long getAppliedCount() {
+        return applied.sum();
+    }
+
+    public long getFailedCount() {
+        return failed.sum();
+    }
+
+    public long getCancelledCount() {
+        return cancelled.sum();
+    }
+
+    private void drain() {
+        try {
+            for (List<QueuedMutation> group : takeReady().values()) {
+                send(group);
+            }
+            compactIfIdle();
+        } catch (Exception e) {
+            // Keep the schedule alive; whatever was taken is still pending
+            LOG.errorf(e, "Draining the write-behind queue failed");
+        }
+    }
+
+    // Pending mutations that may be sent now, by tenant and calendar. Only the oldest mutation of
+    // each event is taken, so a create and a later delete of it never share a batch.
+    private synchronized Map<String, List<QueuedMutation>> takeReady() {
+        long now = System.nanoTime();
+        Map<String, List<QueuedMutation>> groups = new LinkedHashMap<>();
+        Set<String> seen = new HashSet<>();
+        for (QueuedMutation mutation : pending.values()) {
+            String group = mutation.getTenant() + '\n' + mutation.getCalendarId();
+            boolean first = seen.add(group + '\n' + mutation.getEventId());
+            boolean waiting = mutation.getNotBefore() != 0 && mutation.getNotBefore() - now > 0;
+            if (!first || waiting || unsynced.contains(mutation.getSeq()) || inFlight.contains(mutation.getSeq())) {
+                continue;
+            }
+            groups.computeIfAbsent(group, g -> new ArrayList<>()).add(mutation);
+            inFlight.add(mutation.getSeq());
+        }
+        return groups;
+    }
+
+    private void send(List<QueuedMutation> group) {
+        String tenant = group.get(0).getTenant();
+        String calendarId = group.get(0).getCalendarId();
+        List<JournalRecord> done = new ArrayList<>();
+        try {
+            TenantContext.call(tenant, () -> {
+                List<BulkMutationEngine.Mutation> calls = new ArrayList<>(group.size());
+                for (QueuedMutation mutation : group) {
+                    calls.add(JournalRecord.CREATE.equals(mutation.getOp())
+                            ? bulkMutationEngine.insert(calendarId, mutation.getEvent())
+                            : bulkMutationEngine.delete(calendarId, mutation.getEventId()));
+                }
+                BulkResult result = bulkMutationEngine.execute(calls);
+                for (int i = 0; i < group.size(); i++) {
+                    settle(group.get(i), result.getOutcomes().get(i), done);
+                }
+                updateCaches(calendarId, group);
+                return null;
+            });
+        } catch (Exception e) {
+            for (QueuedMutation mutation : group) {
+                if (mutation.isPending()) {
+                    retryOrFail(mutation, 1, 0, e.getMessage(), done);
+                }
+            }
+        }
+        synchronized (this) {
+            for (QueuedMutation mutation : group) {
+                inFlight.remove(mutation.getSeq());
+                if (!mutation.isPending()) {
+                    pending.remove(mutation.getSeq());
+                    finished.put(mutation.getSeq(), mutation);
+                }
+            }
+        }
+        if (!done.isEmpty()) {
+            try {
+                await(journal.append(done));
+            } catch (IOException e) {
+                // They stay pending in the journal and are sent again after a restart, which is harmless
+                LOG.warnf("Could not record %d finished mutation(s): %s", done.size(), e.getMessage());
+            }
+        }
+    }
+
+    private void settle(QueuedMutation mutation, MutationOutcome outcome, List<JournalRecord> done) {
+        if (!outcome.isSucceeded()) {
+            retryOrFail(mutation, outcome.getAttempts(), outcome.getStatusCode(), outcome.getMessage(), done);
+            return;
+        }
+        String note = null;
+        if (outcome.getStatusCode() == 409) {
+            note = "already existed";
+        } else if (outcome.getStatusCode() == 404 || outcome.getStatusCode() == 410) {
+            note = "already deleted";
+        }
+        mutation.attempted(outcome.getAttempts(), outcome.getStatusCode(), null, 0);
+        mutation.finish(QueuedMutation.State.APPLIED, outcome.getStatusCode(), note);
+        applied.increment();
+        done.add(JournalRecord.done(mutation));
+    }
+
+    private void retryOrFail(QueuedMutation mutation, int attempts, int statusCode, String message, List<JournalRecord> done) {
+        boolean transientError = statusCode == 0 || statusCode == 429 || statusCode >= 500;
+        if (transientError && mutation.getRounds() < maxRetries) {
+            long delay = Math.min(MAX_RETRY_DELAY_NANOS, retryDelay.toNanos() << Math.min(mutation.getRounds(), 16));
+            mutation.attempted(attempts, statusCode, message, System.nanoTime() + delay);
+            LOG.debugf("Mutation %s failed (%s), retrying in %d ms", mutation.getId(), message, TimeUnit.NANOSECONDS.toMillis(delay));
+            return;
+        }
+        mutation.attempted(attempts, statusCode, message, 0);
+        mutation.finish(QueuedMutation.State.FAILED, statusCode, message);
+        failed.increment();
+        done.add(JournalRecord.done(mutation));
+        LOG.warnf("Mutation %s failed: %s", mutation.getId(), message);
+    }
+
+    // Runs as the tenant of the group
+    private void updateCaches(String calendarId, List<QueuedMutation> group) {
+        boolean changed = false;
+        boolean deleted = false;
+        for (QueuedMutation mutation : group) {
+            if (mutation.getState() != QueuedMutation.State.APPLIED) {
+                continue;
+            }
+            changed = true;
+            if (JournalRecord.DELETE.equals(mutation.getOp())) {
+                deleted = true;
+                eventMirror.remove(calendarId, mutation.getEventId());
+            } else if (mutation.getEvent().getRecurrence() != null) {
+                // The mirror holds expanded instances, which only a sync can provide
+                eventMirror.invalidate(calendarId);
+            } else {
+                eventMirror.put(calendarId, mutation.getEvent());
+            }
+        }
+        if (deleted) {
+            recurrenceCache.invalidate(calendarId);
+        }
+        if (changed) {
+            readCoalescer.invalidate(calendarId);
+        }
+    }
+
+    private synchronized void compactIfIdle() {
+        if (pending.isEmpty() && journal.getBytes() > COMPACT_BYTES) {
+            // Ordered with later appends, so it never drops a record written after it
+            journal.rewrite(List.of(checkpoint()));
+        }
+    }
+
+    private synchronized void replay(List<JournalRecord> records) {
+        long last = 0;
+        for (JournalRecord record : records) {
+            long seq = record.getSeq() != null ? record.getSeq() : 0;
+            last = Math.max(last, seq);
+            switch (String.valueOf(record.getOp())) {
+                case JournalRecord.CREATE:
+                case JournalRecord.DELETE:
+                    pending.put(seq, new QueuedMutation(seq, record.getOp(), record.getTenant(), record.getCalendarId(),
+                            record.getEventId(), record.getEvent(), Instant.ofEpochMilli(record.getAt() != null ? record.getAt() : 0)));
+                    break;
+                case JournalRecord.DONE:
+                    QueuedMutation mutation = pending.remove(seq);
+                    if (mutation != null) {
+                        mutation.finish(QueuedMutation.State.valueOf(record.getState()),
+                                record.getStatusCode() != null ? record.getStatusCode() : 0, record.getMessage());
+                        finished.put(seq, mutation);
+                    }
+                    break;
+                default:
+                    break;
+            }
+        }
+        sequence.set(last);
+    }
+
+    // Waits until the mutations are on disk; if they cannot be written they are dropped and the caller fails
+    private void synced(List<QueuedMutation> mutations, CompletableFuture<Void> written) throws IOException {
+        try {
+            await(written);
+        } catch (IOException e) {
+            synchronized (this) {
+                for (QueuedMutation mutation : mutations) {
+                    if (pending.remove(mutation.getSeq()) != null) {
+                        mutation.finish(QueuedMutation.State.FAILED, 0, e.getMessage());
+                        finished.put(mutation.getSeq(), mutation);
+                    }
+                }
+            }
+            throw e;
+        } finally {
+            synchronized (this) {
+                mutations.forEach(mutation -> unsynced.remove(mutation.getSeq()));
+            }
+        }
+    }
+
+    private static void await(CompletableFuture<Void> written) throws IOException {
+        try {
+            written.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while writing the mutation journal");
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof IOException ? (IOException) e.getCause() : new IOException(e.getCause());
+        }
+    }
+
+    private JournalRecord checkpoint() {
+        return new JournalRecord().setOp(JournalRecord.CHECKPOINT).setSeq(sequence.get());
+    }
+
+    private static JournalRecord toRecord(QueuedMutation mutation) {
+        return new JournalRecord()
+                .setSeq(mutation.getSeq())
+                .setOp(mutation.getOp())
+                .setTenant(mutation.getTenant())
+                .setCalendarId(mutation.getCalendarId())
+                .setEventId(mutation.getEventId())
+                .setEvent(mutation.getEvent())
+                .setAt(mutation.getAcceptedAt().toEpochMilli());
+    }
+
+    private static long millis(EventDateTime time) {
+        if (time == null) {
+            return 0;
+        }
+        return time.getDateTime() != null ? time.getDateTime().getValue() : time.getDate().getValue();
+    }
+}
@@ -0,0 +1,678 @@
+package org.acme.simulator;
+
+import com.google.api.client.googleapis.json.GoogleJsonError;
+import com.google.api.client.googleapis.json.GoogleJsonErrorContainer;
+import com.google.api.client.json.GenericJson;
+import com.google.api.client.json.JsonFactory;
+import com.google.api.client.util.DateTime;
+import com.google.api.services.calendar.model.CalendarList;
+import com.google.api.services.calendar.model.CalendarListEntry;
+import com.google.api.services.calendar.model.Channel;
+import com.google.api.services.calendar.model.Error;
+import com.google.api.services.calendar.model.Event;
+import com.google.api.services.calendar.model.EventDateTime;
+import com.google.api.services.calendar.model.Events;
+import com.google.api.services.calendar.model.FreeBusyCalendar;
+import com.google.api.services.calendar.model.FreeBusyRequest;
+import com.google.api.services.calendar.model.FreeBusyRequestItem;
+import com.google.api.services.calendar.model.FreeBusyResponse;
+import com.google.api.services.calendar.model.TimePeriod;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.acme.TokenBucket;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPInputStream;
+
+// In-process stand-in for the parts of the Calendar API v3 this server uses: the calendar list,
+// events (list, get, insert, update, patch, delete, instances), sync tokens, pagination, ETags,
+// HTTP batches, free/busy queries and push notification channels. It is stateful and seeded with
+// generated calendars and events. Latency, server errors and rate limiting can be injected so load
+// tests behave like the real service without spending any quota. Served under /simulator when
+// calendar.simulator.enabled is set.
+@ApplicationScoped
+public class CalendarSimulator {
+    private static final Logger LOG = Logger.getLogger(CalendarSimulator.class);
+    public static final String ROOT = "/simulator/";
+    private static final String API_PREFIX = "/calendar/v3";
+    private static final String BATCH_PATH = "/batch/calendar/v3";
+    private static final String JSON = "application/json; charset=UTF-8";
+    private static final String PRIMARY = "sim-user@example.com";
+    private static final Pattern EVENT_ID = Pattern.compile("[a-v0-9]{5,1024}");
+    private static final String[] WORDS = {
+            "team", "project", "review", "planning", "sync", "lunch", "standup", "design", "release", "demo",
+            "dentist", "gym", "travel", "support", "interview", "retro", "budget", "offsite", "training", "call"
+    };
+
+    @Inject
+    JsonFactory jsonFactory;
+
+    @ConfigProperty(name = "calendar.simulator.enabled", defaultValue = "false")
+    boolean enabled;
+
+    @ConfigProperty(name = "quarkus.http.port", defaultValue = "8080")
+    int port;
+
+    @ConfigProperty(name = "calendar.simulator.calendars", defaultValue = "5")
+    int calendarCount;
+
+    @ConfigProperty(name = "calendar.simulator.events-per-calendar", defaultValue = "200")
+    int eventsPerCalendar;
+
+    @ConfigProperty(name = "calendar.simulator.latency", defaultValue = "20ms")
+    Duration latency;
+
+    @ConfigProperty(name = "calendar.simulator.latency-jitter", defaultValue = "10ms")
+    Duration latencyJitter;
+
+    @ConfigProperty(name = "calendar.simulator.error-rate", defaultValue = "0")
+    double errorRate;
+
+    @ConfigProperty(name = "calendar.simulator.rate-limit-rate", defaultValue = "0")
+    double rateLimitRate;
+
+    @ConfigProperty(name = "calendar.simulator.qps", defaultValue = "0")
+    double qps;
+
+    private final SecureRandom ids = new SecureRandom();
+    private final SimulatedChannels channels = new SimulatedChannels();
+    private volatile Map<String, SimulatedCalendar> calendars;
+    private volatile TokenBucket quota;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    // Root URL for the Calendar client when the simulator stands in for Google
+    public String rootUrl() {
+        return "http://localhost:" + port + ROOT;
+    }
+
+    // How long the answer to the next request should be held back
+    public long nextDelayMillis() {
+        long jitter = latencyJitter.toMillis();
+        return latency.toMillis() + (jitter > 0 ? ThreadLocalRandom.current().nextLong(jitter + 1) : 0);
+    }
+
+    // Handles one HTTP request; path is relative to ROOT, query is still encoded and header names
+    // are lower case
+    public Response handle(String method, String path, String query, Map<String, String> headers, byte[] content) {
+        try {
+            path = "/" + path;
+            // The Google client gzips request bodies
+            if ("gzip".equalsIgnoreCase(headers.get("content-encoding"))) {
+                try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(content))) {
+                    content = in.readAllBytes();
+                }
+            }
+            String body = new String(content, StandardCharsets.UTF_8);
+            if (path.equals(BATCH_PATH) && method.equals("POST")) {
+                return batch(headers.get("content-type"), body);
+            }
+            Response fault = fault();
+            if (fault != null) {
+                return fault;
+            }
+            Response response = route(method, path, parseQuery(query), body);
+            String etag = response.headers().get("ETag");
+            if (etag != null && etag.equals(headers.get("if-none-match"))) {
+                return new Response(304, null, "", Map.of("ETag", etag));
+            }
+            return response;
+        } catch (IllegalArgumentException e) {
+            return error(400, "global", "badRequest", e.getMessage());
+        } catch (IOException e) {
+            return error(400, "global", "parseError", "Parse Error: " + e.getMessage());
+        }
+    }
+
+    private Response route(String method, String path, Map<String, String> query, String body) throws IOException {
+        if (!path.startsWith(API_PREFIX + "/")) {
+            return notFound();
+        }
+        String[] segments = path.substring(API_PREFIX.length() + 1).split("/");
+        for (int i = 0; i < segments.length; i++) {
+            segments[i] = URLDecoder.decode(segments[i], StandardCharsets.UTF_8);
+        }
+        if (segments.length == 1 && segments[0].equals("freeBusy")) {
+            return method.equals("POST") ? freeBusy(body) : error(405, "global", "methodNotAllowed", "Not simulated");
+        }
+        if (segments.length == 2 && segments[0].equals("channels") && segments[1].equals("stop")) {
+            return method.equals("POST") ? stop(body) : error(405, "global", "methodNotAllowed", "Not simulated");
+        }
+        if (segments.length >= 3 && segments[0].equals("users") && segments[1].equals("me") && segments[2].equals("calendarList")) {
+            if (segments.length == 4 && segments[3].equals("watch") && method.equals("POST")) {
+                return watch("calendarList", API_PREFIX + "/users/me/calendarList", body);
+            }
+            if (!method.equals("GET")) {
+                return error(405, "global", "methodNotAllowed", "Not simulated");
+            }
+            return segments.length == 3 ? calendarList(query) : calendarListEntry(segments[3]);
+        }
+        if (segments.length < 3 || !segments[0].equals("calendars") || !segments[2].equals("events")) {
+            return notFound();
+        }
+        SimulatedCalendar calendar = state().get(segments[1]);
+        if (calendar == null) {
+            return notFound();
+        }
+        if (segments.length == 3) {
+            switch (method) {
+                case "GET":
+                    return list(calendar, query);
+                case "POST":
+                    return insert(calendar, body);
+                default:
+                    return error(405, "global", "methodNotAllowed", "Not simulated");
+            }
+        }
+        if (segments.length == 4 && segments[3].equals("watch") && method.equals("POST")) {
+            String calendarId = calendar.getEntry().getId();
+            return watch(calendarId, API_PREFIX + "/calendars/" + calendarId + "/events", body);
+        }
+        String eventId = segments[3];
+        if (segments.length == 5 && segments[4].equals("instances") && method.equals("GET")) {
+            return instances(calendar, eventId, query);
+        }
+        if (segments.length != 4) {
+            return notFound();
+        }
+        switch (method) {
+            case "GET":
+                return get(calendar, eventId);
+            case "DELETE":
+                return delete(calendar, eventId);
+            case "PUT":
+            case "PATCH":
+                return update(calendar, eventId, body, method.equals("PATCH"));
+            default:
+                return error(405, "global", "methodNotAllowed", "Not simulated");
+        }
+    }
+
+    private Response calendarList(Map<String, String> query) throws IOException {
+        List<CalendarListEntry> entries = new ArrayList<>();
+        // The simulated list never changes, so an incremental sync is always empty
+        if (query.get("syncToken") == null) {
+            for (SimulatedCalendar calendar : state().values()) {
+                entries.add(calendar.getEntry());
+            }
+        }
+        int from = offset(query.get("pageToken"));
+        int size = pageSize(query.get("maxResults"), 250);
+        CalendarList page = new CalendarList().setItems(slice(entries, from, size));
+        if (from + size < entries.size()) {
+            page.setNextPageToken("o" + (from + size));
+        } else {
+            page.setNextSyncToken("c0");
+        }
+        return json(page);
+    }
+
+    private Response calendarListEntry(String calendarId) throws IOException {
+        SimulatedCalendar calendar = state().get(calendarId);
+        return calendar != null ? json(calendar.getEntry()) : notFound();
+    }
+
+    private Response list(SimulatedCalendar calendar, Map<String, String> query) throws IOException {
+        boolean singleEvents = Boolean.parseBoolean(query.get("singleEvents"));
+        String syncToken = query.get("syncToken");
+        String q = query.get("q");
+        Long timeMin = query.get("timeMin") != null ? new DateTime(query.get("timeMin")).getValue() : null;
+        Long timeMax = query.get("timeMax") != null ? new DateTime(query.get("timeMax")).getValue() : null;
+        if ("startTime".equals(query.get("orderBy")) && !singleEvents) {
+            throw new IllegalArgumentException("The requested ordering is not available for the particular query.");
+        }
+        long version = calendar.getVersion();
+        List<Event> items;
+        if (syncToken != null) {
+            if (q != null || timeMin != null || timeMax != null || query.get("orderBy") != null) {
+                throw new IllegalArgumentException("Sync token cannot be combined with q, timeMin, timeMax or orderBy.");
+            }
+            long since = syncVersion(syncToken);
+            if (since < 0 || since > version) {
+                return error(410, "global", "fullSyncRequired", "Sync token is no longer valid, a full sync is required.");
+            }
+            items = calendar.changedSince(since, singleEvents);
+        } else {
+            items = calendar.live(singleEvents);
+            items.removeIf(event -> (timeMin != null && SimulatedCalendar.endMillis(event) <= timeMin)
+                    || (timeMax != null && SimulatedCalendar.startMillis(event) >= timeMax)
+                    || (q != null && !matches(event, q.toLowerCase(Locale.ROOT))));
+            if ("startTime".equals(query.get("orderBy"))) {
+                SimulatedCalendar.sortByStart(items);
+            }
+        }
+        int from = offset(query.get("pageToken"));
+        int size = pageSize(query.get("maxResults"), 250);
+        Events page = new Events()
+                .setSummary(calendar.getEntry().getSummary())
+                .setItems(slice(items, from, size));
+        if (from + size < items.size()) {
+            page.setNextPageToken("o" + (from + size));
+        } else {
+            page.setNextSyncToken("s" + version);
+        }
+        return json(page);
+    }
+
+    // Busy periods of each requested calendar, merged and in start order; unknown IDs get a
+    // notFound error like calendars the user cannot see
+    private Response freeBusy(String body) throws IOException {
+        FreeBusyRequest request = jsonFactory.fromString(body, FreeBusyRequest.class);
+        if (request.getTimeMin() == null || request.getTimeMax() == null) {
+            throw new IllegalArgumentException("Missing timeMin or timeMax.");
+        }
+        long timeMin = request.getTimeMin().getValue();
+        long timeMax = request.getTimeMax().getValue();
+        Map<String, FreeBusyCalendar> result = new LinkedHashMap<>();
+        for (FreeBusyRequestItem item : request.getItems() != null ? request.getItems() : List.<FreeBusyRequestItem>of()) {
+            SimulatedCalendar calendar = state().get("primary".equals(item.getId()) ? PRIMARY : item.getId());
+            if (calendar == null) {
+                result.put(item.getId(), new FreeBusyCalendar().setBusy(List.of())
+                        .setErrors(List.of(new Error().setDomain("global").setReason("notFound"))));
+                continue;
+            }
+            List<Event> events = calendar.live(true);
+            events.removeIf(event -> "transparent".equals(event.getTransparency())
+                    || SimulatedCalendar.endMillis(event) <= timeMin || SimulatedCalendar.startMillis(event) >= timeMax);
+            SimulatedCalendar.sortByStart(events);
+            List<TimePeriod> busy = new ArrayList<>();
+            long start = 0;
+            long end = Long.MIN_VALUE;
+            for (Event event : events) {
+                long eventStart = Math.max(timeMin, SimulatedCalendar.startMillis(event));
+                long eventEnd = Math.min(timeMax, SimulatedCalendar.endMillis(event));
+                if (eventStart > end) {
+                    if (end != Long.MIN_VALUE) {
+                        busy.add(new TimePeriod().setStart(new DateTime(start)).setEnd(new DateTime(end)));
+                    }
+                    start = eventStart;
+                }
+                end = Math.max(end, eventEnd);
+            }
+            if (end != Long.MIN_VALUE) {
+                busy.add(new TimePeriod().setStart(new DateTime(start)).setEnd(new DateTime(end)));
+            }
+            result.put(item.getId(), new FreeBusyCalendar().setBusy(busy));
+        }
+        return json(new FreeBusyResponse()
+                .setKind("calendar#freeBusy")
+                .setTimeMin(request.getTimeMin())
+                .setTimeMax(request.getTimeMax())
+                .setCalendars(result));
+    }
+
+    private Response watch(String resource, String resourceUri, String body) throws IOException {
+        Channel request = jsonFactory.fromString(body, Channel.class);
+        return json(channels.open(resource, resourceUri, request));
+    }
+
+    private Response stop(String body) throws IOException {
+        Channel request = jsonFactory.fromString(body, Channel.class);
+        return channels.stop(request) ? new Response(204, null, "", Map.of()) : notFound();
+    }
+
+    private Response instances(SimulatedCalendar calendar, String eventId, Map<String, String> query) throws IOException {
+        Event series = calendar.get(eventId);
+        if (series == null) {
+            return notFound();
+        }
+        if (SimulatedCalendar.isCancelled(series)) {
+            return error(410, "global", "deleted", "Resource has been deleted");
+        }
+        Long timeMin = query.get("timeMin") != null ? new DateTime(query.get("timeMin")).getValue() : null;
+        Long timeMax = query.get("timeMax") != null ? new DateTime(query.get("timeMax")).getValue() : null;
+        List<Event> items = calendar.expand(series);
+        items.removeIf(event -> (timeMin != null && SimulatedCalendar.endMillis(event) <= timeMin)
+                || (timeMax != null && SimulatedCalendar.startMillis(event) >= timeMax));
+        int from = offset(query.get("pageToken"));
+        int size = pageSize(query.get("maxResults"), 250);
+        Events page = new Events().setItems(slice(items, from, size));
+        if (from + size < items.size()) {
+            page.setNextPageToken("o" + (from + size));
+        }
+        return json(page);
+    }
+
+    private Response get(SimulatedCalendar calendar, String eventId) throws IOException {
+        Event event = calendar.get(eventId);
+        if (event == null) {
+            return notFound();
+        }
+        return json(event);
+    }
+
+    private Response insert(SimulatedCalendar calendar, String body) throws IOException {
+        Event event = jsonFactory.fromString(body, Event.class);
+        if (event.getStart() == null || event.getEnd() == null) {
+            throw new IllegalArgumentException("Missing start or end time.");
+        }
+        if (event.getId() == null) {
+            event.setId(newId());
+        } else if (!EVENT_ID.matcher(event.getId()).matches()) {
+            return error(400, "global", "invalid", "Invalid resource id value.");
+        }
+        if (!calendar.insert(event)) {
+            return error(409, "global", "duplicate", "The requested identifier already exists.");
+        }
+        channels.changed(calendar.getEntry().getId());
+        return json(event);
+    }
+
+    private Response update(SimulatedCalendar calendar, String eventId, String body, boolean patch) throws IOException {
+        Event current = calendar.get(eventId);
+        if (current == null) {
+            return notFound();
+        }
+        if (SimulatedCalendar.isCancelled(current)) {
+            return error(410, "global", "deleted", "Resource has been deleted");
+        }
+        Event changes = jsonFactory.fromString(body, Event.class);
+        Event updated = patch ? current.clone() : new Event().setCreated(current.getCreated());
+        for (Map.Entry<String, Object> field : changes.entrySet()) {
+            updated.set(field.getKey(), field.getValue());
+        }
+        updated.setId(eventId);
+        calendar.update(updated);
+        channels.changed(calendar.getEntry().getId());
+        return json(updated);
+    }
+
+    private Response delete(SimulatedCalendar calendar, String eventId) {
+        Event event = calendar.get(eventId);
+        if (event == null) {
+            return notFound();
+        }
+        if (SimulatedCalendar.isCancelled(event)) {
+            return error(410, "global", "deleted", "Resource has been deleted");
+        }
+        calendar.delete(event);
+        channels.changed(calendar.getEntry().getId());
+        return new Response(204, null, "", Map.of());
+    }
+
+    // multipart/mixed batch: every part is a complete HTTP request, answered in order
+    private Response batch(String contentType, String body) {
+        String boundary = boundary(contentType);
+        if (boundary == null) {
+            return error(400, "global", "badRequest", "Missing multipart boundary.");
+        }
+        String responseBoundary = "batch_" + UUID.randomUUID().toString().replace("-", "");
+        StringBuilder out = new StringBuilder();
+        int index = 0;
+        for (String part : body.split("--" + Pattern.quote(boundary))) {
+            String trimmed = part.strip();
+            if (trimmed.isEmpty() || trimmed.equals("--")) {
+                continue;
+            }
+            // Part headers, then the embedded request line, its headers and body
+            String[] outer = splitHead(trimmed);
+            String[] inner = splitHead(outer[1]);
+            String[] head = inner[0].split("\r?\n");
+            String[] requestLine = head[0].split(" ");
+            URI uri = URI.create(requestLine[1]);
+            Map<String, String> headers = new HashMap<>();
+            for (int i = 1; i < head.length; i++) {
+                int colon = head[i].indexOf(':');
+                if (colon > 0) {
+                    headers.put(head[i].substring(0, colon).trim().toLowerCase(Locale.ROOT), head[i].substring(colon + 1).trim());
+                }
+            }
+            String path = uri.getRawPath();
+            int api = path.indexOf(API_PREFIX + "/");
+            Response response = handle(requestLine[0], api >= 0 ? path.substring(api + 1) : path.substring(1),
+                    uri.getRawQuery(), headers, inner[1].getBytes(StandardCharsets.UTF_8));
+            index++;
+            out.append("--").append(responseBoundary).append("\r\n")
+                    .append("Content-Type: application/http\r\n")
+                    .append("Content-ID: <response-").append(index).append(">\r\n\r\n")
+                    .append("HTTP/1.1 ").append(response.status()).append(' ').append(reason(response.status())).append("\r\n");
+            if (response.contentType() != null) {
+                out.append("Content-Type: ").append(response.contentType()).append("\r\n");
+            }
+            byte[] content = response.body().getBytes(StandardCharsets.UTF_8);
+            out.append("Content-Length: ").append(content.length).append("\r\n\r\n")
+                    .append(response.body()).append("\r\n");
+        }
+        out.append("--").append(responseBoundary).append("--\r\n");
+        return new Response(200, "multipart/mixed; boundary=" + responseBoundary, out.toString(), Map.of());
+    }
+
+    private Response fault() {
+        TokenBucket bucket = quota;
+        if (qps > 0 && bucket == null) {
+            synchronized (this) {
+                if (quota == null) {
+                    quota = new TokenBucket(qps, qps);
+                }
+                bucket = quota;
+            }
+        }
+        if (bucket != null && !bucket.tryAcquire()) {
+            return error(403, "usageLimits", "rateLimitExceeded", "Rate Limit Exceeded");
+        }
+        double roll = ThreadLocalRandom.current().nextDouble();
+        if (roll < rateLimitRate) {
+            return error(429, "usageLimits", "rateLimitExceeded", "Rate Limit Exceeded");
+        }
+        if (roll < rateLimitRate + errorRate) {
+            return error(503, "global", "backendError", "Backend Error");
+        }
+        return null;
+    }
+
+    private Map<String, SimulatedCalendar> state() {
+        Map<String, SimulatedCalendar> current = calendars;
+        if (current == null) {
+            synchronized (this) {
+                if (calendars == null) {
+                    calendars = seed();
+                }
+                current = calendars;
+            }
+        }
+        return current;
+    }
+
+    // Generated calendars with events spread over the 30 days before and 60 days after today,
+    // every tenth of them a weekly series
+    private Map<String, SimulatedCalendar> seed() {
+        Random random = new Random(42);
+        long today = LocalDate.now(ZoneOffset.UTC).atStartOfDay(ZoneOffset.UTC).toInstant().toEpochMilli();
+        long first = today - Duration.ofDays(30).toMillis();
+        long spread = Duration.ofDays(90).toMillis();
+        Map<String, SimulatedCalendar> seeded = new LinkedHashMap<>();
+        for (int c = 0; c < calendarCount; c++) {
+            CalendarListEntry entry = c == 0
+                    ? new CalendarListEntry().setId(PRIMARY).setSummary("Simulated User").setPrimary(true)
+                    : new CalendarListEntry().setId("sim-" + c + "@group.calendar.google.com").setSummary("Simulated " + c);
+            entry.setAccessRole("owner").setTimeZone("UTC").setEtag("\"" + c + "\"");
+            SimulatedCalendar calendar = new SimulatedCalendar(entry);
+            for (int e = 0; e < eventsPerCalendar; e++) {
+                // Whole half hours between 08:00 and 18:00
+                long day = first + (long) (random.nextDouble() * spread) / 86_400_000L * 86_400_000L;
+                long start = day + Duration.ofHours(8).toMillis() + random.nextInt(20) * Duration.ofMinutes(30).toMillis();
+                long end = start + (1 + random.nextInt(4)) * Duration.ofMinutes(30).toMillis();
+                Event event = new Event()
+                        .setId(newId())
+                        .setSummary(capitalize(WORDS[random.nextInt(WORDS.length)]) + " " + WORDS[random.nextInt(WORDS.length)])
+                        .setDescription("Generated by the Calendar API simulator")
+                        .setStart(new EventDateTime().setDateTime(new DateTime(start)).setTimeZone("UTC"))
+                        .setEnd(new EventDateTime().setDateTime(new DateTime(end)).setTimeZone("UTC"));
+                if (e % 10 == 9) {
+                    event.setRecurrence(new ArrayList<>(List.of("RRULE:FREQ=WEEKLY;COUNT=" + (4 + random.nextInt(20)))));
+                }
+                calendar.insert(event);
+            }
+            seeded.put(entry.getId(), calendar);
+        }
+        LOG.infof("Calendar API simulator seeded with %d calendar(s) of %d event(s)", calendarCount, eventsPerCalendar);
+        return seeded;
+    }
+
+    private String newId() {
+        // Base32hex like the IDs Google generates
+        StringBuilder id = new StringBuilder(26);
+        for (int i = 0; i < 26; i++) {
+            id.append("0123456789abcdefghijklmnopqrstuv".charAt(ids.nextInt(32)));
+        }
+        return id.toString();
+    }
+
+    // The ETag is derived from the body, so an unchanged answer revalidates with 304
+    private Response json(GenericJson value) throws IOException {
+        String body = jsonFactory.toString(value);
+        return new Response(200, JSON, body, Map.of("ETag", "\"" + Integer.toHexString(body.hashCode()) + "\""));
+    }
+
+    private Response notFound() {
+        return error(404, "global", "notFound", "Not Found");
+    }
+
+    private Response error(int status, String domain, String reason, String message) {
+        GoogleJsonError.ErrorInfo info = new GoogleJsonError.ErrorInfo();
+        info.setDomain(domain);
+        info.setReason(reason);
+        info.setMessage(message);
+        GoogleJsonError error = new GoogleJsonError();
+        error.setCode(status);
+        error.setMessage(message);
+        error.setErrors(List.of(info));
+        GoogleJsonErrorContainer container = new GoogleJsonErrorContainer();
+        container.setError(error);
+        try {
+            return new Response(status, JSON, jsonFactory.toString(container), Map.of());
+        } catch (IOException e) {
+            return new Response(status, "text/plain", message, Map.of());
+        }
+    }
+
+    private static boolean matches(Event event, String needle) {
+        return contains(event.getSummary(), needle) || contains(event.getDescription(), needle)
+                || contains(event.getLocation(), needle);
+    }
+
+    private static boolean contains(String text, String needle) {
+        return text != null && text.toLowerCase(Locale.ROOT).contains(needle);
+    }
+
+    private static String capitalize(String word) {
+        return Character.toUpperCase(word.charAt(0)) + word.substring(1);
+    }
+
+    private static <T> List<T> slice(List<T> items, int from, int size) {
+        return new ArrayList<>(items.subList(Math.min(from, items.size()), Math.min(from + size, items.size())));
+    }
+
+    private static int offset(String pageToken) {
+        if (pageToken == null || pageToken.isEmpty()) {
+            return 0;
+        }
+        try {
+            return Integer.parseInt(pageToken.substring(1));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid page token.");
+        }
+    }
+
+    private static int pageSize(String maxResults, int defaultSize) {
+        return maxResults != null ? Math.max(1, Math.min(Integer.parseInt(maxResults), 2500)) : defaultSize;
+    }
+
+    private static long syncVersion(String syncToken) {
+        try {
+            return syncToken.startsWith("s") ? Long.parseLong(syncToken.substring(1)) : -1;
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private static Map<String, String> parseQuery(String query) {
+        Map<String, String> params = new HashMap<>();
+        if (query == null || query.isEmpty()) {
+            return params;
+        }
+        for (String pair : query.split("&")) {
+            int equals = pair.indexOf('=');
+            String name = URLDecoder.decode(equals >= 0 ? pair.substring(0, equals) : pair, StandardCharsets.UTF_8);
+            String value = equals >= 0 ? URLDecoder.decode(pair.substring(equals + 1), StandardCharsets.UTF_8) : "";
+            params.putIfAbsent(name, value);
+        }
+        return params;
+    }
+
+    private static String boundary(String contentType) {
+        if (contentType == null) {
+            return null;
+        }
+        for (String parameter : contentType.split(";")) {
+            String trimmed = parameter.trim();
+            if (trimmed.startsWith("boundary=")) {
+                return trimmed.substring("boundary=".length()).replace("\"", "");
+            }
+        }
+        return null;
+    }
+
+    // Splits at the first blank line into head and body
+    private static String[] splitHead(String message) {
+        int crlf = message.indexOf("\r\n\r\n");
+        int lf = message.indexOf("\n\n");
+        if (crlf >= 0 && (lf < 0 || crlf < lf)) {
+            return new String[]{message.substring(0, crlf), message.substring(crlf + 4)};
+        }
+        if (lf >= 0) {
+            return new String[]{message.substring(0, lf), message.substring(lf + 2)};
+        }
+        return new String[]{message, ""};
+    }
+
+    private static String reason(int status) {
+        switch (status) {
+            case 200:
+                return "OK";
+            case 204:
+                return "No Content";
+            case 304:
+                return "Not Modified";
+            case 400:
+                return "Bad Request";
+            case 403:
+                return "Forbidden";
+            case 404:
+                return "Not Found";
+            case 409:
+                return "Conflict";
+            case 410:
+                return "Gone";
+            case 429:
+                return "Too Many Requests";
+            default:
+                return "Error";
+        }
+    }
+
+    public record Response(int status, String contentType, String body, Map<String, String> headers) {
+    }
+}
@@ -0,0 +1,285 @@
+package org.acme.simulator;
+
+import com.google.api.client.util.DateTime;
+import com.google.api.services.calendar.model.CalendarListEntry;
+import com.google.api.services.calendar.model.Event;
+import com.google.api.services.calendar.model.EventDateTime;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+// Events of one simulated calendar. Every change bumps the calendar version and stamps the
+// event with it, so a sync token is just the version it was issued at. Deleted events stay as
+// cancelled tombstones for incremental syncs. Recurring events are expanded from the first
+// RRULE line (FREQ, INTERVAL, COUNT and UNTIL; BYDAY and the like are not simulated).
+final class SimulatedCalendar {
+    static final int MAX_INSTANCES = 1000;
+    private static final DateTimeFormatter TIMED_SUFFIX = DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmss'Z'");
+    private static final DateTimeFormatter DATE_SUFFIX = DateTimeFormatter.ofPattern("yyyyMMdd");
+
+    private final CalendarListEntry entry;
+    // Insertion order is the unordered list order
+    private final Map<String, Stored> events = new LinkedHashMap<>();
+    private long version;
+
+    SimulatedCalendar(CalendarListEntry entry) {
+        this.entry = entry;
+    }
+
+    CalendarListEntry getEntry() {
+        return entry;
+    }
+
+    synchronized long getVersion() {
+        return version;
+    }
+
+    synchronized Event get(String eventId) {
+        Stored stored = events.get(eventId);
+        if (stored != null) {
+            return stored.event;
+        }
+        // Instances are not stored unless changed; derive them from their series
+        int separator = eventId.lastIndexOf('_');
+        if (separator > 0) {
+            Stored series = events.get(eventId.substring(0, separator));
+            if (series != null && !isCancelled(series.event)) {
+                for (Event instance : expand(series.event)) {
+                    if (instance.getId().equals(eventId)) {
+                        return instance;
+                    }
+                }
+            }
+        }
+        return null;
+    }
+
+    // Stores a new event; false if the ID was ever used in this calendar
+    synchronized boolean insert(Event event) {
+        if (events.containsKey(event.getId())) {
+            return false;
+        }
+        DateTime now = new DateTime(System.currentTimeMillis());
+        event.setStatus(event.getStatus() != null ? event.getStatus() : "confirmed")
+                .setCreated(now)
+                .setUpdated(now)
+                .setICalUID(event.getId() + "@simulator")
+                .setEtag("\"" + (version + 1) + "\"");
+        events.put(event.getId(), new Stored(event, ++version));
+        return true;
+    }
+
+    synchronized void update(Event event) {
+        event.setUpdated(new DateTime(System.currentTimeMillis())).setEtag("\"" + (version + 1) + "\"");
+        events.put(event.getId(), new Stored(event, ++version));
+    }
+
+    // Cancels an event, or a single instance of a series; the tombstone stays for sync
+    synchronized void delete(Event event) {
+        Event tombstone = event.clone().setStatus("cancelled");
+        events.put(event.getId(), new Stored(tombstone, ++version));
+    }
+
+    static boolean isCancelled(Event event) {
+        return "cancelled".equals(event.getStatus());
+    }
+
+    // Live events, with series expanded into instances when singleEvents is set
+    synchronized List<Event> live(boolean singleEvents) {
+        List<Event> result = new ArrayList<>();
+        for (Stored stored : events.values()) {
+            Event event = stored.event;
+            if (isCancelled(event) || event.getRecurringEventId() != null) {
+                continue;
+            }
+            if (singleEvents && event.getRecurrence() != null) {
+                result.addAll(expand(event));
+            } else {
+                result.add(event);
+            }
+        }
+        return result;
+    }
+
+    // Everything changed after the given version, tombstones included
+    synchronized List<Event> changedSince(long since, boolean singleEvents) {
+        List<Event> result = new ArrayList<>();
+        for (Stored stored : events.values()) {
+            if (stored.version <= since) {
+                continue;
+            }
+            Event event = stored.event;
+            if (singleEvents && event.getRecurrence() != null) {
+                if (isCancelled(event)) {
+                    for (Event instance : expandAll(event)) {
+                        result.add(instance.setStatus("cancelled"));
+                    }
+                } else {
+                    result.addAll(expand(event));
+                }
+            } else if (!singleEvents || event.getRecurringEventId() == null || isCancelled(event)) {
+                result.add(event);
+            }
+        }
+        return result;
+    }
+
+    // Instances of a series, minus the ones cancelled individually
+    synchronized List<Event> expand(Event series) {
+        List<Event> instances = expandAll(series);
+        instances.removeIf(instance -> {
+            Stored override = events.get(instance.getId());
+            return override != null && isCancelled(override.event);
+        });
+        return instances;
+    }
+
+    static void sortByStart(List<Event> events) {
+        events.sort(Comparator.comparingLong(SimulatedCalendar::startMillis));
+    }
+
+    static long startMillis(Event event) {
+        return millis(event.getStart());
+    }
+
+    static long endMillis(Event event) {
+        return millis(event.getEnd());
+    }
+
+    private static long millis(EventDateTime time) {
+        if (time == null) {
+            return 0;
+        }
+        return time.getDateTime() != null ? time.getDateTime().getValue() : time.getDate().getValue();
+    }
+
+    private static List<Event> expandAll(Event series) {
+        List<Event> instances = new ArrayList<>();
+        if (series.getRecurrence() == null) {
+            instances.add(series);
+            return instances;
+        }
+        Rule rule = Rule.parse(series.getRecurrence());
+        if (rule == null) {
+            instances.add(series);
+            return instances;
+        }
+        boolean allDay = series.getStart().getDate() != null;
+        long duration = endMillis(series) - startMillis(series);
+        String zone = series.getStart().getTimeZone();
+        ZoneId zoneId = zone != null ? ZoneId.of(zone) : ZoneOffset.UTC;
+        ZonedDateTime first = allDay
+                ? LocalDate.parse(series.getStart().getDate().toStringRfc3339()).atStartOfDay(ZoneOffset.UTC)
+                : Instant.ofEpochMilli(series.getStart().getDateTime().getValue()).atZone(zoneId);
+        // Open-ended series are expanded two years ahead
+        long horizon = rule.until != null ? rule.until : first.plusYears(2).toInstant().toEpochMilli();
+        int count = rule.count != null ? Math.min(rule.count, MAX_INSTANCES) : MAX_INSTANCES;
+        for (int n = 0; instances.size() < count; n++) {
+            ZonedDateTime start = first.plus((long) n * rule.interval, rule.unit);
+            long startMillis = start.toInstant().toEpochMilli();
+            if (startMillis > horizon) {
+                break;
+            }
+            Event instance = series.clone().setRecurrence(null).setRecurringEventId(series.getId());
+            if (allDay) {
+                DateTime date = new DateTime(true, startMillis, 0);
+                instance.setId(series.getId() + "_" + DATE_SUFFIX.format(start))
+                        .setOriginalStartTime(new EventDateTime().setDate(date))
+                        .setStart(new EventDateTime().setDate(date))
+                        .setEnd(new EventDateTime().setDate(new DateTime(true, startMillis + duration, 0)));
+            } else {
+                int shift = start.getOffset().getTotalSeconds() / 60;
+                DateTime time = new DateTime(startMillis, shift);
+                instance.setId(series.getId() + "_" + TIMED_SUFFIX.format(start.withZoneSameInstant(ZoneOffset.UTC)))
+                        .setOriginalStartTime(new EventDateTime().setDateTime(time).setTimeZone(zone))
+                        .setStart(new EventDateTime().setDateTime(time).setTimeZone(zone))
+                        .setEnd(new EventDateTime().setDateTime(new DateTime(startMillis + duration, shift)).setTimeZone(zone));
+            }
+            instances.add(instance);
+        }
+        return instances;
+    }
+
+    private static final class Stored {
+        final Event event;
+        final long version;
+
+        Stored(Event event, long version) {
+            this.event = event;
+            this.version = version;
+        }
+    }
+
+    private static final class Rule {
+        ChronoUnit unit;
+        int interval = 1;
+        Integer count;
+        Long until;
+
+        static Rule parse(List<String> recurrence) {
+            for (String line : recurrence) {
+                if (!line.startsWith("RRULE:")) {
+                    continue;
+                }
+                Rule rule = new Rule();
+                for (String part : line.substring("RRULE:".length()).split(";")) {
+                    String[] pair = part.split("=", 2);
+                    if (pair.length < 2) {
+                        continue;
+                    }
+                    switch (pair[0].toUpperCase(Locale.ROOT)) {
+                        case "FREQ":
+                            rule.unit = unit(pair[1].toUpperCase(Locale.ROOT));
+                            break;
+                        case "INTERVAL":
+                            rule.interval = Integer.parseInt(pair[1]);
+                            break;
+                        case "COUNT":
+                            rule.count = Integer.parseInt(pair[1]);
+                            break;
+                        case "UNTIL":
+                            rule.until = until(pair[1]);
+                            break;
+                        default:
+                            break;
+                    }
+                }
+                return rule.unit != null ? rule : null;
+            }
+            return null;
+        }
+
+        private static ChronoUnit unit(String frequency) {
+            switch (frequency) {
+                case "DAILY":
+                    return ChronoUnit.DAYS;
+                case "WEEKLY":
+                    return ChronoUnit.WEEKS;
+                case "MONTHLY":
+                    return ChronoUnit.MONTHS;
+                case "YEARLY":
+                    return ChronoUnit.YEARS;
+                default:
+                    return null;
+            }
+        }
+
+        private static long until(String value) {
+            if (value.length() == 8) {
+                return LocalDate.parse(value, DATE_SUFFIX).plusDays(1).atStartOfDay(ZoneOffset.UTC).toInstant().toEpochMilli() - 1;
+            }
+            return ZonedDateTime.parse(value, TIMED_SUFFIX.withZone(ZoneOffset.UTC)).toInstant().toEpochMilli();
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package org.acme.simulator;
+
+import com.google.api.services.calendar.model.Channel;
+import org.jboss.logging.Logger;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Push notification channels of the simulator. Like Google, it posts a "sync" message when a
+// channel opens and an "exists" message after changes to the watched resource, with the
+// X-Goog-* headers and no body. Changes arriving within the delay are announced once.
+final class SimulatedChannels {
+    private static final Logger LOG = Logger.getLogger(SimulatedChannels.class);
+    private static final long DEFAULT_TTL_SECONDS = Duration.ofDays(7).toSeconds();
+    private static final long MAX_TTL_SECONDS = Duration.ofDays(30).toSeconds();
+    private static final Executor DELAY = CompletableFuture.delayedExecutor(50, TimeUnit.MILLISECONDS);
+
+    // Channel ID -> subscription
+    private final Map<String, Subscription> subscriptions = new ConcurrentHashMap<>();
+    private volatile HttpClient client;
+
+    // Opens a channel on the resource (a calendar ID, or "calendarList") and returns its description
+    Channel open(String resource, String resourceUri, Channel request) {
+        if (request.getId() == null || request.getAddress() == null) {
+            throw new IllegalArgumentException("Channel id and address are required.");
+        }
+        if (!"web_hook".equals(request.getType()) && !"webhook".equals(request.getType())) {
+            throw new IllegalArgumentException("Channel type must be web_hook.");
+        }
+        URI address = URI.create(request.getAddress());
+        long ttl = DEFAULT_TTL_SECONDS;
+        if (request.getParams() != null && request.getParams().get("ttl") != null) {
+            try {
+                ttl = Math.max(1, Math.min(Long.parseLong(request.getParams().get("ttl")), MAX_TTL_SECONDS));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid ttl value.");
+            }
+        }
+        Subscription subscription = new Subscription(request.getId(), resource, resourceUri, address, request.getToken(),
+                UUID.randomUUID().toString().replace("-", ""), System.currentTimeMillis() + ttl * 1000);
+        if (subscriptions.putIfAbsent(subscription.id, subscription) != null) {
+            throw new IllegalArgumentException("Channel id " + subscription.id + " not unique.");
+        }
+        // After the answer, so the receiver knows the channel by then
+        CompletableFuture.runAsync(() -> send(subscription, "sync"), DELAY);
+        return new Channel()
+                .setKind("api#channel")
+                .setId(subscription.id)
+                .setResourceId(subscription.resourceId)
+                .setResourceUri(resourceUri)
+                .setToken(subscription.token)
+                .setExpiration(subscription.expiration);
+    }
+
+    boolean stop(Channel request) {
+        Subscription subscription = request.getId() != null ? subscriptions.get(request.getId()) : null;
+        if (subscription == null || (request.getResourceId() != null && !request.getResourceId().equals(subscription.resourceId))) {
+            return false;
+        }
+        return subscriptions.remove(subscription.id, subscription);
+    }
+
+    void changed(String resource) {
+        long now = System.currentTimeMillis();
+        for (Subscription subscription : subscriptions.values()) {
+            if (subscription.expiration <= now) {
+                subscriptions.remove(subscription.id, subscription);
+            } else if (subscription.resource.equals(resource) && subscription.pending.compareAndSet(false, true)) {
+                CompletableFuture.runAsync(() -> {
+                    subscription.pending.set(false);
+                    send(subscription, "exists");
+                }, DELAY);
+            }
+        }
+    }
+
+    private void send(Subscription subscription, String state) {
+        if (subscriptions.get(subscription.id) != subscription) {
+            return;
+        }
+        HttpRequest.Builder request = HttpRequest.newBuilder(subscription.address)
+                .timeout(Duration.ofSeconds(10))
+                .header("X-Goog-Channel-ID", subscription.id)
+                .header("X-Goog-Channel-Expiration", Long.toString(subscription.expiration))
+                .header("X-Goog-Message-Number", Long.toString(subscription.messages.incrementAndGet()))
+                .header("X-Goog-Resource-ID", subscription.resourceId)
+                .header("X-Goog-Resource-URI", subscription.resourceUri)
+                .header("X-Goog-Resource-State", state)
+                .POST(HttpRequest.BodyPublishers.noBody());
+        if (subscription.token != null) {
+            request.header("X-Goog-Channel-Token", subscription.token);
+        }
+        client().sendAsync(request.build(), HttpResponse.BodyHandlers.discarding()).whenComplete((response, error) -> {
+            if (error != null) {
+                LOG.debugf("Notification for channel %s failed: %s", subscription.id, error.getMessage());
+            } else if (response.statusCode() >= 300) {
+                LOG.debugf("Notification for channel %s answered with %d", subscription.id, response.statusCode());
+            }
+        });
+    }
+
+    private HttpClient client() {
+        HttpClient current = client;
+        if (current == null) {
+            synchronized (this) {
+                if (client == null) {
+                    client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build();
+                }
+                current = client;
+            }
+        }
+        return current;
+    }
+
+    private static final class Subscription {
+        final String id;
+        final String resource;
+        final String resourceUri;
+        final URI address;
+        final String token;
+        final String resourceId;
+        final long expiration;
+        final AtomicLong messages = new AtomicLong();
+        final AtomicBoolean pending = new AtomicBoolean();
+
+        Subscription(String id, String resource, String resourceUri, URI address, String token, String resourceId, long expiration) {
+            this.id = id;
+            this.resource = resource;
+            this.resourceUri = resourceUri;
+            this.address = address;
+            this.token = token;
+            this.resourceId = resourceId;
+            this.expiration = expiration;
+        }
+    }
+}
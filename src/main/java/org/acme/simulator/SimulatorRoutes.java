@@ -0,0 +1,50 @@
+package org.acme.simulator;
+
+import io.vertx.ext.web.Router;
+import io.vertx.ext.web.handler.BodyHandler;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+// Serves the Calendar API simulator on the application's own HTTP server. Requests are handled
+// on worker threads, since the simulator locks its state and parses and serialises whole pages,
+// and the answers are sent after the configured latency on a timer rather than by sleeping.
+@ApplicationScoped
+public class SimulatorRoutes {
+
+    @Inject
+    CalendarSimulator simulator;
+
+    void register(@Observes Router router) {
+        if (!simulator.isEnabled()) {
+            return;
+        }
+        router.route(CalendarSimulator.ROOT + "*").handler(BodyHandler.create());
+        // Unordered, so requests on one connection are not serialised behind each other
+        router.route(CalendarSimulator.ROOT + "*").blockingHandler(context -> {
+            Map<String, String> headers = new HashMap<>();
+            for (String name : new String[]{"Content-Type", "Content-Encoding", "If-None-Match"}) {
+                String value = context.request().getHeader(name);
+                if (value != null) {
+                    headers.put(name.toLowerCase(Locale.ROOT), value);
+                }
+            }
+            byte[] body = context.body() != null && context.body().buffer() != null ? context.body().buffer().getBytes() : new byte[0];
+            CalendarSimulator.Response response = simulator.handle(context.request().method().name(),
+                    context.request().path().substring(CalendarSimulator.ROOT.length()),
+                    context.request().query(), headers, body);
+            context.vertx().setTimer(Math.max(1, simulator.nextDelayMillis()), id -> {
+                context.response().setStatusCode(response.status());
+                if (response.contentType() != null) {
+                    context.response().putHeader("Content-Type", response.contentType());
+                }
+                response.headers().forEach(context.response()::putHeader);
+                context.response().end(response.body());
+            });
+        }, false);
+    }
+}
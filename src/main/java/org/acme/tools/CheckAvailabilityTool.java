@@ -0,0 +1,349 @@
+package org.acme.tools;
+
+import com.google.api.client.util.DateTime;
+import com.google.api.services.calendar.Calendar;
+import com.google.api.services.calendar.model.Event;
+import com.google.api.services.calendar.model.FreeBusyRequest;
+import com.google.api.services.calendar.model.FreeBusyRequestItem;
+import com.google.api.services.calendar.model.FreeBusyResponse;
+import com.google.api.services.calendar.model.TimePeriod;
+import io.quarkiverse.mcp.server.McpConnection;
+import io.quarkiverse.mcp.server.Tool;
+import io.quarkiverse.mcp.server.ToolArg;
+import jakarta.inject.Inject;
+import org.acme.CalendarExecutor;
+import org.acme.EventMirror;
+import org.acme.EventPager;
+import org.acme.ReadCoalescer;
+import org.acme.TenantAware;
+import org.acme.ToolTelemetry;
+import org.acme.tools.extra.CalendarSelection;
+import org.acme.tools.extra.EventIntervalIndex;
+import org.acme.tools.extra.SlotFinder;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.io.IOException;
+import java.time.DateTimeException;
+import java.time.DayOfWeek;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.TemporalAccessor;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+
+import static org.acme.tools.CreateEvent.validateDateTime;
+
+@TenantAware
+@ToolTelemetry
+public class CheckAvailabilityTool {
+    private static final int DEFAULT_SLOTS = 5;
+    private static final int MAX_QUERY_ITEMS = 50;
+    private static final int MAX_WINDOW_DAYS = 60;
+    private static final long SLOT_STEP_MILLIS = Duration.ofMinutes(15).toMillis();
+    private static final DateTimeFormatter SLOT_TIME = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mmXXX");
+    private static final DateTimeFormatter CLOCK_TIME = DateTimeFormatter.ofPattern("HH:mm");
+    private static final DateTimeFormatter EVENT_TIME = DateTimeFormatter.ISO_OFFSET_DATE_TIME;
+
+    @Inject
+    Calendar calendarService;
+
+    @Inject
+    SelectCalendarTool selectCalendarTool;
+
+    @Inject
+    CalendarExecutor calendarExecutor;
+
+    @Inject
+    ReadCoalescer readCoalescer;
+
+    @Inject
+    EventMirror eventMirror;
+
+    @ConfigProperty(name = "calendar.events.page-size", defaultValue = "250")
+    int pageSize;
+
+    @Tool(description = "Checks whether a time slot is free in the specified Google Calendar and lists the events that conflict with it. Use this before creating an event to avoid double booking.")
+    public String checkAvailability(
+            @ToolArg(description = "The name of the calendar to check (e.g., 'ai test'). Supports fuzzy matching.") String calendarName,
+            @ToolArg(description = "The start date and time of the slot in ISO 8601 format (e.g., '2025-06-04T10:00:00').") String start,
+            @ToolArg(description = "The end date and time of the slot in ISO 8601 format (e.g., '2025-06-04T11:00:00').") String end,
+            McpConnection connection
+    ) {
+        try {
+            // Resolve calendarName to calendarId
+            CalendarSelection calendarSelection = selectCalendarTool.selectCalendar(calendarName);
+            String calendarId = calendarSelection.getCalendarId();
+            if (calendarId == null) {
+                throw new IllegalArgumentException(calendarSelection.getMessage());
+            }
+
+            validateDateTime(start, "start");
+            validateDateTime(end, "end");
+            long slotStart = new DateTime(start).getValue();
+            long slotEnd = new DateTime(end).getValue();
+            if (slotEnd <= slotStart) {
+                throw new IllegalArgumentException("end must be after start.");
+            }
+
+            // Fetch conflicting events
+            EventIntervalIndex index = index(calendarId, start, end);
+            List<Event> conflicts = blocking(index.overlapping(slotStart, slotEnd));
+            if (conflicts.isEmpty()) {
+                return "The slot from " + start + " to " + end + " is free in calendar " + calendarId + ".";
+            }
+
+            StringBuilder response = new StringBuilder("The slot from " + start + " to " + end + " conflicts with "
+                    + conflicts.size() + " event(s) in calendar " + calendarId + ":\n");
+            for (Event event : conflicts) {
+                response.append("ID: ").append(event.getId())
+                        .append(", Summary: ").append(event.getSummary() != null ? event.getSummary() : "No summary")
+                        .append(", Start: ").append(format(EventIntervalIndex.startMillis(event, index.getZone()), index.getZone(), EVENT_TIME))
+                        .append(", End: ").append(format(EventIntervalIndex.endMillis(event, index.getZone()), index.getZone(), EVENT_TIME))
+                        .append("\n");
+            }
+            return response.toString();
+        } catch (IllegalArgumentException e) {
+            throw new RuntimeException("Invalid input: " + e.getMessage());
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to connect to Google Calendar API: " + e.getMessage());
+        } catch (Exception e) {
+            throw new RuntimeException("Unexpected error checking availability: " + e.getMessage());
+        }
+    }
+
+    @Tool(description = "Finds free time slots shared by several calendars and attendees, using Google's free/busy information. Returns the earliest slots of the requested length within working hours. Use this instead of listing each calendar to schedule a meeting.")
+    public String findAvailableSlots(
+            @ToolArg(description = "Optional comma-separated names of the user's calendars to check (e.g., 'work, family'). Supports fuzzy matching. Defaults to the primary calendar when no attendees are given either.") String calendarNames,
+            @ToolArg(description = "Optional comma-separated email addresses of other attendees whose calendars to check (e.g., 'ana@example.com, luis@example.com'). Their free/busy information must be visible to the user.") String attendees,
+            @ToolArg(description = "The start of the search window in ISO 8601 format (e.g., '2025-06-04' or '2025-06-04T08:00:00'). Times without an offset are in timeZone.") String startDate,
+            @ToolArg(description = "The end of the search window in ISO 8601 format (e.g., '2025-06-06' for the whole of that day, or '2025-06-06T18:00:00'), at most 60 days after the start.") String endDate,
+            @ToolArg(description = "The length of the meeting in minutes (e.g., 30).") Integer durationMinutes,
+            @ToolArg(description = "The time zone for working hours and the returned slots (e.g., 'Europe/Madrid'). Defaults to 'Europe/Madrid' if not provided.") String timeZone,
+            @ToolArg(description = "Optional working hours as HH:mm-HH:mm in timeZone (e.g., '09:00-18:00', the default).") String workingHours,
+            @ToolArg(description = "Optional. Set to true to also propose slots on Saturdays and Sundays.") Boolean includeWeekends,
+            @ToolArg(description = "Optional maximum number of slots to return (default 5). Slots start every 15 minutes through each free gap.") Integer limit,
+            McpConnection connection
+    ) {
+        try {
+            if (durationMinutes == null || durationMinutes <= 0) {
+                throw new IllegalArgumentException("durationMinutes must be a positive number.");
+            }
+            if (limit != null && limit <= 0) {
+                throw new IllegalArgumentException("limit must be a positive number.");
+            }
+            if (startDate == null || startDate.isBlank() || endDate == null || endDate.isBlank()) {
+                throw new IllegalArgumentException("startDate and endDate are required.");
+            }
+            ZoneId zone;
+            try {
+                zone = ZoneId.of(timeZone != null && !timeZone.isBlank() ? timeZone.trim() : "Europe/Madrid");
+            } catch (DateTimeException e) {
+                throw new IllegalArgumentException("Unknown time zone '" + timeZone + "'.");
+            }
+            LocalTime[] hours = workingHours(workingHours);
+            // Slots that have already begun are of no use
+            long from = Math.max(instant(startDate, zone, false, "startDate"), System.currentTimeMillis());
+            long to = instant(endDate, zone, true, "endDate");
+            if (to - instant(startDate, zone, false, "startDate") > Duration.ofDays(MAX_WINDOW_DAYS).toMillis()) {
+                throw new IllegalArgumentException("the search window can be at most " + MAX_WINDOW_DAYS + " days.");
+            }
+
+            // Resolve calendar names like the other tools; attendees are used as calendar IDs
+            Set<String> ids = new LinkedHashSet<>();
+            for (String name : split(calendarNames)) {
+                CalendarSelection calendarSelection = selectCalendarTool.selectCalendar(name);
+                if (calendarSelection.getCalendarId() == null) {
+                    throw new IllegalArgumentException(calendarSelection.getMessage());
+                }
+                ids.add(calendarSelection.getCalendarId());
+            }
+            ids.addAll(split(attendees));
+            if (ids.isEmpty()) {
+                ids.add("primary");
+            }
+            String window = "between " + format(from, zone, SLOT_TIME) + " and " + format(to, zone, SLOT_TIME)
+                    + " (working hours " + hours[0] + "-" + hours[1] + " " + zone.getId()
+                    + (Boolean.TRUE.equals(includeWeekends) ? ", every day)" : ", Monday to Friday)");
+            if (to <= from) {
+                return "No free slot of " + durationMinutes + " minute(s) " + window + ": the window is over.";
+            }
+
+            // One free/busy query per group of calendars, all sent at once
+            List<String> idList = new ArrayList<>(ids);
+            List<Callable<FreeBusyResponse>> queries = new ArrayList<>();
+            for (int i = 0; i < idList.size(); i += MAX_QUERY_ITEMS) {
+                List<FreeBusyRequestItem> items = new ArrayList<>();
+                for (String id : idList.subList(i, Math.min(idList.size(), i + MAX_QUERY_ITEMS))) {
+                    items.add(new FreeBusyRequestItem().setId(id));
+                }
+                FreeBusyRequest request = new FreeBusyRequest()
+                        .setTimeMin(new DateTime(from))
+                        .setTimeMax(new DateTime(to))
+                        .setItems(items);
+                queries.add(() -> calendarService.freebusy().query(request).execute());
+            }
+            SlotFinder finder = new SlotFinder();
+            Map<String, String> failures = new LinkedHashMap<>();
+            for (FreeBusyResponse response : calendarExecutor.invokeAll("freebusy.query", queries)) {
+                if (response.getCalendars() == null) {
+                    continue;
+                }
+                response.getCalendars().forEach((id, calendar) -> {
+                    if (calendar.getErrors() != null && !calendar.getErrors().isEmpty()) {
+                        failures.put(id, calendar.getErrors().get(0).getReason());
+                        return;
+                    }
+                    if (calendar.getBusy() != null) {
+                        for (TimePeriod period : calendar.getBusy()) {
+                            finder.addBusy(period.getStart().getValue(), period.getEnd().getValue());
+                        }
+                    }
+                });
+            }
+
+            long[] windowStarts = new long[(int) Duration.ofMillis(to - from).toDays() + 2];
+            long[] windowEnds = new long[windowStarts.length];
+            int windows = workingWindows(from, to, zone, hours, Boolean.TRUE.equals(includeWeekends), windowStarts, windowEnds);
+            List<SlotFinder.Slot> slots = finder.find(windowStarts, windowEnds, windows,
+                    Duration.ofMinutes(durationMinutes).toMillis(), SLOT_STEP_MILLIS, limit != null ? limit : DEFAULT_SLOTS);
+
+            int checked = ids.size() - failures.size();
+            StringBuilder response = new StringBuilder();
+            if (slots.isEmpty()) {
+                response.append("No free slot of ").append(durationMinutes).append(" minute(s) for ").append(checked)
+                        .append(" calendar(s) ").append(window).append(".\n");
+            } else {
+                response.append("Found ").append(slots.size()).append(" free slot(s) of ").append(durationMinutes)
+                        .append(" minute(s) for ").append(checked).append(" calendar(s) ").append(window).append(":\n");
+                for (int i = 0; i < slots.size(); i++) {
+                    SlotFinder.Slot slot = slots.get(i);
+                    response.append(i + 1).append(". ").append(format(slot.start(), zone, SLOT_TIME))
+                            .append(" to ").append(format(slot.end(), zone, SLOT_TIME))
+                            .append(", free until ").append(format(slot.freeUntil(), zone, CLOCK_TIME)).append("\n");
+                }
+            }
+            if (!failures.isEmpty()) {
+                response.append("Could not read the availability of ").append(failures.size())
+                        .append(" calendar(s), so they were left out:\n");
+                failures.forEach((id, reason) -> response.append(id).append(": ").append(reason).append("\n"));
+            }
+            return response.toString();
+        } catch (IllegalArgumentException e) {
+            throw new RuntimeException("Invalid input: " + e.getMessage());
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to connect to Google Calendar API: " + e.getMessage());
+        } catch (Exception e) {
+            throw new RuntimeException("Unexpected error finding available slots: " + e.getMessage());
+        }
+    }
+
+    // Drops events that do not occupy time: cancelled ones and those marked as "available"
+    public static List<Event> blocking(List<Event> events) {
+        List<Event> result = new ArrayList<>(events.size());
+        for (Event event : events) {
+            if (!"transparent".equals(event.getTransparency()) && !"cancelled".equals(event.getStatus())) {
+                result.add(event);
+            }
+        }
+        return result;
+    }
+
+    // The mirror already holds an index; otherwise fetch the window once and index it, with
+    // all-day events placed in the calendar's zone as the mirror does
+    private EventIntervalIndex index(String calendarId, String start, String end) throws IOException {
+        if (eventMirror.isEnabled()) {
+            return eventMirror.index(calendarId);
+        }
+        Calendar.Events.List request = calendarService.events().list(calendarId)
+                .setSingleEvents(true)
+                .setTimeMin(new DateTime(start))
+                .setTimeMax(new DateTime(end));
+        EventPager pager = new EventPager(request, pageSize, "nextPageToken,timeZone,items(id,summary,status,transparency,start,end)",
+                null, calendarExecutor.asExecutor("events.list"), readCoalescer);
+        List<Event> events = new ArrayList<>();
+        while (pager.hasNext()) {
+            events.add(pager.next());
+        }
+        return new EventIntervalIndex(events, EventIntervalIndex.zone(pager.getTimeZone()));
+    }
+
+    // The working part of each day in [from, to), in order; returns how many windows were written
+    private static int workingWindows(long from, long to, ZoneId zone, LocalTime[] hours, boolean weekends,
+                                      long[] starts, long[] ends) {
+        int count = 0;
+        LocalDate last = Instant.ofEpochMilli(to).atZone(zone).toLocalDate();
+        for (LocalDate day = Instant.ofEpochMilli(from).atZone(zone).toLocalDate(); !day.isAfter(last); day = day.plusDays(1)) {
+            if (!weekends && (day.getDayOfWeek() == DayOfWeek.SATURDAY || day.getDayOfWeek() == DayOfWeek.SUNDAY)) {
+                continue;
+            }
+            long start = Math.max(from, day.atTime(hours[0]).atZone(zone).toInstant().toEpochMilli());
+            long end = Math.min(to, day.atTime(hours[1]).atZone(zone).toInstant().toEpochMilli());
+            if (end > start && count < starts.length) {
+                starts[count] = start;
+                ends[count] = end;
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private static LocalTime[] workingHours(String workingHours) {
+        String value = workingHours == null || workingHours.isBlank() ? "09:00-18:00" : workingHours.trim();
+        String[] parts = value.split("-");
+        try {
+            LocalTime start = LocalTime.parse(parts[0].trim());
+            LocalTime end = LocalTime.parse(parts[parts.length - 1].trim());
+            if (parts.length != 2 || !end.isAfter(start)) {
+                throw new IllegalArgumentException("workingHours must end after they start, e.g. '09:00-18:00'.");
+            }
+            return new LocalTime[]{start, end};
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("workingHours must look like '09:00-18:00'.");
+        }
+    }
+
+    // ISO 8601 date or date-time in epoch millis; values without an offset are read in the zone. A
+    // date alone is the start of that day, or its end (the next midnight) for the end of a range.
+    private static long instant(String value, ZoneId zone, boolean endOfDay, String fieldName) {
+        try {
+            if (value.trim().length() == 10) {
+                LocalDate date = LocalDate.parse(value.trim());
+                return (endOfDay ? date.plusDays(1) : date).atStartOfDay(zone).toInstant().toEpochMilli();
+            }
+            TemporalAccessor parsed = DateTimeFormatter.ISO_DATE_TIME.parseBest(value.trim(), OffsetDateTime::from, LocalDateTime::from);
+            return parsed instanceof OffsetDateTime offset
+                    ? offset.toInstant().toEpochMilli()
+                    : ((LocalDateTime) parsed).atZone(zone).toInstant().toEpochMilli();
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException(fieldName + " must be in ISO 8601 format (e.g., '2025-06-04T10:00:00').");
+        }
+    }
+
+    private static String format(long millis, ZoneId zone, DateTimeFormatter formatter) {
+        return formatter.format(Instant.ofEpochMilli(millis).atZone(zone));
+    }
+
+    private static List<String> split(String values) {
+        List<String> result = new ArrayList<>();
+        if (values != null) {
+            for (String value : values.split(",")) {
+                if (!value.trim().isEmpty()) {
+                    result.add(value.trim());
+                }
+            }
+        }
+        return result;
+    }
+}
@@ -1,19 +1,53 @@
 package org.acme.tools;
 
+import com.google.api.client.json.JsonFactory;
 import com.google.api.client.util.DateTime;
 import com.google.api.services.calendar.Calendar;
 import com.google.api.services.calendar.model.Event;
 import com.google.api.services.calendar.model.EventDateTime;
+import com.google.api.services.calendar.model.Events;
+import io.quarkiverse.mcp.server.McpConnection;
 import io.quarkiverse.mcp.server.Tool;
 import io.quarkiverse.mcp.server.ToolArg;
 import jakarta.inject.Inject;
+import org.acme.BulkMutationEngine;
+import org.acme.CalendarExecutor;
+import org.acme.EventMirror;
+import org.acme.ReadCoalescer;
+import org.acme.TenantAware;
+import org.acme.ToolTelemetry;
+import org.acme.WriteBehind;
+import org.acme.tools.extra.BulkResult;
 import org.acme.tools.extra.CalendarSelection;
+import org.acme.tools.extra.EventInput;
+import org.acme.tools.extra.EventIntervalIndex;
 import org.acme.tools.extra.EventResponse;
+import org.acme.tools.extra.MutationOutcome;
+import org.acme.tools.extra.QueuedMutation;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
 
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
 
 
+@TenantAware
+@ToolTelemetry
 public class CreateEvent {
+    private static final int MAX_BATCH_EVENTS = 1000;
+    private static final int MAX_CONFLICTS = 50;
+    private static final String BASE32HEX = "0123456789abcdefghijklmnopqrstuv";
+    private static final Pattern EVENT_ID = Pattern.compile("[a-v0-9]{5,1024}");
+    private static final SecureRandom RANDOM = new SecureRandom();
 
     @Inject
     Calendar calendarService;
@@ -21,6 +55,30 @@ public class CreateEvent {
     @Inject
     SelectCalendarTool selectCalendarTool;
 
+    @Inject
+    EventMirror eventMirror;
+
+    @Inject
+    BulkMutationEngine bulkMutationEngine;
+
+    @Inject
+    CalendarExecutor calendarExecutor;
+
+    @Inject
+    JsonFactory jsonFactory;
+
+    @Inject
+    ReadCoalescer readCoalescer;
+
+    @Inject
+    WriteBehind writeBehind;
+
+    // Read as an enum so a misspelt value stops the application at startup
+    @ConfigProperty(name = "calendar.create.conflict-mode", defaultValue = "off")
+    ConflictMode conflictMode;
+
+    enum ConflictMode { OFF, FLAG, REJECT }
+
     @Tool(description = "Creates a new event in the specified calendar and returns its ID.")
     public EventResponse createEvent(
             @ToolArg(description = "The name of the calendar to create the event in (e.g., 'ai test'). Supports fuzzy matching.") String calendarName,
@@ -29,7 +87,8 @@ public class CreateEvent {
             @ToolArg(description = "A detailed description of the event (e.g., agenda or notes).") String description,
             @ToolArg(description = "The start date and time in ISO 8601 format (e.g., '2025-06-04T10:00:00').") String start,
             @ToolArg(description = "The end date and time in ISO 8601 format (e.g., '2025-06-04T11:00:00').") String end,
-            @ToolArg(description = "The time zone for the event (e.g., 'Europe/Madrid'). Defaults to 'Europe/Madrid' if not provided.") String timeZone
+            @ToolArg(description = "The time zone for the event (e.g., 'Europe/Madrid'). Defaults to 'Europe/Madrid' if not provided.") String timeZone,
+            McpConnection connection
     ) {
         try {
             // Resolve calendarName to calendarId
@@ -57,10 +116,33 @@ public class CreateEvent {
                     .setTimeZone(timeZone);
             event.setEnd(endTime);
 
+            // Check for overlapping events, in the mirrored calendar when there is one
+            String warning = "";
+            if (conflictMode != ConflictMode.OFF) {
+                List<Event> conflicts = findConflicts(calendarId, start, end);
+                if (!conflicts.isEmpty()) {
+                    String ids = conflicts.stream().map(Event::getId).collect(Collectors.joining(", "));
+                    if (conflictMode == ConflictMode.REJECT) {
+                        throw new IllegalArgumentException("The event overlaps existing event(s): " + ids + ".");
+                    }
+                    warning = ". Warning: overlaps existing event(s): " + ids;
+                }
+            }
+
+            // In write-behind mode the event gets its final ID now and is sent in the background
+            if (writeBehind.isEnabled()) {
+                event.setId(randomId());
+                QueuedMutation mutation = writeBehind.create(calendarId, event);
+                return new EventResponse("Event queued for creation in calendar: " + calendarId + " as mutation "
+                        + mutation.getId() + "; check its progress with getMutationStatus" + warning, event.getId());
+            }
+
             // Insert the event into the selected calendar
             Event createdEvent = calendarService.events().insert(calendarId, event).execute();
+            eventMirror.put(calendarId, createdEvent);
+            readCoalescer.invalidate(calendarId);
             String eventId = createdEvent.getId();
-            return new EventResponse("Event created successfully in calendar: " + calendarId, eventId);
+            return new EventResponse("Event created successfully in calendar: " + calendarId + warning, eventId);
         } catch (IllegalArgumentException e) {
             throw new RuntimeException("Invalid input: " + e.getMessage());
         } catch (IOException e) {
@@ -70,6 +152,242 @@ public class CreateEvent {
         }
     }
 
+    @Tool(description = "Creates many events in the specified calendar in one call, e.g. to import a schedule. All events are validated before any is created, and retrying the same call never creates duplicates. Returns the ID and result of each event.")
+    public String createEvents(
+            @ToolArg(description = "The name of the calendar to create the events in (e.g., 'ai test'). Supports fuzzy matching.") String calendarName,
+            @ToolArg(description = "JSON array of events, at most 1000. Each object has start and end (ISO 8601 date-time, or date for all-day events) and optional summary, location, description, timeZone, recurrence (list of RRULE/EXDATE lines) and id (5-1024 characters from a-v and 0-9; derived from the event's contents when missing).") String events,
+            @ToolArg(description = "The default time zone for events without one (e.g., 'Europe/Madrid').") String timeZone,
+            @ToolArg(description = "Optional. Set to true to only validate the events and show what would be created.") Boolean dryRun,
+            McpConnection connection
+    ) {
+        try {
+            // Parse and validate everything before anything is sent
+            List<EventInput> inputs = parseEvents(events);
+            CalendarSelection calendarSelection = selectCalendarTool.selectCalendar(calendarName);
+            String calendarId = calendarSelection.getCalendarId();
+            if (calendarId == null) {
+                throw new IllegalArgumentException(calendarSelection.getMessage());
+            }
+            List<String> errors = new ArrayList<>();
+            Map<String, Integer> firstById = new HashMap<>();
+            List<Event> toCreate = new ArrayList<>();
+            StringBuilder skipped = new StringBuilder();
+            for (int i = 0; i < inputs.size(); i++) {
+                try {
+                    Event event = toEvent(calendarId, inputs.get(i), timeZone);
+                    Integer first = firstById.putIfAbsent(event.getId(), i);
+                    if (first != null) {
+                        skipped.append("Item ").append(i + 1).append(" skipped, same event as item ").append(first + 1).append(".\n");
+                    } else {
+                        toCreate.add(event);
+                    }
+                } catch (IllegalArgumentException e) {
+                    errors.add("item " + (i + 1) + ": " + e.getMessage());
+                }
+            }
+            if (!errors.isEmpty()) {
+                throw new IllegalArgumentException("no events were created.\n" + String.join("\n", errors));
+            }
+
+            if (Boolean.TRUE.equals(dryRun)) {
+                StringBuilder response = new StringBuilder("Validated ").append(toCreate.size())
+                        .append(" event(s) for calendar ").append(calendarId).append("; nothing was created:\n");
+                for (Event event : toCreate) {
+                    ListEventsTool.appendEvent(response, event);
+                    if (event.getRecurrence() != null) {
+                        response.append("  Repeats: ").append(String.join("; ", event.getRecurrence())).append("\n");
+                    }
+                }
+                return response.append(skipped).toString();
+            }
+
+            // Inserts go out as HTTP batches; an ID that already exists means an earlier attempt succeeded
+            List<BulkMutationEngine.Mutation> mutations = new ArrayList<>(toCreate.size());
+            for (Event event : toCreate) {
+                mutations.add(bulkMutationEngine.insert(calendarId, event));
+            }
+            BulkResult result = bulkMutationEngine.execute(mutations);
+            Map<String, MutationOutcome> restored = restoreDeleted(calendarId, toCreate, result);
+
+            boolean recurring = false;
+            StringBuilder response = new StringBuilder("Results for ").append(toCreate.size())
+                    .append(" event(s) in calendar ").append(calendarId).append(":\n");
+            for (int i = 0; i < toCreate.size(); i++) {
+                Event event = toCreate.get(i);
+                MutationOutcome outcome = restored.getOrDefault(event.getId(), result.getOutcomes().get(i));
+                response.append("ID: ").append(event.getId())
+                        .append(", Summary: ").append(event.getSummary() != null ? event.getSummary() : "No summary")
+                        .append(", Result: ");
+                if (!outcome.isSucceeded()) {
+                    response.append("failed, ").append(outcome.getMessage())
+                            .append(outcome.getStatusCode() > 0 ? " (HTTP " + outcome.getStatusCode() + ")" : "");
+                } else if (outcome.getStatusCode() == 409) {
+                    response.append("already existed");
+                } else {
+                    response.append(restored.containsKey(event.getId()) ? "restored" : "created");
+                    if (event.getRecurrence() != null) {
+                        recurring = true;
+                    } else {
+                        eventMirror.put(calendarId, event);
+                    }
+                }
+                response.append("\n");
+            }
+            if (recurring) {
+                // The mirror holds expanded instances, which only a sync can provide
+                eventMirror.invalidate(calendarId);
+            }
+            if (result.getSucceededCount() > 0 || !restored.isEmpty()) {
+                readCoalescer.invalidate(calendarId);
+            }
+            return response.append(skipped).toString();
+        } catch (IllegalArgumentException e) {
+            throw new RuntimeException("Invalid input: " + e.getMessage());
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to connect to Google Calendar API: " + e.getMessage());
+        } catch (Exception e) {
+            throw new RuntimeException("Unexpected error creating events: " + e.getMessage());
+        }
+    }
+
+    // Google keeps the IDs of deleted events, so an insert that fails with 409 may have hit one
+    // deleted since an earlier run rather than its own earlier attempt. Those are brought back by
+    // updating them with the new contents; events that still exist are left alone.
+    private Map<String, MutationOutcome> restoreDeleted(String calendarId, List<Event> events, BulkResult result) throws IOException {
+        List<Event> conflicting = new ArrayList<>();
+        for (int i = 0; i < events.size(); i++) {
+            MutationOutcome outcome = result.getOutcomes().get(i);
+            if (outcome.isSucceeded() && outcome.getStatusCode() == 409) {
+                conflicting.add(events.get(i));
+            }
+        }
+        if (conflicting.isEmpty()) {
+            return Map.of();
+        }
+        List<Callable<Event>> gets = new ArrayList<>(conflicting.size());
+        for (Event event : conflicting) {
+            gets.add(() -> calendarService.events().get(calendarId, event.getId()).setFields("id,status").execute());
+        }
+        List<Event> existing = calendarExecutor.invokeAll("events.get", gets);
+        List<BulkMutationEngine.Mutation> updates = new ArrayList<>();
+        for (int i = 0; i < conflicting.size(); i++) {
+            if ("cancelled".equals(existing.get(i).getStatus())) {
+                updates.add(bulkMutationEngine.update(calendarId, conflicting.get(i).clone().setStatus("confirmed")));
+            }
+        }
+        if (updates.isEmpty()) {
+            return Map.of();
+        }
+        Map<String, MutationOutcome> restored = new HashMap<>();
+        for (MutationOutcome outcome : bulkMutationEngine.execute(updates).getOutcomes()) {
+            restored.put(outcome.getKey(), outcome);
+        }
+        return restored;
+    }
+
+    private List<EventInput> parseEvents(String events) {
+        if (events == null || events.isBlank()) {
+            throw new IllegalArgumentException("events must be a JSON array of event objects.");
+        }
+        List<EventInput> inputs = new ArrayList<>();
+        try {
+            inputs.addAll(jsonFactory.createJsonParser(events).parseArrayAndClose(ArrayList.class, EventInput.class));
+        } catch (IOException | IllegalArgumentException e) {
+            throw new IllegalArgumentException("events must be a JSON array of event objects: " + e.getMessage());
+        }
+        if (inputs.isEmpty()) {
+            throw new IllegalArgumentException("events must contain at least one event.");
+        }
+        if (inputs.size() > MAX_BATCH_EVENTS) {
+            throw new IllegalArgumentException("at most " + MAX_BATCH_EVENTS + " events can be created per call.");
+        }
+        return inputs;
+    }
+
+    private static Event toEvent(String calendarId, EventInput input, String defaultTimeZone) {
+        if (input.getStart() == null || input.getEnd() == null) {
+            throw new IllegalArgumentException("start and end are required.");
+        }
+        validateDateTime(input.getStart(), "start");
+        validateDateTime(input.getEnd(), "end");
+        DateTime start = new DateTime(input.getStart());
+        DateTime end = new DateTime(input.getEnd());
+        if (start.isDateOnly() != end.isDateOnly()) {
+            throw new IllegalArgumentException("start and end must both be dates or both be date-times.");
+        }
+        if (end.getValue() <= start.getValue()) {
+            throw new IllegalArgumentException("end must be after start.");
+        }
+        String zone = input.getTimeZone() != null ? input.getTimeZone() : defaultTimeZone;
+        String id = input.getId();
+        if (id == null) {
+            id = contentId(calendarId, input.getSummary(), input.getStart(), input.getEnd(), zone,
+                    input.getLocation(), input.getDescription(), String.valueOf(input.getRecurrence()));
+        } else if (!EVENT_ID.matcher(id).matches()) {
+            throw new IllegalArgumentException("id must be 5-1024 characters from a-v and 0-9.");
+        }
+        return new Event()
+                .setId(id)
+                .setSummary(input.getSummary())
+                .setLocation(input.getLocation())
+                .setDescription(input.getDescription())
+                .setStart(start.isDateOnly() ? new EventDateTime().setDate(start) : new EventDateTime().setDateTime(start).setTimeZone(zone))
+                .setEnd(end.isDateOnly() ? new EventDateTime().setDate(end) : new EventDateTime().setDateTime(end).setTimeZone(zone))
+                .setRecurrence(input.getRecurrence());
+    }
+
+    // Event ID derived from the event itself (base32hex of a SHA-256 prefix), so sending the same
+    // event again maps to the same ID
+    static String contentId(String... parts) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        for (String part : parts) {
+            digest.update(String.valueOf(part).getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+        }
+        return base32hex(digest.digest());
+    }
+
+    // Random event ID, used when the event is queued before Google has seen it
+    static String randomId() {
+        byte[] bytes = new byte[20];
+        RANDOM.nextBytes(bytes);
+        return base32hex(bytes);
+    }
+
+    // The first 160 bits, 5 per character
+    private static String base32hex(byte[] bytes) {
+        StringBuilder id = new StringBuilder(32);
+        for (int bit = 0; bit < 160; bit += 5) {
+            int value = 0;
+            for (int b = bit; b < bit + 5; b++) {
+                value = value << 1 | (bytes[b >> 3] >> (7 - (b & 7))) & 1;
+            }
+            id.append(BASE32HEX.charAt(value));
+        }
+        return id.toString();
+    }
+
+    // Without a mirrored copy of the calendar, one page of events.list over [start, end)
+    private List<Event> findConflicts(String calendarId, String start, String end) throws IOException {
+        EventIntervalIndex index = eventMirror.cachedIndex(calendarId);
+        if (index != null) {
+            return CheckAvailabilityTool.blocking(index.overlapping(new DateTime(start).getValue(), new DateTime(end).getValue()));
+        }
+        Events page = calendarService.events().list(calendarId)
+                .setSingleEvents(true)
+                .setTimeMin(new DateTime(start))
+                .setTimeMax(new DateTime(end))
+                .setMaxResults(MAX_CONFLICTS)
+                .setFields("items(id,status,transparency)")
+                .execute();
+        return CheckAvailabilityTool.blocking(page.getItems() != null ? page.getItems() : List.of());
+    }
+
     public static void validateDateTime(String dateTime, String fieldName) {
         try {
             new DateTime(dateTime);
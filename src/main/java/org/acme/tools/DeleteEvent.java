@@ -4,17 +4,37 @@ import com.google.api.client.googleapis.json.GoogleJsonResponseException;
 import com.google.api.client.util.DateTime;
 import com.google.api.services.calendar.Calendar;
 import com.google.api.services.calendar.model.Event;
-import com.google.api.services.calendar.model.Events;
+import io.quarkiverse.mcp.server.McpConnection;
 import io.quarkiverse.mcp.server.Tool;
 import io.quarkiverse.mcp.server.ToolArg;
 import jakarta.inject.Inject;
+import org.acme.BulkMutationEngine;
+import org.acme.CalendarExecutor;
+import org.acme.EventMirror;
+import org.acme.EventPager;
+import org.acme.EventStream;
+import org.acme.ReadCoalescer;
+import org.acme.RecurrenceCache;
+import org.acme.TenantAware;
+import org.acme.ToolTelemetry;
+import org.acme.WriteBehind;
+import org.acme.tools.extra.BulkResult;
 import org.acme.tools.extra.CalendarSelection;
+import org.acme.tools.extra.EventFilter;
+import org.acme.tools.extra.MutationOutcome;
+import org.acme.tools.extra.QueuedMutation;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
 
 import static org.acme.tools.CreateEvent.validateDateTime;
 
+@TenantAware
+@ToolTelemetry
 public class DeleteEvent {
 
     @Inject
@@ -23,12 +43,35 @@ public class DeleteEvent {
     @Inject
     SelectCalendarTool selectCalendarTool;
 
+    @Inject
+    BulkMutationEngine bulkMutationEngine;
+
+    @Inject
+    CalendarExecutor calendarExecutor;
+
+    @Inject
+    EventMirror eventMirror;
+
+    @Inject
+    RecurrenceCache recurrenceCache;
+
+    @Inject
+    ReadCoalescer readCoalescer;
+
+    @Inject
+    WriteBehind writeBehind;
+
+    @ConfigProperty(name = "calendar.events.page-size", defaultValue = "250")
+    int pageSize;
+
     @Tool(description = "Deletes events from the specified Google Calendar matching a search query.")
     public String deleteEventsByQuery(
             @ToolArg(description = "The name of the calendar to delete events from (e.g., 'ai test'). Supports fuzzy matching.") String calendarName,
             @ToolArg(description = "The search query to match event summaries (e.g., 'Team Meeting').") String query,
+            @ToolArg(description = ListEventsTool.FILTER_DESCRIPTION + " Only events matching both the query and the filter are deleted.") String filter,
             @ToolArg(description = "Optional start date to filter events (ISO 8601 format, e.g., '2025-06-04T00:00:00').") String startDate,
-            @ToolArg(description = "Optional end date to filter events (ISO 8601 format, e.g., '2025-06-04T23:59:59').") String endDate
+            @ToolArg(description = "Optional end date to filter events (ISO 8601 format, e.g., '2025-06-04T23:59:59').") String endDate,
+            McpConnection connection
     ) {
         try {
             // Resolve calendarName to calendarId
@@ -50,21 +93,21 @@ public class DeleteEvent {
                 request.setTimeMax(new com.google.api.client.util.DateTime(endDate));
             }
 
-            // Fetch matching events
-            Events events = request.execute();
-            List<Event> eventList = events.getItems();
-            if (eventList.isEmpty()) {
-                return "No events found matching the query: " + query + " in calendar " + calendarId + ".";
+            EventFilter eventFilter = EventFilter.parse(filter);
+            String matching = " matching the query: " + query + (eventFilter != null ? " and the filter: " + filter : "");
+
+            if (writeBehind.isEnabled()) {
+                String queued = queueDeletes(calendarId, request, query, eventFilter, matching);
+                return queued != null ? queued : "No events found" + matching + " in calendar " + calendarId + ".";
             }
 
-            // Delete matching events
-            int deletedCount = 0;
-            for (Event event : eventList) {
-                calendarService.events().delete(calendarId, event.getId()).execute();
-                deletedCount++;
+            // Fetch and delete matching events
+            BulkResult result = deleteAll(calendarId, request, eventFilter);
+            if (result.getOutcomes().isEmpty()) {
+                return "No events found" + matching + " in calendar " + calendarId + ".";
             }
 
-            return "Successfully deleted " + deletedCount + " event(s) matching the query: " + query + " in calendar " + calendarId + ".";
+            return describe(result, matching + " in calendar " + calendarId);
         } catch (IllegalArgumentException e) {
             throw new RuntimeException("Invalid input: " + e.getMessage());
         } catch (IOException e) {
@@ -78,7 +121,8 @@ public class DeleteEvent {
     public String deleteEventsByDateRange(
             @ToolArg(description = "The name of the calendar to delete events from (e.g., 'ai test'). Supports fuzzy matching.") String calendarName,
             @ToolArg(description = "The start date and time in ISO 8601 format (e.g., '2025-06-04T00:00:00').") String startDate,
-            @ToolArg(description = "The end date and time in ISO 8601 format (e.g., '2025-06-04T23:59:59').") String endDate
+            @ToolArg(description = "The end date and time in ISO 8601 format (e.g., '2025-06-04T23:59:59').") String endDate,
+            McpConnection connection
     ) {
         try {
             // Resolve calendarName to calendarId
@@ -97,21 +141,18 @@ public class DeleteEvent {
                     .setTimeMin(new DateTime(startDate))
                     .setTimeMax(new DateTime(endDate));
 
-            // Fetch matching events
-            Events events = request.execute();
-            List<Event> eventList = events.getItems();
-            if (eventList.isEmpty()) {
-                return "No events found in the specified date range in calendar " + calendarId + ".";
+            if (writeBehind.isEnabled()) {
+                String queued = queueDeletes(calendarId, request, null, null, " in the specified date range");
+                return queued != null ? queued : "No events found in the specified date range in calendar " + calendarId + ".";
             }
 
-            // Delete matching events
-            int deletedCount = 0;
-            for (Event event : eventList) {
-                calendarService.events().delete(calendarId, event.getId()).execute();
-                deletedCount++;
+            // Fetch and delete matching events
+            BulkResult result = deleteAll(calendarId, request, null);
+            if (result.getOutcomes().isEmpty()) {
+                return "No events found in the specified date range in calendar " + calendarId + ".";
             }
 
-            return "Successfully deleted " + deletedCount + " event(s) in the specified date range in calendar " + calendarId + ".";
+            return describe(result, " in the specified date range in calendar " + calendarId);
         } catch (IllegalArgumentException e) {
             throw new RuntimeException("Invalid input: " + e.getMessage());
         } catch (IOException e) {
@@ -125,7 +166,8 @@ public class DeleteEvent {
     public String deleteRecurringEvent(
             @ToolArg(description = "The name of the calendar containing the event (e.g., 'ai test'). Supports fuzzy matching.") String calendarName,
             @ToolArg(description = "The unique ID of the event to delete (e.g., 'abc123xyz789').") String eventId,
-            @ToolArg(description = "Optional: Specific instance date to delete in ISO 8601 format (e.g., '2025-06-04T10:00:00'). If not provided, deletes all instances.") String instanceDate
+            @ToolArg(description = "Optional: Specific instance date to delete in ISO 8601 format (e.g., '2025-06-04T10:00:00'). If not provided, deletes all instances.") String instanceDate,
+            McpConnection connection
     ) {
         try {
             // Resolve calendarName to calendarId
@@ -140,33 +182,55 @@ public class DeleteEvent {
                 throw new IllegalArgumentException("Event ID cannot be null or empty.");
             }
 
-            // Check if the event exists
-            Event event;
-            try {
-                event = calendarService.events().get(calendarId, eventId).execute();
-            } catch (GoogleJsonResponseException e) {
-                if (e.getStatusCode() == 404) {
-                    return "No event found with ID " + eventId + " in calendar " + calendarId + ".";
-                }
-                throw new RuntimeException("Error checking event existence: " + e.getMessage());
-            }
-
             // Handle recurring event instance or entire series
             if (instanceDate != null && !instanceDate.isEmpty()) {
-                // Validate instanceDate
+                validateDateTime(instanceDate, "instanceDate");
+
+                // Instance IDs depend on the series' time zone and all-day setting, so look the
+                // instance up among the expanded instances instead of building its ID
+                if (recurrenceCache.instances(calendarId, eventId) == null) {
+                    return "No event found with ID " + eventId + " in calendar " + calendarId + ".";
+                }
+                Event instance = recurrenceCache.find(calendarId, eventId, instanceDate);
+                if (instance == null) {
+                    return "Event with ID " + eventId + " has no instance on " + instanceDate + " in calendar " + calendarId + ".";
+                }
+                if (writeBehind.isEnabled()) {
+                    QueuedMutation mutation = writeBehind.delete(calendarId, List.of(instance.getId())).get(0);
+                    return "Deletion of instance " + instance.getId() + " of recurring event with ID " + eventId + " on " + instanceDate
+                            + " from calendar " + calendarId + " queued as mutation " + mutation.getId() + "; check its progress with getMutationStatus.";
+                }
                 try {
-                    new com.google.api.client.util.DateTime(instanceDate);
-                } catch (IllegalArgumentException e) {
-                    throw new IllegalArgumentException("instanceDate must be in ISO 8601 format (e.g., '2025-06-04T10:00:00').");
+                    calendarService.events().delete(calendarId, instance.getId()).execute();
+                } catch (GoogleJsonResponseException e) {
+                    if (e.getStatusCode() != 404 && e.getStatusCode() != 410) {
+                        throw e;
+                    }
+                    // Already gone; drop what the cache believed
                 }
-
-                // Delete a specific instance of a recurring event
-                String instanceId = eventId + "_" + instanceDate.replaceAll("[^0-9T]", "");
-                calendarService.events().delete(calendarId, instanceId).execute();
-                return "Deleted instance of recurring event with ID " + eventId + " on " + instanceDate + " from calendar " + calendarId + ".";
+                recurrenceCache.removeInstance(calendarId, eventId, instance.getId());
+                readCoalescer.invalidate(calendarId);
+                eventMirror.remove(calendarId, instance.getId());
+                return "Deleted instance " + instance.getId() + " of recurring event with ID " + eventId + " on " + instanceDate + " from calendar " + calendarId + ".";
             } else {
+                if (writeBehind.isEnabled()) {
+                    QueuedMutation mutation = writeBehind.delete(calendarId, List.of(eventId)).get(0);
+                    return "Deletion of event with ID " + eventId + " (all instances) from calendar " + calendarId
+                            + " queued as mutation " + mutation.getId() + "; check its progress with getMutationStatus.";
+                }
+
                 // Delete the entire event (including all instances if recurring)
-                calendarService.events().delete(calendarId, eventId).execute();
+                try {
+                    calendarService.events().delete(calendarId, eventId).execute();
+                } catch (GoogleJsonResponseException e) {
+                    if (e.getStatusCode() == 404 || e.getStatusCode() == 410) {
+                        return "No event found with ID " + eventId + " in calendar " + calendarId + ".";
+                    }
+                    throw e;
+                }
+                recurrenceCache.invalidate(calendarId, eventId);
+                readCoalescer.invalidate(calendarId);
+                eventMirror.remove(calendarId, eventId);
                 return "Event with ID " + eventId + " deleted successfully (all instances) from calendar " + calendarId + ".";
             }
         } catch (IllegalArgumentException e) {
@@ -180,7 +244,8 @@ public class DeleteEvent {
 
     @Tool(description = "Deletes ALL events from the specified Google Calendar. Use with caution.")
     public String clearAllEvents(
-            @ToolArg(description = "The name of the calendar to clear (e.g., 'ai test'). Supports fuzzy matching.") String calendarName
+            @ToolArg(description = "The name of the calendar to clear (e.g., 'ai test'). Supports fuzzy matching.") String calendarName,
+            McpConnection connection
     ) {
         try {
             // Resolve calendarName to calendarId
@@ -190,13 +255,15 @@ public class DeleteEvent {
                 throw new IllegalArgumentException(calendarSelection.getMessage());
             }
 
+            if (writeBehind.isEnabled()) {
+                String queued = queueDeletes(calendarId, calendarService.events().list(calendarId), null, null, "");
+                return queued != null ? queued : "Calendar " + calendarId + " has no events.";
+            }
+
             // Fetch and delete all events
-            Events events = calendarService.events().list(calendarId).execute();
-            List<Event> eventList = events.getItems();
-            if (eventList != null && !eventList.isEmpty()) {
-                for (Event event : eventList) {
-                    calendarService.events().delete(calendarId, event.getId()).execute();
-                }
+            BulkResult result = deleteAll(calendarId, calendarService.events().list(calendarId), null);
+            if (!result.getFailures().isEmpty()) {
+                return describe(result, " from calendar " + calendarId);
             }
             return "All events in calendar " + calendarId + " have been deleted.";
         } catch (IllegalArgumentException e) {
@@ -207,4 +274,72 @@ public class DeleteEvent {
             throw new RuntimeException("Unexpected error clearing events: " + e.getMessage());
         }
     }
-}
\ No newline at end of file
+
+    // Collects the IDs of every matching event, then deletes them in batches. The listing is never
+    // shared with concurrent reads, so it cannot miss events created just before.
+    private BulkResult deleteAll(String calendarId, Calendar.Events.List request, EventFilter filter) throws IOException {
+        EventStream events = list(request, filter);
+        List<BulkMutationEngine.Mutation> deletes = new ArrayList<>();
+        while (events.hasNext()) {
+            deletes.add(bulkMutationEngine.delete(calendarId, events.next().getId()));
+        }
+        BulkResult result = bulkMutationEngine.execute(deletes);
+        if (result.getSucceededCount() > 0) {
+            recurrenceCache.invalidate(calendarId);
+            readCoalescer.invalidate(calendarId);
+        }
+        for (MutationOutcome outcome : result.getOutcomes()) {
+            if (outcome.isSucceeded()) {
+                eventMirror.remove(calendarId, outcome.getKey());
+            }
+        }
+        return result;
+    }
+
+    // Leads with the failures when nothing could be deleted
+    private static String describe(BulkResult result, String where) {
+        if (result.getSucceededCount() == 0) {
+            return "Could not delete any of the " + result.getOutcomes().size() + " event(s)" + where + ".\n"
+                    + result.describeFailures();
+        }
+        return "Successfully deleted " + result.getSucceededCount() + " event(s)" + where + ".\n"
+                + result.describeFailures();
+    }
+
+    // Write-behind mode: lists the matching IDs now and queues their deletes, together with those
+    // of unsent creates the listing would have returned. Null if nothing matched.
+    private String queueDeletes(String calendarId, Calendar.Events.List request, String query, EventFilter filter,
+                                String matching) throws IOException {
+        EventStream events = list(request, filter);
+        Set<String> ids = new LinkedHashSet<>();
+        while (events.hasNext()) {
+            ids.add(events.next().getId());
+        }
+        Long timeMin = request.getTimeMin() != null ? request.getTimeMin().getValue() : null;
+        Long timeMax = request.getTimeMax() != null ? request.getTimeMax().getValue() : null;
+        for (QueuedMutation create : writeBehind.pendingCreates(calendarId, query, timeMin, timeMax)) {
+            if (filter == null || filter.test(create.getEvent())) {
+                ids.add(create.getEventId());
+            }
+        }
+        if (ids.isEmpty()) {
+            return null;
+        }
+        List<QueuedMutation> mutations = writeBehind.delete(calendarId, ids);
+        long first = mutations.stream().mapToLong(QueuedMutation::getSeq).min().getAsLong();
+        long last = mutations.stream().mapToLong(QueuedMutation::getSeq).max().getAsLong();
+        long cancelled = mutations.stream().filter(m -> m.getState() == QueuedMutation.State.CANCELLED).count();
+        return "Queued the deletion of " + mutations.size() + " event(s)" + matching + " from calendar " + calendarId
+                + " as mutations " + QueuedMutation.id(first) + " to " + QueuedMutation.id(last)
+                + (cancelled > 0 ? ", " + cancelled + " of them cancelling an unsent create" : "")
+                + "; check their progress with getMutationStatus.";
+    }
+
+    // Every event of the listing that passes the filter, with only the ID and what the filter reads
+    private EventStream list(Calendar.Events.List request, EventFilter filter) {
+        String fields = "nextPageToken,items(id)";
+        EventPager pager = new EventPager(request, pageSize, filter != null ? filter.apiFields(fields) : fields, null,
+                calendarExecutor.asExecutor("events.list"), null);
+        return filter != null ? EventStream.filter(pager, filter) : pager;
+    }
+}
@@ -2,7 +2,9 @@ package org.acme.tools;
 
 import io.quarkiverse.mcp.server.Tool;
 import io.quarkiverse.mcp.server.ToolArg;
+import org.acme.ToolTelemetry;
 
+@ToolTelemetry
 public class Hello {
     @Tool(description = "Hello tool to test communications, say hello to the user!")
 
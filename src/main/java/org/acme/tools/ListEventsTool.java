@@ -1,19 +1,40 @@
 package org.acme.tools;
 
+import com.google.api.client.json.JsonFactory;
+import com.google.api.client.util.DateTime;
 import com.google.api.services.calendar.Calendar;
 import com.google.api.services.calendar.model.Event;
-import com.google.api.services.calendar.model.Events;
+import io.quarkiverse.mcp.server.McpConnection;
 import io.quarkiverse.mcp.server.Tool;
 import io.quarkiverse.mcp.server.ToolArg;
 import jakarta.inject.Inject;
+import org.acme.CalendarExecutor;
+import org.acme.EventMirror;
+import org.acme.EventPager;
+import org.acme.EventStream;
+import org.acme.ReadCoalescer;
+import org.acme.RecurrenceCache;
+import org.acme.TenantAware;
+import org.acme.ToolTelemetry;
 import org.acme.tools.extra.CalendarSelection;
+import org.acme.tools.extra.EventField;
+import org.acme.tools.extra.EventFilter;
+import org.acme.tools.extra.EventJsonWriter;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
 
 import java.io.IOException;
+import java.io.StringWriter;
 import java.util.List;
+import java.util.Locale;
+import java.util.Set;
 
 import static org.acme.tools.CreateEvent.validateDateTime;
 
+@TenantAware
+@ToolTelemetry
 public class ListEventsTool {
+    static final String FILTER_DESCRIPTION = "Optional filter expression; all space-separated terms must match, a leading '-' negates a term and values with spaces are quoted. Terms: "
+            + EventFilter.SYNTAX + ". E.g. 'attendee:ana@example.com duration>=30m -status:tentative'.";
 
     @Inject
     Calendar calendarService;
@@ -21,12 +42,36 @@ public class ListEventsTool {
     @Inject
     SelectCalendarTool selectCalendarTool;
 
+    @Inject
+    CalendarExecutor calendarExecutor;
+
+    @Inject
+    ReadCoalescer readCoalescer;
+
+    @Inject
+    EventMirror eventMirror;
+
+    @Inject
+    JsonFactory jsonFactory;
+
+    @Inject
+    RecurrenceCache recurrenceCache;
+
+    @ConfigProperty(name = "calendar.events.page-size", defaultValue = "250")
+    int pageSize;
+
     @Tool(description = "Lists events from a Google Calendar specified by name (fuzzy matched). Requires authenticated Google Calendar API access. Possible errors: no matching calendar, invalid date format, authentication issues, or API errors.")
     public String listEvents(
             @ToolArg(description = "The name of the calendar to list events from (e.g., 'ai test'). Supports fuzzy matching.") String calendarName,
             @ToolArg(description = "Optional search query to match event summaries (e.g., 'Team Meeting').") String query,
+            @ToolArg(description = FILTER_DESCRIPTION) String filter,
             @ToolArg(description = "Optional start date to filter events (ISO 8601 format, e.g., '2025-06-04T00:00:00').") String startDate,
-            @ToolArg(description = "Optional end date to filter events (ISO 8601 format, e.g., '2025-06-04T23:59:59').") String endDate
+            @ToolArg(description = "Optional end date to filter events (ISO 8601 format, e.g., '2025-06-04T23:59:59').") String endDate,
+            @ToolArg(description = "Optional maximum number of events to return. If more events match, the reply ends with a cursor to continue from.") Integer limit,
+            @ToolArg(description = "Optional cursor returned by a previous call to continue listing from. Use the same calendar, query, filter and dates as that call.") String cursor,
+            @ToolArg(description = "Optional reply format: 'text' (default), 'json', or 'compact'. Compact is JSON with short keys (i=id, s=summary, b=start, e=end, l=location, d=description, st=status, a=true for all-day events; c=calendar ID, ev=events, n=next cursor) and times in epoch milliseconds.") String format,
+            @ToolArg(description = "Optional comma-separated fields for json and compact replies: id, summary, start, end, location, description, status. Defaults to id, summary, start, end.") String fields,
+            McpConnection connection
     ) {
         try {
             // Resolve calendarName to calendarId
@@ -43,50 +88,166 @@ public class ListEventsTool {
             if (endDate != null && !endDate.isEmpty()) {
                 validateDateTime(endDate, "endDate");
             }
+            if (limit != null && limit <= 0) {
+                throw new IllegalArgumentException("limit must be a positive number.");
+            }
+            String mode = format == null || format.isBlank() ? "text" : format.trim().toLowerCase(Locale.ROOT);
+            if (!mode.equals("text") && !mode.equals("json") && !mode.equals("compact")) {
+                throw new IllegalArgumentException("format must be 'text', 'json' or 'compact'.");
+            }
+            Set<EventField> projection = EventField.parse(fields);
+            EventFilter eventFilter = EventFilter.parse(filter);
+
+            // Serve from the local mirror when enabled, otherwise page through the API
+            EventStream events;
+            if (eventMirror.isEnabled()) {
+                Long timeMin = startDate != null && !startDate.isEmpty() ? new DateTime(startDate).getValue() : null;
+                Long timeMax = endDate != null && !endDate.isEmpty() ? new DateTime(endDate).getValue() : null;
+                events = EventStream.of(eventMirror.query(calendarId, query, timeMin, timeMax), cursor);
+            } else {
+                // Build the event list request; recurring events are expanded by the server and
+                // instances come back in start order, like the mirror returns them
+                Calendar.Events.List request = calendarService.events().list(calendarId)
+                        .setSingleEvents(true)
+                        .setOrderBy("startTime");
+                if (query != null && !query.trim().isEmpty()) {
+                    request.setQ(query); // Search by summary or description
+                }
+                if (startDate != null && !startDate.isEmpty()) {
+                    request.setTimeMin(new DateTime(startDate));
+                }
+                if (endDate != null && !endDate.isEmpty()) {
+                    request.setTimeMax(new DateTime(endDate));
+                }
 
-            // Build the event list request
-            Calendar.Events.List request = calendarService.events().list(calendarId);
-            if (query != null && !query.trim().isEmpty()) {
-                request.setQ(query); // Search by summary or description
+                // Fetch events page by page, stopping at the limit; only the projected fields and
+                // those the filter reads are requested
+                String apiFields = mode.equals("text") ? EventPager.DEFAULT_FIELDS : EventField.apiFields(projection);
+                events = new EventPager(request, pageSize, eventFilter != null ? eventFilter.apiFields(apiFields) : apiFields,
+                        cursor, calendarExecutor.asExecutor("events.list"), readCoalescer);
+            }
+            if (eventFilter != null) {
+                events = EventStream.filter(events, eventFilter);
+            }
+            try {
+                if (mode.equals("text")) {
+                    return formatText(calendarId, events, limit);
+                }
+                return formatJson(calendarId, events, limit, mode.equals("compact"), projection);
+            } finally {
+                events.close();
+            }
+        } catch (IllegalArgumentException e) {
+            throw new RuntimeException("Invalid input: " + e.getMessage());
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to connect to Google Calendar API: " + e.getMessage());
+        } catch (Exception e) {
+            throw new RuntimeException("Unexpected error listing events: " + e.getMessage());
+        }
+    }
+
+    @Tool(description = "Lists the occurrences of a recurring event, optionally between two dates. Use the event ID returned by listEvents (the part before '_' for an occurrence).")
+    public String listEventInstances(
+            @ToolArg(description = "The name of the calendar containing the event (e.g., 'ai test'). Supports fuzzy matching.") String calendarName,
+            @ToolArg(description = "The ID of the recurring event (e.g., 'abc123xyz789').") String eventId,
+            @ToolArg(description = "Optional start date to filter occurrences (ISO 8601 format, e.g., '2025-06-04T00:00:00').") String startDate,
+            @ToolArg(description = "Optional end date to filter occurrences (ISO 8601 format, e.g., '2025-06-04T23:59:59').") String endDate,
+            @ToolArg(description = "Optional maximum number of occurrences to return.") Integer limit,
+            McpConnection connection
+    ) {
+        try {
+            // Resolve calendarName to calendarId
+            CalendarSelection calendarSelection = selectCalendarTool.selectCalendar(calendarName);
+            String calendarId = calendarSelection.getCalendarId();
+            if (calendarId == null) {
+                throw new IllegalArgumentException(calendarSelection.getMessage());
+            }
+            if (eventId == null || eventId.trim().isEmpty()) {
+                throw new IllegalArgumentException("Event ID cannot be null or empty.");
             }
             if (startDate != null && !startDate.isEmpty()) {
-                request.setTimeMin(new com.google.api.client.util.DateTime(startDate));
+                validateDateTime(startDate, "startDate");
             }
             if (endDate != null && !endDate.isEmpty()) {
-                request.setTimeMax(new com.google.api.client.util.DateTime(endDate));
+                validateDateTime(endDate, "endDate");
             }
-
-            // Fetch events
-            Events events = request.execute();
-            List<Event> eventList = events.getItems();
-            if (eventList.isEmpty()) {
-                return "No events found in calendar " + calendarId + " matching the provided criteria.";
+            if (limit != null && limit <= 0) {
+                throw new IllegalArgumentException("limit must be a positive number.");
             }
 
-            // Format event details
-            StringBuilder response = new StringBuilder("Events in calendar " + calendarId + ":\n");
-            for (Event event : eventList) {
-                String start = event.getStart().getDateTime() != null
-                        ? event.getStart().getDateTime().toString()
-                        : event.getStart().getDate().toString();
-                String end = event.getEnd().getDateTime() != null
-                        ? event.getEnd().getDateTime().toString()
-                        : event.getEnd().getDate().toString();
-                response.append("ID: ").append(event.getId())
-                        .append(", Summary: ").append(event.getSummary() != null ?
-                                event.getSummary() : "No summary")
-                        .append(", Start: ").append(start)
-                        .append(", End: ").append(end)
-                        .append("\n");
+            // Served from the expanded series, fetched once and cached
+            Long timeMin = startDate != null && !startDate.isEmpty() ? new DateTime(startDate).getValue() : null;
+            Long timeMax = endDate != null && !endDate.isEmpty() ? new DateTime(endDate).getValue() : null;
+            List<Event> instances = recurrenceCache.instances(calendarId, eventId, timeMin, timeMax);
+            if (instances == null) {
+                return "No event found with ID " + eventId + " in calendar " + calendarId + ".";
+            }
+            if (instances.isEmpty()) {
+                return "No occurrences of event " + eventId + " found in calendar " + calendarId + " matching the provided criteria.";
+            }
+            StringBuilder response = new StringBuilder("Occurrences of event " + eventId + " in calendar " + calendarId + ":\n");
+            int count = Math.min(instances.size(), limit != null ? limit : Integer.MAX_VALUE);
+            for (Event instance : instances.subList(0, count)) {
+                appendEvent(response, instance);
+            }
+            if (count < instances.size()) {
+                response.append(instances.size() - count).append(" more occurrence(s). Narrow the dates or raise the limit to see them.\n");
             }
-
             return response.toString();
         } catch (IllegalArgumentException e) {
             throw new RuntimeException("Invalid input: " + e.getMessage());
         } catch (IOException e) {
             throw new RuntimeException("Failed to connect to Google Calendar API: " + e.getMessage());
         } catch (Exception e) {
-            throw new RuntimeException("Unexpected error listing events: " + e.getMessage());
+            throw new RuntimeException("Unexpected error listing event occurrences: " + e.getMessage());
+        }
+    }
+
+    private String formatText(String calendarId, EventStream events, Integer limit) throws IOException {
+        if (!events.hasNext()) {
+            return "No events found in calendar " + calendarId + " matching the provided criteria.";
+        }
+
+        // Format event details
+        StringBuilder response = new StringBuilder("Events in calendar " + calendarId + ":\n");
+        int count = 0;
+        while ((limit == null || count < limit) && events.hasNext()) {
+            appendEvent(response, events.next());
+            count++;
         }
+        String nextCursor = events.cursor();
+        if (nextCursor != null) {
+            response.append("More events available. Continue with cursor: ").append(nextCursor).append("\n");
+        }
+        return response.toString();
+    }
+
+    // Events are serialized as they are paged in, no per-event strings are built
+    private String formatJson(String calendarId, EventStream events, Integer limit, boolean compact,
+                              Set<EventField> projection) throws IOException {
+        StringWriter out = new StringWriter(256);
+        EventJsonWriter writer = new EventJsonWriter(jsonFactory, out, compact, projection);
+        writer.begin(calendarId);
+        while ((limit == null || writer.getCount() < limit) && events.hasNext()) {
+            writer.write(events.next());
+        }
+        writer.end(events.cursor());
+        return out.toString();
+    }
+
+    // Format event details
+    public static void appendEvent(StringBuilder response, Event event) {
+        String start = event.getStart().getDateTime() != null
+                ? event.getStart().getDateTime().toString()
+                : event.getStart().getDate().toString();
+        String end = event.getEnd().getDateTime() != null
+                ? event.getEnd().getDateTime().toString()
+                : event.getEnd().getDate().toString();
+        response.append("ID: ").append(event.getId())
+                .append(", Summary: ").append(event.getSummary() != null ?
+                        event.getSummary() : "No summary")
+                .append(", Start: ").append(start)
+                .append(", End: ").append(end)
+                .append("\n");
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,54 @@
+package org.acme.tools;
+
+import io.quarkiverse.mcp.server.McpConnection;
+import io.quarkiverse.mcp.server.Tool;
+import io.quarkiverse.mcp.server.ToolArg;
+import jakarta.inject.Inject;
+import org.acme.TenantAware;
+import org.acme.ToolTelemetry;
+import org.acme.WriteBehind;
+import org.acme.tools.extra.QueuedMutation;
+
+import java.util.List;
+
+@TenantAware
+@ToolTelemetry
+public class MutationStatusTool {
+    private static final int RECENT_LIMIT = 50;
+
+    @Inject
+    WriteBehind writeBehind;
+
+    @Tool(description = "Reports the progress of creates and deletes that were queued instead of sent right away (write-behind mode): pending, applied, failed or cancelled.")
+    public String getMutationStatus(
+            @ToolArg(description = "Optional. The mutation ID returned when the change was queued (e.g., 'm42'). If not provided, lists the pending and most recent mutations.") String mutationId,
+            McpConnection connection
+    ) {
+        try {
+            if (!writeBehind.isEnabled()) {
+                return "Write-behind mode is off; creates and deletes are sent to Google Calendar right away.";
+            }
+            if (mutationId != null && !mutationId.trim().isEmpty()) {
+                QueuedMutation mutation = writeBehind.find(mutationId);
+                if (mutation == null) {
+                    throw new IllegalArgumentException("No mutation found with ID " + mutationId + ".");
+                }
+                return mutation.toString();
+            }
+
+            List<QueuedMutation> mutations = writeBehind.recent(RECENT_LIMIT);
+            if (mutations.isEmpty()) {
+                return "No queued mutations.";
+            }
+            StringBuilder response = new StringBuilder("Mutations, pending first:\n");
+            for (QueuedMutation mutation : mutations) {
+                response.append(mutation).append("\n");
+            }
+            return response.toString();
+        } catch (IllegalArgumentException e) {
+            throw new RuntimeException("Invalid input: " + e.getMessage());
+        } catch (Exception e) {
+            throw new RuntimeException("Unexpected error reading mutation status: " + e.getMessage());
+        }
+    }
+}
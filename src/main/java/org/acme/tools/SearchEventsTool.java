@@ -0,0 +1,215 @@
+package org.acme.tools;
+
+import com.google.api.client.util.DateTime;
+import com.google.api.services.calendar.Calendar;
+import com.google.api.services.calendar.model.CalendarListEntry;
+import com.google.api.services.calendar.model.Event;
+import io.quarkiverse.mcp.server.McpConnection;
+import io.quarkiverse.mcp.server.Tool;
+import io.quarkiverse.mcp.server.ToolArg;
+import jakarta.inject.Inject;
+import org.acme.CalendarDirectory;
+import org.acme.CalendarExecutor;
+import org.acme.EventPager;
+import org.acme.ReadCoalescer;
+import org.acme.TenantAware;
+import org.acme.ToolTelemetry;
+import org.acme.tools.extra.CalendarNameIndex;
+import org.acme.tools.extra.EventIntervalIndex;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.CompletableFuture;
+
+import static org.acme.tools.CreateEvent.validateDateTime;
+
+@TenantAware
+@ToolTelemetry
+public class SearchEventsTool {
+    private static final int DEFAULT_LIMIT = 50;
+
+    @Inject
+    Calendar calendarService;
+
+    @Inject
+    CalendarDirectory calendarDirectory;
+
+    @Inject
+    CalendarExecutor calendarExecutor;
+
+    @Inject
+    ReadCoalescer readCoalescer;
+
+    @ConfigProperty(name = "calendar.events.page-size", defaultValue = "250")
+    int pageSize;
+
+    @Tool(description = "Searches events across all of the user's Google Calendars at once and returns them merged in start time order. Use this instead of listing each calendar when the calendar is unknown.")
+    public String searchEvents(
+            @ToolArg(description = "Optional search query to match event summaries, descriptions and locations (e.g., 'dentist').") String query,
+            @ToolArg(description = "Optional start date to filter events (ISO 8601 format, e.g., '2025-06-04T00:00:00').") String startDate,
+            @ToolArg(description = "Optional end date to filter events (ISO 8601 format, e.g., '2025-06-04T23:59:59').") String endDate,
+            @ToolArg(description = "Optional comma-separated calendar names to search (fuzzy matched). Searches all calendars if empty.") String calendars,
+            @ToolArg(description = "Optional maximum number of events to return (default 50).") Integer limit,
+            McpConnection connection
+    ) {
+        try {
+            if (startDate != null && !startDate.isEmpty()) {
+                validateDateTime(startDate, "startDate");
+            }
+            if (endDate != null && !endDate.isEmpty()) {
+                validateDateTime(endDate, "endDate");
+            }
+            if (limit != null && limit <= 0) {
+                throw new IllegalArgumentException("limit must be a positive number.");
+            }
+            int max = limit != null ? limit : DEFAULT_LIMIT;
+            List<CalendarListEntry> targets = targets(calendars);
+            if (targets.isEmpty()) {
+                return "No calendars found for this user.";
+            }
+
+            // No calendar can contribute more than max events, so one page of that size is usually
+            // all each one needs; larger limits page further, prefetching in the background
+            int perCalendarPage = Math.min(max, pageSize);
+            List<Source> sources = new ArrayList<>(targets.size());
+            List<CompletableFuture<Boolean>> firstPages = new ArrayList<>(targets.size());
+            try {
+                for (CalendarListEntry entry : targets) {
+                    Source source = new Source(sources.size(), entry, pager(entry.getId(), query, startDate, endDate,
+                            perCalendarPage, max > perCalendarPage));
+                    sources.add(source);
+                    firstPages.add(calendarExecutor.submit("events.list", source.events::hasNext));
+                }
+
+                // k-way merge by start time over the calendars that answered
+                PriorityQueue<Source> heads = new PriorityQueue<>(Comparator
+                        .comparingLong((Source s) -> EventIntervalIndex.startMillis(s.head))
+                        .thenComparingInt(s -> s.order));
+                Map<String, String> failures = new LinkedHashMap<>();
+                for (Source source : sources) {
+                    try {
+                        if (CalendarExecutor.await(firstPages.get(source.order))) {
+                            source.head = source.events.next();
+                            heads.add(source);
+                        }
+                    } catch (IOException e) {
+                        failures.put(source.name, e.getMessage());
+                    }
+                }
+
+                StringBuilder body = new StringBuilder();
+                int count = 0;
+                while (count < max && !heads.isEmpty()) {
+                    Source source = heads.poll();
+                    body.append("Calendar: ").append(source.name).append(", ");
+                    ListEventsTool.appendEvent(body, source.head);
+                    count++;
+                    try {
+                        if (source.events.hasNext()) {
+                            source.head = source.events.next();
+                            heads.add(source);
+                        }
+                    } catch (IOException e) {
+                        failures.put(source.name, e.getMessage());
+                    }
+                }
+
+                StringBuilder response = new StringBuilder();
+                if (count == 0) {
+                    response.append("No events found in ").append(targets.size() - failures.size())
+                            .append(" calendar(s) matching the provided criteria.\n");
+                } else {
+                    response.append("Found ").append(count).append(" event(s) across ")
+                            .append(targets.size() - failures.size()).append(" calendar(s):\n").append(body);
+                }
+                if (!heads.isEmpty()) {
+                    response.append("More events match. Narrow the dates or raise the limit to see them.\n");
+                }
+                if (!failures.isEmpty()) {
+                    response.append("Could not search ").append(failures.size()).append(" calendar(s):\n");
+                    failures.forEach((name, message) -> response.append(name).append(": ").append(message).append("\n"));
+                }
+                return response.toString();
+            } finally {
+                // A first page still queued is skipped; one already running is discarded
+                for (CompletableFuture<Boolean> firstPage : firstPages) {
+                    firstPage.cancel(false);
+                }
+                for (Source source : sources) {
+                    source.events.close();
+                }
+            }
+        } catch (IllegalArgumentException e) {
+            throw new RuntimeException("Invalid input: " + e.getMessage());
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to connect to Google Calendar API: " + e.getMessage());
+        } catch (Exception e) {
+            throw new RuntimeException("Unexpected error searching events: " + e.getMessage());
+        }
+    }
+
+    // The named calendars, or every calendar whose events can be read
+    private List<CalendarListEntry> targets(String calendars) throws IOException {
+        CalendarNameIndex index = calendarDirectory.index();
+        List<CalendarListEntry> targets = new ArrayList<>();
+        if (calendars == null || calendars.isBlank()) {
+            for (CalendarListEntry entry : index.getEntries()) {
+                if (!"freeBusyReader".equals(entry.getAccessRole())) {
+                    targets.add(entry);
+                }
+            }
+            return targets;
+        }
+        for (String name : calendars.split(",")) {
+            if (name.isBlank()) {
+                continue;
+            }
+            CalendarListEntry entry = index.resolve(name);
+            if (entry == null) {
+                throw new IllegalArgumentException("No calendar found matching '" + name.trim() + "'.");
+            }
+            if (!targets.contains(entry)) {
+                targets.add(entry);
+            }
+        }
+        return targets;
+    }
+
+    private EventPager pager(String calendarId, String query, String startDate, String endDate, int size,
+                             boolean prefetch) throws IOException {
+        // Expanded instances ordered by start time, which the merge relies on
+        Calendar.Events.List request = calendarService.events().list(calendarId)
+                .setSingleEvents(true)
+                .setOrderBy("startTime");
+        if (query != null && !query.trim().isEmpty()) {
+            request.setQ(query);
+        }
+        if (startDate != null && !startDate.isEmpty()) {
+            request.setTimeMin(new DateTime(startDate));
+        }
+        if (endDate != null && !endDate.isEmpty()) {
+            request.setTimeMax(new DateTime(endDate));
+        }
+        return new EventPager(request, size, EventPager.DEFAULT_FIELDS, null,
+                prefetch ? calendarExecutor.asExecutor("events.list") : null, readCoalescer);
+    }
+
+    private static final class Source {
+        final int order;
+        final String name;
+        final EventPager events;
+        Event head;
+
+        Source(int order, CalendarListEntry entry, EventPager events) {
+            this.order = order;
+            this.name = entry.getSummary() != null ? entry.getSummary() : entry.getId();
+            this.events = events;
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package org.acme.tools.extra;
+
+import java.util.List;
+
+public class BulkResult {
+    private static final int MAX_LISTED_FAILURES = 20;
+
+    private final List<MutationOutcome> outcomes;
+    private final int roundTrips;
+
+    public BulkResult(List<MutationOutcome> outcomes, int roundTrips) {
+        this.outcomes = List.copyOf(outcomes);
+        this.roundTrips = roundTrips;
+    }
+
+    public List<MutationOutcome> getOutcomes() {
+        return outcomes;
+    }
+
+    public int getRoundTrips() {
+        return roundTrips;
+    }
+
+    public int getSucceededCount() {
+        return (int) outcomes.stream().filter(MutationOutcome::isSucceeded).count();
+    }
+
+    public List<MutationOutcome> getFailures() {
+        return outcomes.stream().filter(o -> !o.isSucceeded()).toList();
+    }
+
+    // Lists failed items one per line, capped so a bad run does not flood the reply
+    public String describeFailures() {
+        List<MutationOutcome> failures = getFailures();
+        if (failures.isEmpty()) {
+            return "";
+        }
+        StringBuilder sb = new StringBuilder("Failed for ").append(failures.size()).append(" event(s):\n");
+        for (MutationOutcome failure : failures.subList(0, Math.min(failures.size(), MAX_LISTED_FAILURES))) {
+            sb.append("- ").append(failure).append("\n");
+        }
+        if (failures.size() > MAX_LISTED_FAILURES) {
+            sb.append("- ... and ").append(failures.size() - MAX_LISTED_FAILURES).append(" more\n");
+        }
+        return sb.toString();
+    }
+}
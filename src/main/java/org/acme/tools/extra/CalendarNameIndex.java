@@ -0,0 +1,128 @@
+package org.acme.tools.extra;
+
+import com.google.api.services.calendar.model.CalendarListEntry;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+public class CalendarNameIndex {
+    private static final ThreadLocal<FuzzyMatcher> MATCHER = ThreadLocal.withInitial(FuzzyMatcher::new);
+
+    private final List<CalendarListEntry> entries;
+    private final List<CalendarOption> options;
+    private final String[] normalizedNames;
+    private final Map<String, Integer> firstByName = new HashMap<>();
+    private final Map<String, Integer> firstById = new HashMap<>();
+    private final int[] sortedByName;
+
+    public CalendarNameIndex(List<CalendarListEntry> entries) {
+        this.entries = List.copyOf(entries);
+        this.options = this.entries.stream()
+                .map(c -> new CalendarOption(c.getId(), c.getSummary() != null ? c.getSummary() : "Untitled Calendar"))
+                .toList();
+        this.normalizedNames = new String[this.entries.size()];
+        for (int i = 0; i < normalizedNames.length; i++) {
+            CalendarListEntry entry = this.entries.get(i);
+            normalizedNames[i] = entry.getSummary() != null ? entry.getSummary().toLowerCase(Locale.ROOT) : "";
+            firstByName.putIfAbsent(normalizedNames[i], i);
+            firstById.putIfAbsent(entry.getId().toLowerCase(Locale.ROOT), i);
+        }
+        this.sortedByName = IntStream.range(0, normalizedNames.length).boxed()
+                .sorted(Comparator.comparing((Integer i) -> normalizedNames[i]).thenComparing(i -> i))
+                .mapToInt(Integer::intValue)
+                .toArray();
+    }
+
+    public boolean isEmpty() {
+        return entries.isEmpty();
+    }
+
+    public List<CalendarListEntry> getEntries() {
+        return entries;
+    }
+
+    public List<CalendarOption> getOptions() {
+        return options;
+    }
+
+    // Resolves a user-provided name to a calendar entry, or null when nothing is close enough.
+    // Matches are ranked exact name or ID > prefix > substring > edit distance; within a tier
+    // the shortest name (or the earliest substring position) wins, then list order.
+    public CalendarListEntry resolve(String calendarName) {
+        String normalizedInput = calendarName.toLowerCase(Locale.ROOT).trim();
+
+        // Exact name or ID
+        Integer exact = firstByName.get(normalizedInput);
+        if (exact == null) {
+            exact = firstById.get(normalizedInput);
+        }
+        if (exact != null) {
+            return entries.get(exact);
+        }
+
+        // Prefix: the names starting with the input form a contiguous range of the sorted names
+        int best = -1;
+        for (int i = lowerBound(normalizedInput); i < sortedByName.length
+                && normalizedNames[sortedByName[i]].startsWith(normalizedInput); i++) {
+            int candidate = sortedByName[i];
+            if (best < 0 || isBetter(candidate, best, normalizedNames[candidate].length(), normalizedNames[best].length())) {
+                best = candidate;
+            }
+        }
+        if (best >= 0) {
+            return entries.get(best);
+        }
+
+        // Substring, earliest occurrence first
+        int bestPosition = Integer.MAX_VALUE;
+        for (int i = 0; i < normalizedNames.length; i++) {
+            int position = normalizedNames[i].indexOf(normalizedInput);
+            if (position > 0 && (position < bestPosition
+                    || position == bestPosition && normalizedNames[i].length() < normalizedNames[best].length())) {
+                bestPosition = position;
+                best = i;
+            }
+        }
+        if (best >= 0) {
+            return entries.get(best);
+        }
+
+        // Fuzzy match; every hit tightens the bound for the remaining candidates
+        FuzzyMatcher matcher = MATCHER.get();
+        int maxDistance = Math.max(3, normalizedInput.length() / 2);
+        for (int i = 0; i < normalizedNames.length; i++) {
+            int distance = matcher.distance(normalizedInput, normalizedNames[i], maxDistance);
+            if (distance <= maxDistance) {
+                best = i;
+                maxDistance = distance - 1;
+                if (maxDistance < 0) {
+                    break;
+                }
+            }
+        }
+        return best >= 0 ? entries.get(best) : null;
+    }
+
+    private boolean isBetter(int candidate, int current, int candidateLength, int currentLength) {
+        return candidateLength < currentLength || candidateLength == currentLength && candidate < current;
+    }
+
+    // First position in sortedByName whose name is not less than key
+    private int lowerBound(String key) {
+        int lo = 0;
+        int hi = sortedByName.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (normalizedNames[sortedByName[mid]].compareTo(key) < 0) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+}
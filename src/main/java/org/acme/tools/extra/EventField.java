@@ -0,0 +1,61 @@
+package org.acme.tools.extra;
+
+import java.util.EnumSet;
+import java.util.Locale;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+// Event properties that can be projected into structured listEvents replies
+public enum EventField {
+    ID("id", "i"),
+    SUMMARY("summary", "s"),
+    START("start", "b"),
+    END("end", "e"),
+    LOCATION("location", "l"),
+    DESCRIPTION("description", "d"),
+    STATUS("status", "st");
+
+    public static final Set<EventField> DEFAULT = EnumSet.of(ID, SUMMARY, START, END);
+
+    private final String key;
+    private final String compactKey;
+
+    EventField(String key, String compactKey) {
+        this.key = key;
+        this.compactKey = compactKey;
+    }
+
+    public String key(boolean compact) {
+        return compact ? compactKey : key;
+    }
+
+    // Comma-separated field names, e.g. "id,summary,start"; null or blank selects the default set
+    public static Set<EventField> parse(String fields) {
+        if (fields == null || fields.isBlank()) {
+            return DEFAULT;
+        }
+        Set<EventField> result = EnumSet.of(ID);
+        for (String name : fields.split(",")) {
+            String trimmed = name.trim().toLowerCase(Locale.ROOT);
+            if (trimmed.isEmpty()) {
+                continue;
+            }
+            EventField field = null;
+            for (EventField candidate : values()) {
+                if (candidate.key.equals(trimmed)) {
+                    field = candidate;
+                }
+            }
+            if (field == null) {
+                throw new IllegalArgumentException("Unknown field '" + trimmed + "'. Use any of: id, summary, start, end, location, description, status.");
+            }
+            result.add(field);
+        }
+        return result;
+    }
+
+    // Partial response selector for events().list() covering the projection
+    public static String apiFields(Set<EventField> fields) {
+        return "nextPageToken,items(" + fields.stream().map(f -> f.key).collect(Collectors.joining(",")) + ")";
+    }
+}
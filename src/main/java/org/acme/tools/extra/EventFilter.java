@@ -0,0 +1,248 @@
+package org.acme.tools.extra;
+
+import com.google.api.services.calendar.model.Event;
+import com.google.api.services.calendar.model.EventAttendee;
+import com.google.api.services.calendar.model.EventDateTime;
+
+import java.time.Duration;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+// Filter expression compiled once into a chain of predicates, all of which must match. Terms are
+// separated by spaces, a leading '-' negates one and values with spaces are quoted, e.g.
+//   attendee:ana@example.com -status:tentative duration>=30m summary~"^(1:1|sync)"
+// Cheap checks run before substring matches, and regular expressions run last.
+public class EventFilter implements Predicate<Event> {
+    public static final String SYNTAX = "attendee:<text>, organizer:<text>, location:<text>, summary:<text>, "
+            + "summary~<regex>, location~<regex>, status:confirmed|tentative, allday:true|false, "
+            + "duration>30m (also >=, <, <=, = with m, h or d)";
+
+    private static final int CHEAP = 0;
+    private static final int SUBSTRING = 1;
+    private static final int REGEX = 2;
+
+    private final List<Predicate<Event>> chain;
+    private final Set<String> apiFields;
+
+    private EventFilter(List<Term> terms, Set<String> apiFields) {
+        terms.sort(Comparator.comparingInt(Term::cost));
+        List<Predicate<Event>> predicates = new ArrayList<>(terms.size());
+        for (Term term : terms) {
+            predicates.add(term.predicate());
+        }
+        this.chain = List.copyOf(predicates);
+        this.apiFields = apiFields;
+    }
+
+    // Null for a null or blank expression
+    public static EventFilter parse(String expression) {
+        if (expression == null || expression.isBlank()) {
+            return null;
+        }
+        List<Term> terms = new ArrayList<>();
+        Set<String> apiFields = new LinkedHashSet<>();
+        for (String token : tokenize(expression)) {
+            boolean negated = token.startsWith("-");
+            Term term = compile(negated ? token.substring(1) : token, apiFields);
+            terms.add(negated ? new Term(term.cost(), term.predicate().negate()) : term);
+        }
+        return new EventFilter(terms, apiFields);
+    }
+
+    @Override
+    public boolean test(Event event) {
+        for (Predicate<Event> predicate : chain) {
+            if (!predicate.test(event)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Widens a "nextPageToken,items(...)" partial response selector with the event properties
+    // the filter reads
+    public String apiFields(String fields) {
+        int open = fields.indexOf("items(");
+        Set<String> present = Set.of(fields.substring(open + 6, fields.length() - 1).split(","));
+        StringBuilder extra = new StringBuilder();
+        for (String field : apiFields) {
+            if (!present.contains(field)) {
+                extra.append(',').append(field);
+            }
+        }
+        return extra.length() == 0 ? fields : fields.substring(0, fields.length() - 1) + extra + ")";
+    }
+
+    private static Term compile(String term, Set<String> apiFields) {
+        int op = 0;
+        while (op < term.length() && ":~<>=".indexOf(term.charAt(op)) < 0) {
+            op++;
+        }
+        if (op == 0 || op >= term.length() - 1) {
+            throw new IllegalArgumentException("filter term '" + term + "' must look like key:value. Use any of: " + SYNTAX + ".");
+        }
+        String key = term.substring(0, op).toLowerCase(Locale.ROOT);
+        int valueStart = op + 1;
+        if (term.charAt(valueStart) == '=' && (term.charAt(op) == '<' || term.charAt(op) == '>')) {
+            valueStart++;
+        }
+        String operator = term.substring(op, valueStart);
+        String value = unquote(term.substring(valueStart));
+
+        switch (key + operator) {
+            case "attendee:":
+                apiFields.add("attendees(email,displayName)");
+                String attendee = value.toLowerCase(Locale.ROOT);
+                return new Term(SUBSTRING, event -> {
+                    if (event.getAttendees() == null) {
+                        return false;
+                    }
+                    for (EventAttendee candidate : event.getAttendees()) {
+                        if (contains(candidate.getEmail(), attendee) || contains(candidate.getDisplayName(), attendee)) {
+                            return true;
+                        }
+                    }
+                    return false;
+                });
+            case "organizer:":
+                apiFields.add("organizer(email,displayName)");
+                String organizer = value.toLowerCase(Locale.ROOT);
+                return new Term(SUBSTRING, event -> event.getOrganizer() != null
+                        && (contains(event.getOrganizer().getEmail(), organizer) || contains(event.getOrganizer().getDisplayName(), organizer)));
+            case "location:":
+                apiFields.add("location");
+                String location = value.toLowerCase(Locale.ROOT);
+                return new Term(SUBSTRING, event -> contains(event.getLocation(), location));
+            case "summary:":
+                apiFields.add("summary");
+                String summary = value.toLowerCase(Locale.ROOT);
+                return new Term(SUBSTRING, event -> contains(event.getSummary(), summary));
+            case "location~":
+                apiFields.add("location");
+                Pattern locationPattern = regex(value);
+                return new Term(REGEX, event -> event.getLocation() != null && locationPattern.matcher(event.getLocation()).find());
+            case "summary~":
+                apiFields.add("summary");
+                Pattern summaryPattern = regex(value);
+                return new Term(REGEX, event -> event.getSummary() != null && summaryPattern.matcher(event.getSummary()).find());
+            case "status:":
+                apiFields.add("status");
+                String status = value.toLowerCase(Locale.ROOT);
+                // Listings leave deleted events out, so a cancelled one could never match
+                if (!status.equals("confirmed") && !status.equals("tentative")) {
+                    throw new IllegalArgumentException("status must be confirmed or tentative.");
+                }
+                // Unsent write-behind creates carry no status; Google confirms them when they are inserted
+                return new Term(CHEAP, event -> status.equals(event.getStatus() != null ? event.getStatus() : "confirmed"));
+            case "allday:":
+                apiFields.add("start");
+                if (!value.equalsIgnoreCase("true") && !value.equalsIgnoreCase("false")) {
+                    throw new IllegalArgumentException("allday must be true or false.");
+                }
+                boolean allDay = Boolean.parseBoolean(value);
+                return new Term(CHEAP, event -> (event.getStart() != null && event.getStart().getDate() != null) == allDay);
+            case "duration:":
+            case "duration=":
+            case "duration<":
+            case "duration<=":
+            case "duration>":
+            case "duration>=":
+                apiFields.add("start");
+                apiFields.add("end");
+                long limit = duration(value);
+                String comparison = operator.equals(":") ? "=" : operator;
+                return new Term(CHEAP, event -> {
+                    long length = millis(event.getEnd()) - millis(event.getStart());
+                    switch (comparison) {
+                        case "<":
+                            return length < limit;
+                        case "<=":
+                            return length <= limit;
+                        case ">":
+                            return length > limit;
+                        case ">=":
+                            return length >= limit;
+                        default:
+                            return length == limit;
+                    }
+                });
+            default:
+                throw new IllegalArgumentException("Unknown filter term '" + term + "'. Use any of: " + SYNTAX + ".");
+        }
+    }
+
+    // Splits on spaces outside double quotes; quotes stay in the token and are removed per value
+    private static List<String> tokenize(String expression) {
+        List<String> tokens = new ArrayList<>();
+        StringBuilder token = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < expression.length(); i++) {
+            char c = expression.charAt(i);
+            if (c == '"') {
+                quoted = !quoted;
+            }
+            if (Character.isWhitespace(c) && !quoted) {
+                if (token.length() > 0) {
+                    tokens.add(token.toString());
+                    token.setLength(0);
+                }
+            } else {
+                token.append(c);
+            }
+        }
+        if (quoted) {
+            throw new IllegalArgumentException("filter has an unterminated quote.");
+        }
+        if (token.length() > 0) {
+            tokens.add(token.toString());
+        }
+        return tokens;
+    }
+
+    private static String unquote(String value) {
+        return value.length() >= 2 && value.startsWith("\"") && value.endsWith("\"") ? value.substring(1, value.length() - 1) : value;
+    }
+
+    private static Pattern regex(String value) {
+        try {
+            return Pattern.compile(value, Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE);
+        } catch (PatternSyntaxException e) {
+            throw new IllegalArgumentException("invalid regular expression '" + value + "': " + e.getDescription());
+        }
+    }
+
+    // 30m, 1h30m or 2d, in milliseconds
+    private static long duration(String value) {
+        String lower = value.toLowerCase(Locale.ROOT);
+        try {
+            if (lower.matches("\\d+d")) {
+                return Duration.ofDays(Long.parseLong(lower.substring(0, lower.length() - 1))).toMillis();
+            }
+            return Duration.parse("PT" + lower.toUpperCase(Locale.ROOT)).toMillis();
+        } catch (DateTimeParseException | NumberFormatException e) {
+            throw new IllegalArgumentException("duration must look like 30m, 1h30m or 2d.");
+        }
+    }
+
+    private static boolean contains(String text, String lowerNeedle) {
+        return text != null && text.toLowerCase(Locale.ROOT).contains(lowerNeedle);
+    }
+
+    private static long millis(EventDateTime time) {
+        if (time == null) {
+            return 0;
+        }
+        return time.getDateTime() != null ? time.getDateTime().getValue() : time.getDate().getValue();
+    }
+
+    private record Term(int cost, Predicate<Event> predicate) {
+    }
+}
@@ -0,0 +1,67 @@
+package org.acme.tools.extra;
+
+import com.google.api.client.json.GenericJson;
+import com.google.api.client.util.Key;
+import io.quarkus.runtime.annotations.RegisterForReflection;
+
+import java.util.List;
+
+// One item of the createEvents array, as sent by the client
+@RegisterForReflection
+public class EventInput extends GenericJson {
+    @Key
+    private String id;
+
+    @Key
+    private String summary;
+
+    @Key
+    private String location;
+
+    @Key
+    private String description;
+
+    @Key
+    private String start;
+
+    @Key
+    private String end;
+
+    @Key
+    private String timeZone;
+
+    @Key
+    private List<String> recurrence;
+
+    public String getId() {
+        return id;
+    }
+
+    public String getSummary() {
+        return summary;
+    }
+
+    public String getLocation() {
+        return location;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public String getStart() {
+        return start;
+    }
+
+    public String getEnd() {
+        return end;
+    }
+
+    public String getTimeZone() {
+        return timeZone;
+    }
+
+    public List<String> getRecurrence() {
+        return recurrence;
+    }
+}
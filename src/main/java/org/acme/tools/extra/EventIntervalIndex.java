@@ -0,0 +1,135 @@
+package org.acme.tools.extra;
+
+import com.google.api.client.util.DateTime;
+import com.google.api.services.calendar.model.Event;
+import com.google.api.services.calendar.model.EventDateTime;
+
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+// Immutable overlap index over events. Events are sorted by start time and the sorted arrays
+// are read as an implicit balanced tree where every node stores the latest end time in its
+// subtree, so an overlap query visits O(log n + k) nodes and returns hits in start order.
+public class EventIntervalIndex {
+    private final Event[] events;
+    private final long[] starts;
+    private final long[] ends;
+    private final long[] maxEnds;
+    private final ZoneId zone;
+
+    public EventIntervalIndex(List<Event> source) {
+        this(source, ZoneOffset.UTC);
+    }
+
+    // All-day events start and end at midnight in the given zone, normally the calendar's
+    public EventIntervalIndex(List<Event> source, ZoneId zone) {
+        List<Event> sorted = new ArrayList<>(source.size());
+        for (Event event : source) {
+            if (event.getStart() != null && event.getEnd() != null) {
+                sorted.add(event);
+            }
+        }
+        sorted.sort(Comparator.comparingLong((Event event) -> startMillis(event, zone))
+                .thenComparing(Event::getId, Comparator.nullsFirst(Comparator.naturalOrder())));
+        int n = sorted.size();
+        this.events = sorted.toArray(new Event[0]);
+        this.starts = new long[n];
+        this.ends = new long[n];
+        this.maxEnds = new long[n];
+        this.zone = zone;
+        for (int i = 0; i < n; i++) {
+            starts[i] = startMillis(events[i], zone);
+            ends[i] = Math.max(starts[i], endMillis(events[i], zone));
+        }
+        buildMaxEnds(0, n);
+    }
+
+    public int size() {
+        return events.length;
+    }
+
+    public ZoneId getZone() {
+        return zone;
+    }
+
+    // The zone of an events.list response's timeZone, UTC when it is missing or unknown
+    public static ZoneId zone(String timeZone) {
+        try {
+            return timeZone != null ? ZoneId.of(timeZone) : ZoneOffset.UTC;
+        } catch (DateTimeException e) {
+            return ZoneOffset.UTC;
+        }
+    }
+
+    // Events with start < max and end > min, ordered by start time
+    public List<Event> overlapping(long min, long max) {
+        List<Event> result = new ArrayList<>();
+        collect(0, events.length, min, max, result);
+        return result;
+    }
+
+    public List<Event> all() {
+        return List.of(events);
+    }
+
+    private long buildMaxEnds(int lo, int hi) {
+        if (lo >= hi) {
+            return Long.MIN_VALUE;
+        }
+        int mid = (lo + hi) >>> 1;
+        long max = Math.max(ends[mid], Math.max(buildMaxEnds(lo, mid), buildMaxEnds(mid + 1, hi)));
+        maxEnds[mid] = max;
+        return max;
+    }
+
+    private void collect(int lo, int hi, long min, long max, List<Event> result) {
+        if (lo >= hi) {
+            return;
+        }
+        int mid = (lo + hi) >>> 1;
+        if (maxEnds[mid] <= min) {
+            return;
+        }
+        collect(lo, mid, min, max, result);
+        if (starts[mid] >= max) {
+            return;
+        }
+        if (ends[mid] > min) {
+            result.add(events[mid]);
+        }
+        collect(mid + 1, hi, min, max, result);
+    }
+
+    // All-day events carry a date only, read as midnight UTC unless a zone is given
+    public static long startMillis(Event event) {
+        return millis(event.getStart(), ZoneOffset.UTC);
+    }
+
+    public static long endMillis(Event event) {
+        return millis(event.getEnd(), ZoneOffset.UTC);
+    }
+
+    public static long startMillis(Event event, ZoneId zone) {
+        return millis(event.getStart(), zone);
+    }
+
+    public static long endMillis(Event event, ZoneId zone) {
+        return millis(event.getEnd(), zone);
+    }
+
+    private static long millis(EventDateTime time, ZoneId zone) {
+        if (time.getDateTime() != null) {
+            return time.getDateTime().getValue();
+        }
+        DateTime date = time.getDate();
+        if (date == null) {
+            return 0L;
+        }
+        return LocalDate.parse(date.toStringRfc3339()).atStartOfDay(zone).toInstant().toEpochMilli();
+    }
+}
@@ -0,0 +1,93 @@
+package org.acme.tools.extra;
+
+import com.google.api.client.json.JsonFactory;
+import com.google.api.client.json.JsonGenerator;
+import com.google.api.client.util.DateTime;
+import com.google.api.services.calendar.model.Event;
+import com.google.api.services.calendar.model.EventDateTime;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Set;
+
+// Streams a listEvents reply as JSON, one event at a time, straight into the output writer.
+// Full mode: {"calendarId":..,"events":[{"id":..,"start":"2025-06-04T10:00:00.000+02:00",..}],"nextCursor":..}
+// Compact mode uses the short keys of EventField, "c"/"ev"/"n" for the envelope, epoch
+// milliseconds for times and "a":true on all-day events.
+public class EventJsonWriter {
+    private final JsonGenerator generator;
+    private final boolean compact;
+    private final Set<EventField> fields;
+    private int count;
+
+    public EventJsonWriter(JsonFactory jsonFactory, Writer out, boolean compact, Set<EventField> fields) throws IOException {
+        this.generator = jsonFactory.createJsonGenerator(out);
+        this.compact = compact;
+        this.fields = fields;
+    }
+
+    public void begin(String calendarId) throws IOException {
+        generator.writeStartObject();
+        generator.writeFieldName(compact ? "c" : "calendarId");
+        generator.writeString(calendarId);
+        generator.writeFieldName(compact ? "ev" : "events");
+        generator.writeStartArray();
+    }
+
+    public void write(Event event) throws IOException {
+        generator.writeStartObject();
+        for (EventField field : fields) {
+            switch (field) {
+                case ID -> writeString(field, event.getId());
+                case SUMMARY -> writeString(field, event.getSummary());
+                case START -> writeTime(field, event.getStart());
+                case END -> writeTime(field, event.getEnd());
+                case LOCATION -> writeString(field, event.getLocation());
+                case DESCRIPTION -> writeString(field, event.getDescription());
+                case STATUS -> writeString(field, event.getStatus());
+            }
+        }
+        if (compact && event.getStart() != null && event.getStart().getDateTime() == null) {
+            generator.writeFieldName("a");
+            generator.writeBoolean(true);
+        }
+        generator.writeEndObject();
+        count++;
+    }
+
+    // Closes the reply; a null cursor means there is nothing more to list
+    public void end(String nextCursor) throws IOException {
+        generator.writeEndArray();
+        if (nextCursor != null) {
+            generator.writeFieldName(compact ? "n" : "nextCursor");
+            generator.writeString(nextCursor);
+        }
+        generator.writeEndObject();
+        generator.flush();
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    private void writeString(EventField field, String value) throws IOException {
+        if (value != null) {
+            generator.writeFieldName(field.key(compact));
+            generator.writeString(value);
+        }
+    }
+
+    private void writeTime(EventField field, EventDateTime time) throws IOException {
+        DateTime value = time == null ? null : time.getDateTime() != null ? time.getDateTime() : time.getDate();
+        if (value == null) {
+            return;
+        }
+        generator.writeFieldName(field.key(compact));
+        if (compact) {
+            // All-day dates count from midnight UTC
+            generator.writeNumber(value.getValue());
+        } else {
+            generator.writeString(value.toStringRfc3339());
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package org.acme.tools.extra;
+
+// Bounded Levenshtein distance. Only the diagonal band of width 2k+1 is computed (Ukkonen),
+// using two rows that are reused between calls, and the computation stops as soon as a whole
+// row exceeds k. Not thread-safe; keep one instance per thread.
+public class FuzzyMatcher {
+    private int[] previous = new int[32];
+    private int[] current = new int[32];
+
+    // Edit distance between a and b when it is at most maxDistance, otherwise maxDistance + 1
+    public int distance(CharSequence a, CharSequence b, int maxDistance) {
+        int n = a.length();
+        int m = b.length();
+        int over = maxDistance + 1;
+        if (Math.abs(n - m) > maxDistance) {
+            return over;
+        }
+        if (n == 0 || m == 0) {
+            return Math.max(n, m);
+        }
+        if (previous.length < m + 2) {
+            previous = new int[m + 2];
+            current = new int[m + 2];
+        }
+        int[] prev = previous;
+        int[] cur = current;
+
+        int edge = Math.min(m, maxDistance + 1);
+        for (int j = 0; j <= edge; j++) {
+            prev[j] = Math.min(j, over);
+        }
+        for (int i = 1; i <= n; i++) {
+            int lo = Math.max(1, i - maxDistance);
+            int hi = Math.min(m, i + maxDistance);
+            cur[lo - 1] = lo == 1 ? Math.min(i, over) : over;
+            int rowMin = cur[lo - 1];
+            char ca = a.charAt(i - 1);
+            for (int j = lo; j <= hi; j++) {
+                int cost = ca == b.charAt(j - 1) ? 0 : 1;
+                int value = Math.min(prev[j - 1] + cost, Math.min(prev[j], cur[j - 1]) + 1);
+                if (value > over) {
+                    value = over;
+                }
+                cur[j] = value;
+                if (value < rowMin) {
+                    rowMin = value;
+                }
+            }
+            if (hi < m) {
+                // Right edge of the band, read by the next row
+                cur[hi + 1] = over;
+            }
+            if (rowMin > maxDistance) {
+                return over;
+            }
+            int[] swap = prev;
+            prev = cur;
+            cur = swap;
+        }
+        return prev[m];
+    }
+}
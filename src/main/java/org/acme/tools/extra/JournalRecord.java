@@ -0,0 +1,146 @@
+package org.acme.tools.extra;
+
+import com.google.api.client.json.GenericJson;
+import com.google.api.client.util.Key;
+import com.google.api.services.calendar.model.Event;
+import io.quarkus.runtime.annotations.RegisterForReflection;
+
+// One line of the write-behind journal: a queued create or delete, the final state of an earlier
+// one (done), or the last sequence number handed out before the journal was compacted (checkpoint)
+@RegisterForReflection
+public class JournalRecord extends GenericJson {
+    public static final String CREATE = "create";
+    public static final String DELETE = "delete";
+    public static final String DONE = "done";
+    public static final String CHECKPOINT = "checkpoint";
+
+    @Key
+    private Long seq;
+
+    @Key
+    private String op;
+
+    @Key
+    private String tenant;
+
+    @Key
+    private String calendarId;
+
+    @Key
+    private String eventId;
+
+    @Key
+    private Event event;
+
+    // Epoch millis the mutation was accepted at
+    @Key
+    private Long at;
+
+    @Key
+    private String state;
+
+    @Key
+    private Integer statusCode;
+
+    @Key
+    private String message;
+
+    public static JournalRecord done(QueuedMutation mutation) {
+        return new JournalRecord()
+                .setSeq(mutation.getSeq())
+                .setOp(DONE)
+                .setState(mutation.getState().name())
+                .setStatusCode(mutation.getStatusCode() > 0 ? mutation.getStatusCode() : null)
+                .setMessage(mutation.getMessage());
+    }
+
+    public Long getSeq() {
+        return seq;
+    }
+
+    public JournalRecord setSeq(Long seq) {
+        this.seq = seq;
+        return this;
+    }
+
+    public String getOp() {
+        return op;
+    }
+
+    public JournalRecord setOp(String op) {
+        this.op = op;
+        return this;
+    }
+
+    public String getTenant() {
+        return tenant;
+    }
+
+    public JournalRecord setTenant(String tenant) {
+        this.tenant = tenant;
+        return this;
+    }
+
+    public String getCalendarId() {
+        return calendarId;
+    }
+
+    public JournalRecord setCalendarId(String calendarId) {
+        this.calendarId = calendarId;
+        return this;
+    }
+
+    public String getEventId() {
+        return eventId;
+    }
+
+    public JournalRecord setEventId(String eventId) {
+        this.eventId = eventId;
+        return this;
+    }
+
+    public Event getEvent() {
+        return event;
+    }
+
+    public JournalRecord setEvent(Event event) {
+        this.event = event;
+        return this;
+    }
+
+    public Long getAt() {
+        return at;
+    }
+
+    public JournalRecord setAt(Long at) {
+        this.at = at;
+        return this;
+    }
+
+    public String getState() {
+        return state;
+    }
+
+    public JournalRecord setState(String state) {
+        this.state = state;
+        return this;
+    }
+
+    public Integer getStatusCode() {
+        return statusCode;
+    }
+
+    public JournalRecord setStatusCode(Integer statusCode) {
+        this.statusCode = statusCode;
+        return this;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public JournalRecord setMessage(String message) {
+        this.message = message;
+        return this;
+    }
+}
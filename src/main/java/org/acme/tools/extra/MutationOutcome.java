@@ -0,0 +1,45 @@
+package org.acme.tools.extra;
+
+public class MutationOutcome {
+    private final String key;
+    private final boolean succeeded;
+    private final int statusCode;
+    private final String message;
+    private final int attempts;
+
+    public MutationOutcome(String key, boolean succeeded, int statusCode, String message, int attempts) {
+        this.key = key;
+        this.succeeded = succeeded;
+        this.statusCode = statusCode;
+        this.message = message;
+        this.attempts = attempts;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public boolean isSucceeded() {
+        return succeeded;
+    }
+
+    public int getStatusCode() {
+        return statusCode;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public int getAttempts() {
+        return attempts;
+    }
+
+    @Override
+    public String toString() {
+        if (succeeded) {
+            return key + ": OK";
+        }
+        return key + ": " + message + (statusCode > 0 ? " (HTTP " + statusCode + ")" : "");
+    }
+}
@@ -0,0 +1,147 @@
+package org.acme.tools.extra;
+
+import com.google.api.services.calendar.model.Event;
+
+import java.time.Instant;
+
+// A create or delete accepted in write-behind mode, and how far it has got
+public class QueuedMutation {
+    public enum State {
+        PENDING, APPLIED, FAILED, CANCELLED
+    }
+
+    private final long seq;
+    private final String op;
+    private final String tenant;
+    private final String calendarId;
+    private final String eventId;
+    private final Event event;
+    private final Instant acceptedAt;
+    private State state = State.PENDING;
+    private int attempts;
+    private int rounds;
+    private int statusCode;
+    private String message;
+    private long notBefore;
+
+    public QueuedMutation(long seq, String op, String tenant, String calendarId, String eventId, Event event, Instant acceptedAt) {
+        this.seq = seq;
+        this.op = op;
+        this.tenant = tenant;
+        this.calendarId = calendarId;
+        this.eventId = eventId;
+        this.event = event;
+        this.acceptedAt = acceptedAt;
+    }
+
+    public static String id(long seq) {
+        return "m" + seq;
+    }
+
+    public String getId() {
+        return id(seq);
+    }
+
+    public long getSeq() {
+        return seq;
+    }
+
+    public String getOp() {
+        return op;
+    }
+
+    public String getTenant() {
+        return tenant;
+    }
+
+    public String getCalendarId() {
+        return calendarId;
+    }
+
+    public String getEventId() {
+        return eventId;
+    }
+
+    // The event to insert; null for deletes
+    public Event getEvent() {
+        return event;
+    }
+
+    public Instant getAcceptedAt() {
+        return acceptedAt;
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    public synchronized int getAttempts() {
+        return attempts;
+    }
+
+    public synchronized int getStatusCode() {
+        return statusCode;
+    }
+
+    public synchronized String getMessage() {
+        return message;
+    }
+
+    // Drain passes that sent the mutation without a final answer
+    public synchronized int getRounds() {
+        return rounds;
+    }
+
+    // System.nanoTime() before which the mutation is not sent again
+    public synchronized long getNotBefore() {
+        return notBefore;
+    }
+
+    public synchronized boolean isPending() {
+        return state == State.PENDING;
+    }
+
+    public synchronized void finish(State state, int statusCode, String message) {
+        this.state = state;
+        this.statusCode = statusCode;
+        this.message = message;
+    }
+
+    public synchronized void attempted(int attempts, int statusCode, String message, long notBefore) {
+        this.attempts += attempts;
+        this.rounds++;
+        this.statusCode = statusCode;
+        this.message = message;
+        this.notBefore = notBefore;
+    }
+
+    @Override
+    public synchronized String toString() {
+        StringBuilder sb = new StringBuilder(getId()).append(": ").append(op).append(" event ").append(eventId)
+                .append(" in calendar ").append(calendarId).append(", ");
+        switch (state) {
+            case PENDING:
+                sb.append("pending");
+                if (attempts > 0) {
+                    sb.append(" after ").append(attempts).append(" attempt(s), last error: ").append(message)
+                            .append(statusCode > 0 ? " (HTTP " + statusCode + ")" : "");
+                }
+                break;
+            case APPLIED:
+                sb.append("applied");
+                if (message != null) {
+                    sb.append(" (").append(message).append(")");
+                }
+                break;
+            case FAILED:
+                sb.append("failed: ").append(message).append(statusCode > 0 ? " (HTTP " + statusCode + ")" : "");
+                break;
+            case CANCELLED:
+                sb.append("cancelled: ").append(message);
+                break;
+            default:
+                break;
+        }
+        return sb.append(", accepted ").append(acceptedAt).toString();
+    }
+}
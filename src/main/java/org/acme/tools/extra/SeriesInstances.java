@@ -0,0 +1,104 @@
+package org.acme.tools.extra;
+
+import com.google.api.client.util.DateTime;
+import com.google.api.services.calendar.model.Event;
+import com.google.api.services.calendar.model.EventDateTime;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+// Expanded instances of one recurring event, in start order, as returned by events().instances().
+// Instances are looked up by their original start, which is what identifies them even after
+// being moved. When the series was too long to load in full, only its first instances are here.
+public class SeriesInstances {
+    private static final Pattern OFFSET = Pattern.compile(".*(Z|[+-]\\d{2}:\\d{2})$");
+
+    private final List<Event> instances;
+    private final boolean complete;
+    private final long loadedAt;
+
+    public SeriesInstances(List<Event> instances, boolean complete) {
+        this(instances, complete, System.nanoTime());
+    }
+
+    private SeriesInstances(List<Event> instances, boolean complete, long loadedAt) {
+        this.instances = List.copyOf(instances);
+        this.complete = complete;
+        this.loadedAt = loadedAt;
+    }
+
+    public List<Event> getInstances() {
+        return instances;
+    }
+
+    public boolean isComplete() {
+        return complete;
+    }
+
+    public long getLoadedAt() {
+        return loadedAt;
+    }
+
+    // Start of the last loaded instance, or Long.MIN_VALUE if there are none
+    public long horizon() {
+        return instances.isEmpty() ? Long.MIN_VALUE : EventIntervalIndex.startMillis(instances.get(instances.size() - 1));
+    }
+
+    // Instances overlapping [min, max)
+    public List<Event> overlapping(long min, long max) {
+        List<Event> matches = new ArrayList<>();
+        for (Event instance : instances) {
+            if (EventIntervalIndex.startMillis(instance) < max && EventIntervalIndex.endMillis(instance) > min) {
+                matches.add(instance);
+            }
+        }
+        return matches;
+    }
+
+    // The instance originally scheduled at instanceDate, or null. A date matches the instance on
+    // that day; a date-time with an offset must be the same instant, one without an offset is
+    // compared with the wall-clock time of the instance in its own time zone.
+    public Event find(String instanceDate) {
+        DateTime wanted = new DateTime(instanceDate);
+        boolean instant = OFFSET.matcher(instanceDate).matches();
+        LocalDate day = LocalDate.parse(instanceDate.substring(0, 10));
+        for (Event instance : instances) {
+            EventDateTime original = instance.getOriginalStartTime() != null
+                    ? instance.getOriginalStartTime() : instance.getStart();
+            if (original == null) {
+                continue;
+            }
+            DateTime start = original.getDateTime();
+            if (wanted.isDateOnly() || start == null) {
+                if (day.equals(localDate(original))) {
+                    return instance;
+                }
+            } else if (instant ? start.getValue() == wanted.getValue() : wallClock(start) == wanted.getValue()) {
+                return instance;
+            }
+        }
+        return null;
+    }
+
+    public SeriesInstances without(String instanceId) {
+        List<Event> remaining = new ArrayList<>(instances);
+        remaining.removeIf(instance -> instanceId.equals(instance.getId()));
+        return new SeriesInstances(remaining, complete, loadedAt);
+    }
+
+    private static LocalDate localDate(EventDateTime time) {
+        if (time.getDate() != null) {
+            return LocalDate.parse(time.getDate().toStringRfc3339());
+        }
+        return LocalDate.ofInstant(Instant.ofEpochMilli(wallClock(time.getDateTime())), ZoneOffset.UTC);
+    }
+
+    // The local time of day as if it were UTC, which is how a date-time without offset is parsed
+    private static long wallClock(DateTime time) {
+        return time.getValue() + time.getTimeZoneShift() * 60_000L;
+    }
+}
@@ -0,0 +1,103 @@
+package org.acme.tools.extra;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// Free slots around a set of busy intervals. Starts and ends are kept in growable primitive arrays
+// and sorted separately; a sweep over both counts how many intervals are open and emits their
+// union where the count returns to zero, so no interval objects are allocated or compared.
+public class SlotFinder {
+    private long[] starts = new long[64];
+    private long[] ends = new long[64];
+    private int size;
+
+    public void addBusy(long start, long end) {
+        if (end <= start) {
+            return;
+        }
+        if (size == starts.length) {
+            starts = Arrays.copyOf(starts, size * 2);
+            ends = Arrays.copyOf(ends, size * 2);
+        }
+        starts[size] = start;
+        ends[size] = end;
+        size++;
+    }
+
+    public int getBusyCount() {
+        return size;
+    }
+
+    // Up to limit slots of the given length inside the windows (sorted, not overlapping), earliest
+    // first. Slots start at multiples of step from the start of their window, every step through
+    // each free gap, so one long gap can supply several overlapping candidates.
+    public List<Slot> find(long[] windowStarts, long[] windowEnds, int windows, long length, long step, int limit) {
+        long[] busyStarts = new long[size];
+        long[] busyEnds = new long[size];
+        int busy = merge(busyStarts, busyEnds);
+        List<Slot> slots = new ArrayList<>();
+        int next = 0;
+        for (int w = 0; w < windows; w++) {
+            long cursor = windowStarts[w];
+            long windowEnd = windowEnds[w];
+            while (cursor < windowEnd) {
+                while (next < busy && busyEnds[next] <= cursor) {
+                    next++;
+                }
+                boolean blocked = next < busy && busyStarts[next] < windowEnd;
+                long gapEnd = blocked ? Math.max(cursor, busyStarts[next]) : windowEnd;
+                for (long slotStart = windowStarts[w] + ceilDiv(cursor - windowStarts[w], step) * step;
+                     slotStart + length <= gapEnd; slotStart += step) {
+                    slots.add(new Slot(slotStart, slotStart + length, gapEnd));
+                    if (slots.size() >= limit) {
+                        return slots;
+                    }
+                }
+                if (!blocked) {
+                    break;
+                }
+                cursor = busyEnds[next];
+            }
+        }
+        return slots;
+    }
+
+    // Union of the busy intervals into sorted, disjoint runs; intervals that touch are joined
+    private int merge(long[] runStarts, long[] runEnds) {
+        if (size == 0) {
+            return 0;
+        }
+        long[] s = Arrays.copyOf(starts, size);
+        long[] e = Arrays.copyOf(ends, size);
+        Arrays.sort(s);
+        Arrays.sort(e);
+        int runs = 0;
+        int open = 0;
+        int j = 0;
+        for (int i = 0; i < size; ) {
+            if (s[i] <= e[j]) {
+                if (open++ == 0) {
+                    runStarts[runs] = s[i];
+                }
+                i++;
+            } else {
+                if (--open == 0) {
+                    runEnds[runs++] = e[j];
+                }
+                j++;
+            }
+        }
+        // Every start is consumed; the latest end closes the last run
+        runEnds[runs++] = e[size - 1];
+        return runs;
+    }
+
+    private static long ceilDiv(long value, long divisor) {
+        return -Math.floorDiv(-value, divisor);
+    }
+
+    // A free slot and the end of the free time it was taken from
+    public record Slot(long start, long end, long freeUntil) {
+    }
+}
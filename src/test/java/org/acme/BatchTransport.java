@@ -0,0 +1,91 @@
+package org.acme;
+
+import com.google.api.client.http.LowLevelHttpRequest;
+import com.google.api.client.http.LowLevelHttpResponse;
+import com.google.api.client.testing.http.MockHttpTransport;
+import com.google.api.client.testing.http.MockLowLevelHttpRequest;
+import com.google.api.client.testing.http.MockLowLevelHttpResponse;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiFunction;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// Stand-in for the Calendar batch endpoint. Every batch is one round trip; each part is answered
+// by a function of the last path segment (the event ID of a delete, "events" for an insert) and
+// how many times that segment has been sent, so tests can fail chosen items on chosen attempts.
+class BatchTransport extends MockHttpTransport {
+    private static final Pattern PART_REQUEST = Pattern.compile("(?m)^(GET|POST|PUT|PATCH|DELETE) (\\S+) HTTP/1\\.1");
+
+    private final BiFunction<String, Integer, Part> answer;
+    private final Map<String, Integer> sent = new ConcurrentHashMap<>();
+    final List<List<String>> batches = Collections.synchronizedList(new ArrayList<>());
+
+    BatchTransport(BiFunction<String, Integer, Part> answer) {
+        this.answer = answer;
+    }
+
+    record Part(int status, String reason) {
+        static Part ok() {
+            return new Part(204, null);
+        }
+
+        static Part error(int status, String reason) {
+            return new Part(status, reason);
+        }
+    }
+
+    int attempts(String key) {
+        return sent.getOrDefault(key, 0);
+    }
+
+    @Override
+    public LowLevelHttpRequest buildRequest(String method, String url) {
+        return new MockLowLevelHttpRequest(url) {
+            @Override
+            public LowLevelHttpResponse execute() throws IOException {
+                if (!url.contains("/batch/")) {
+                    return new MockLowLevelHttpResponse().setStatusCode(404);
+                }
+                List<String> keys = new ArrayList<>();
+                StringBuilder body = new StringBuilder();
+                Matcher parts = PART_REQUEST.matcher(getContentAsString());
+                int index = 0;
+                while (parts.find()) {
+                    String path = parts.group(2);
+                    String key = path.substring(path.lastIndexOf('/') + 1);
+                    keys.add(key);
+                    Part part = answer.apply(key, sent.merge(key, 1, Integer::sum));
+                    body.append("--reply\r\nContent-Type: application/http\r\nContent-ID: <response-")
+                            .append(++index).append(">\r\n\r\n");
+                    if (part.status() < 300 && !parts.group(1).equals("DELETE")) {
+                        // Inserts and updates are parsed into the written resource
+                        body.append("HTTP/1.1 200 OK\r\nContent-Type: application/json; charset=UTF-8\r\n")
+                                .append("Content-Length: 2\r\n\r\n{}\r\n");
+                    } else if (part.status() < 300) {
+                        body.append("HTTP/1.1 ").append(part.status()).append(" OK\r\nContent-Length: 0\r\n\r\n\r\n");
+                    } else {
+                        String json = "{\"error\":{\"code\":" + part.status() + ",\"message\":\"" + part.reason()
+                                + "\",\"errors\":[{\"domain\":\"global\",\"reason\":\"" + part.reason() + "\",\"message\":\""
+                                + part.reason() + "\"}]}}";
+                        body.append("HTTP/1.1 ").append(part.status()).append(" Error\r\n")
+                                .append("Content-Type: application/json; charset=UTF-8\r\n")
+                                .append("Content-Length: ").append(json.length()).append("\r\n\r\n")
+                                .append(json).append("\r\n");
+                    }
+                }
+                body.append("--reply--\r\n");
+                batches.add(keys);
+                return new MockLowLevelHttpResponse()
+                        .setStatusCode(200)
+                        .setContentType("multipart/mixed; boundary=reply")
+                        .setContent(body.toString());
+            }
+        };
+    }
+}
@@ -0,0 +1,165 @@
+package org.acme;
+
+import com.google.api.client.json.gson.GsonFactory;
+import com.google.api.services.calendar.Calendar;
+import org.acme.tools.extra.BulkResult;
+import org.acme.tools.extra.MutationOutcome;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BulkMutationEngineTest {
+    private CalendarExecutor executor;
+
+    @AfterEach
+    void shutdown() {
+        if (executor != null) {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void deletesTakeOneRoundTripPerBatch() throws IOException {
+        BatchTransport transport = new BatchTransport((id, attempt) -> BatchTransport.Part.ok());
+        BulkMutationEngine engine = engine(transport);
+
+        BulkResult result = engine.execute(deletes(engine, 120));
+
+        assertEquals(3, result.getRoundTrips());
+        assertEquals(3, transport.batches.size());
+        assertEquals(120, result.getSucceededCount());
+    }
+
+    @Test
+    void onlyFailedItemsAreRetried() throws IOException {
+        Set<String> flaky = Set.of("e7", "e51", "e99");
+        BatchTransport transport = new BatchTransport((id, attempt) -> flaky.contains(id) && attempt == 1
+                ? BatchTransport.Part.error(503, "backendError")
+                : BatchTransport.Part.ok());
+        BulkMutationEngine engine = engine(transport);
+
+        BulkResult result = engine.execute(deletes(engine, 120));
+
+        assertEquals(4, result.getRoundTrips());
+        assertEquals(Set.copyOf(transport.batches.get(3)), flaky);
+        assertEquals(120, result.getSucceededCount());
+        for (MutationOutcome outcome : result.getOutcomes()) {
+            assertEquals(flaky.contains(outcome.getKey()) ? 2 : 1, transport.attempts(outcome.getKey()));
+        }
+    }
+
+    @Test
+    void permanentFailuresAreNotRetriedAndGoneEventsCountAsDeleted() throws IOException {
+        BatchTransport transport = new BatchTransport((id, attempt) -> {
+            switch (id) {
+                case "e1":
+                    return BatchTransport.Part.error(410, "deleted");
+                case "e3":
+                    return BatchTransport.Part.error(404, "notFound");
+                case "e2":
+                    return BatchTransport.Part.error(400, "badRequest");
+                default:
+                    return BatchTransport.Part.ok();
+            }
+        });
+        BulkMutationEngine engine = engine(transport);
+
+        BulkResult result = engine.execute(deletes(engine, 10));
+
+        assertEquals(1, result.getRoundTrips());
+        assertEquals(9, result.getSucceededCount());
+        assertEquals(1, result.getFailures().size());
+        MutationOutcome failure = result.getFailures().get(0);
+        assertEquals("e2", failure.getKey());
+        assertEquals(400, failure.getStatusCode());
+        assertFalse(failure.isSucceeded());
+    }
+
+    @Test
+    void retriesStopAfterMaxAttempts() throws IOException {
+        BatchTransport transport = new BatchTransport((id, attempt) -> "e3".equals(id)
+                ? BatchTransport.Part.error(503, "backendError")
+                : BatchTransport.Part.ok());
+        BulkMutationEngine engine = engine(transport);
+
+        BulkResult result = engine.execute(deletes(engine, 5));
+
+        assertEquals(engine.maxAttempts, transport.attempts("e3"));
+        assertEquals(4, result.getSucceededCount());
+        assertTrue(result.describeFailures().contains("e3"));
+    }
+
+    @Test
+    void failingPartsDoNotHoldUpOrFailTheirBatch() {
+        BatchTransport transport = new BatchTransport((id, attempt) -> {
+            switch (id) {
+                case "e1":
+                    return attempt == 1 ? BatchTransport.Part.error(403, "rateLimitExceeded") : BatchTransport.Part.ok();
+                case "e2":
+                    return BatchTransport.Part.error(403, "forbidden");
+                case "e3":
+                    return attempt == 1 ? BatchTransport.Part.error(429, "rateLimitExceeded") : BatchTransport.Part.ok();
+                default:
+                    return BatchTransport.Part.ok();
+            }
+        });
+        BulkMutationEngine engine = engine(transport);
+
+        // The limiter would back off for 10 s per quota error if it handled part responses
+        BulkResult result = assertTimeoutPreemptively(Duration.ofSeconds(5), () -> engine.execute(deletes(engine, 10)));
+
+        assertEquals(2, result.getRoundTrips());
+        assertEquals(Set.of("e1", "e3"), Set.copyOf(transport.batches.get(1)));
+        assertEquals(9, result.getSucceededCount());
+        MutationOutcome forbidden = result.getFailures().get(0);
+        assertEquals("e2", forbidden.getKey());
+        assertEquals(403, forbidden.getStatusCode());
+        // Neither BatchRequest nor the engine sent it again
+        assertEquals(1, transport.attempts("e2"));
+        assertEquals(2, transport.attempts("e1"));
+        assertTrue(engine.rateLimiter.getQuotaErrorCount() >= 1);
+        assertEquals(0, engine.rateLimiter.getRetryCount());
+    }
+
+    private BulkMutationEngine engine(BatchTransport transport) {
+        executor = new CalendarExecutor();
+        executor.maxConcurrency = 4;
+        executor.init();
+        CalendarRateLimiter rateLimiter = new CalendarRateLimiter();
+        rateLimiter.jsonFactory = GsonFactory.getDefaultInstance();
+        rateLimiter.tenantRegistry = CalendarRateLimiterTest.tenants(1000);
+        rateLimiter.minQps = 1;
+        rateLimiter.maxRetries = 6;
+        rateLimiter.backoffMillis = 10_000;
+        rateLimiter.maxBackoffMillis = 10_000;
+
+        BulkMutationEngine engine = new BulkMutationEngine();
+        engine.calendarService = new Calendar.Builder(transport, GsonFactory.getDefaultInstance(), rateLimiter.wrap(null))
+                .setApplicationName("test")
+                .build();
+        engine.calendarExecutor = executor;
+        engine.rateLimiter = rateLimiter;
+        engine.batchSize = 50;
+        engine.maxAttempts = 4;
+        engine.backoffMillis = 1;
+        return engine;
+    }
+
+    private static List<BulkMutationEngine.Mutation> deletes(BulkMutationEngine engine, int count) throws IOException {
+        List<BulkMutationEngine.Mutation> deletes = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            deletes.add(engine.delete("primary", "e" + i));
+        }
+        return deletes;
+    }
+}
@@ -0,0 +1,160 @@
+package org.acme;
+
+import com.google.api.client.googleapis.json.GoogleJsonResponseException;
+import com.google.api.client.http.LowLevelHttpRequest;
+import com.google.api.client.http.LowLevelHttpResponse;
+import com.google.api.client.json.gson.GsonFactory;
+import com.google.api.client.testing.http.MockHttpTransport;
+import com.google.api.client.testing.http.MockLowLevelHttpRequest;
+import com.google.api.client.testing.http.MockLowLevelHttpResponse;
+import com.google.api.services.calendar.Calendar;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CalendarRateLimiterTest {
+    private CalendarRateLimiter limiter;
+    private StubTransport transport;
+    private Calendar calendar;
+
+    @BeforeEach
+    void setUp() {
+        limiter = new CalendarRateLimiter();
+        limiter.jsonFactory = GsonFactory.getDefaultInstance();
+        limiter.tenantRegistry = tenants(100);
+        limiter.minQps = 1;
+        limiter.maxRetries = 6;
+        limiter.backoffMillis = 100;
+        limiter.maxBackoffMillis = 5_000;
+        transport = new StubTransport();
+        calendar = new Calendar.Builder(transport, GsonFactory.getDefaultInstance(), limiter.wrap(null))
+                .setApplicationName("test")
+                .build();
+    }
+
+    @Test
+    void retryAfterIsHonouredAndLowersTheRate() throws IOException {
+        transport.reply(error(429, "rateLimitExceeded").addHeader("Retry-After", "1"));
+        transport.reply(event());
+
+        long start = System.nanoTime();
+        calendar.events().get("primary", "e1").execute();
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+
+        assertTrue(elapsedMillis >= 950, "retried after " + elapsedMillis + " ms");
+        assertEquals(2, transport.requests.get());
+        assertEquals(1, limiter.getRetryCount());
+        assertEquals(1, limiter.getQuotaErrorCount());
+        // Halved, then one success adds back 1% of the configured rate
+        assertEquals(51, limiter.getCurrentRate(), 0.001);
+    }
+
+    @Test
+    void rateLimitedForbiddenIsRetriedWithExponentialBackoff() throws IOException {
+        transport.reply(error(403, "rateLimitExceeded"));
+        transport.reply(error(403, "userRateLimitExceeded"));
+        transport.reply(event());
+
+        long start = System.nanoTime();
+        calendar.events().get("primary", "e1").execute();
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+
+        // At least half of 100 ms, then half of 200 ms
+        assertTrue(elapsedMillis >= 150, "retried after " + elapsedMillis + " ms");
+        assertEquals(3, transport.requests.get());
+        assertEquals(2, limiter.getRetryCount());
+        assertEquals(2, limiter.getQuotaErrorCount());
+    }
+
+    @Test
+    void otherForbiddenIsNotRetriedAndKeepsItsReason() {
+        transport.reply(error(403, "forbidden"));
+
+        GoogleJsonResponseException e = assertThrows(GoogleJsonResponseException.class,
+                () -> calendar.events().get("primary", "e1").execute());
+
+        assertEquals("forbidden", e.getDetails().getErrors().get(0).getReason());
+        assertEquals(1, transport.requests.get());
+        assertEquals(0, limiter.getQuotaErrorCount());
+        assertEquals(100, limiter.getCurrentRate(), 0.001);
+    }
+
+    @Test
+    void burstOfQuotaErrorsHalvesTheRateOnceAndSuccessesRestoreIt() {
+        limiter.onQuotaError();
+        limiter.onQuotaError();
+        assertEquals(50, limiter.getCurrentRate(), 0.001);
+        assertEquals(2, limiter.getQuotaErrorCount());
+
+        for (int i = 0; i < 1000; i++) {
+            limiter.tenantRegistry.budget().increase();
+        }
+        assertEquals(100, limiter.getCurrentRate(), 0.001);
+    }
+
+    @Test
+    void quotaErrorsOfOneTenantLeaveTheOthersAlone() throws Exception {
+        transport.reply(error(429, "userRateLimitExceeded").addHeader("Retry-After", "0"));
+        transport.reply(event());
+
+        TenantContext.call("other", () -> calendar.events().get("primary", "e1").execute());
+
+        assertEquals(51, TenantContext.call("other", limiter::getCurrentRate), 0.001);
+        assertEquals(100, limiter.getCurrentRate(), 0.001);
+        assertEquals(51, limiter.tenantRegistry.getLowestRate(), 0.001);
+    }
+
+    // Tenants without credentials, as with the simulator
+    static TenantRegistry tenants(double qps) {
+        TenantRegistry registry = new TenantRegistry();
+        registry.simulated = true;
+        registry.tenantQps = qps;
+        registry.maxTenants = 10;
+        registry.idleTimeout = Duration.ofMinutes(30);
+        return registry;
+    }
+
+    private static MockLowLevelHttpResponse event() {
+        return new MockLowLevelHttpResponse()
+                .setContentType("application/json; charset=UTF-8")
+                .setContent("{\"id\":\"e1\"}");
+    }
+
+    private static MockLowLevelHttpResponse error(int status, String reason) {
+        return new MockLowLevelHttpResponse()
+                .setStatusCode(status)
+                .setContentType("application/json; charset=UTF-8")
+                .setContent("{\"error\":{\"code\":" + status + ",\"message\":\"" + reason + "\",\"errors\":[{\"domain\":\"usageLimits\",\"reason\":\""
+                        + reason + "\",\"message\":\"" + reason + "\"}]}}");
+    }
+
+    // Answers requests with the queued responses in order
+    private static class StubTransport extends MockHttpTransport {
+        final Deque<MockLowLevelHttpResponse> replies = new ArrayDeque<>();
+        final AtomicInteger requests = new AtomicInteger();
+
+        void reply(MockLowLevelHttpResponse response) {
+            replies.add(response);
+        }
+
+        @Override
+        public LowLevelHttpRequest buildRequest(String method, String url) {
+            return new MockLowLevelHttpRequest(url) {
+                @Override
+                public LowLevelHttpResponse execute() {
+                    requests.incrementAndGet();
+                    return replies.poll();
+                }
+            };
+        }
+    }
+}
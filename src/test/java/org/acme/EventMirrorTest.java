@@ -0,0 +1,161 @@
+package org.acme;
+
+import com.google.api.client.http.LowLevelHttpRequest;
+import com.google.api.client.http.LowLevelHttpResponse;
+import com.google.api.client.json.gson.GsonFactory;
+import com.google.api.client.testing.http.MockHttpTransport;
+import com.google.api.client.testing.http.MockLowLevelHttpRequest;
+import com.google.api.client.testing.http.MockLowLevelHttpResponse;
+import com.google.api.services.calendar.Calendar;
+import com.google.api.services.calendar.model.Event;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class EventMirrorTest {
+    private EventMirror mirror;
+    private StubTransport transport;
+
+    @BeforeEach
+    void setUp() {
+        transport = new StubTransport();
+        mirror = new EventMirror();
+        mirror.calendarService = new Calendar.Builder(transport, GsonFactory.getDefaultInstance(), null)
+                .setApplicationName("test")
+                .build();
+        mirror.watchChannels = new WatchChannels();
+        mirror.enabled = true;
+        mirror.syncInterval = Duration.ofHours(1);
+    }
+
+    @Test
+    void fullSyncThatFailsHalfwayLeavesNothingBehind() throws IOException {
+        transport.reply(page("UTC", "p2", null, timed("a"), timed("b")));
+        transport.reply(new MockLowLevelHttpResponse().setStatusCode(500));
+
+        assertThrows(IOException.class, () -> mirror.index("primary"));
+
+        // "b" was deleted in between; the retry is a full sync again and must not keep it
+        transport.reply(page("UTC", null, "s1", timed("a")));
+        assertEquals(List.of("a"), ids(mirror.index("primary").all()));
+        assertFalse(transport.urls.get(2).contains("Token="), transport.urls.get(2));
+    }
+
+    @Test
+    void expiredSyncTokenReplacesTheCopy() throws IOException {
+        transport.reply(page("UTC", null, "s1", timed("a"), timed("b")));
+        mirror.index("primary");
+
+        mirror.syncInterval = Duration.ZERO;
+        transport.reply(error(410));
+        transport.reply(page("UTC", null, "s2", timed("b")));
+        assertEquals(List.of("b"), ids(mirror.index("primary").all()));
+    }
+
+    @Test
+    void watchedCalendarIsStillSyncedAfterMaxStaleness() throws IOException {
+        mirror.watchChannels = new WatchChannels() {
+            @Override
+            public boolean watchEvents(String calendarId) {
+                return true;
+            }
+        };
+        mirror.watchChannels.maxStaleness = Duration.ofHours(1);
+        mirror.syncInterval = Duration.ZERO;
+        transport.reply(page("UTC", null, "s1", timed("a")));
+        mirror.index("primary");
+
+        // The channel reports changes, so the short sync interval does not apply
+        mirror.index("primary");
+        assertEquals(1, transport.urls.size());
+
+        mirror.watchChannels.maxStaleness = Duration.ZERO;
+        transport.reply(page("UTC", null, "s2", timed("b")));
+        assertEquals(List.of("a", "b"), ids(mirror.index("primary").all()));
+        assertEquals(2, transport.urls.size());
+    }
+
+    @Test
+    void allDayEventsFollowTheCalendarTimeZone() throws IOException {
+        transport.reply(page("America/New_York", null, "s1", allDay("holiday", "2025-06-04", "2025-06-05")));
+
+        // The day runs from 04:00 UTC on June 4 to 04:00 UTC on June 5 in New York
+        assertEquals(List.of(), ids(mirror.query("primary", null, millis("2025-06-04T02:00:00Z"), millis("2025-06-04T03:00:00Z"))));
+        assertEquals(List.of("holiday"), ids(mirror.query("primary", null, millis("2025-06-05T02:00:00Z"), millis("2025-06-05T03:00:00Z"))));
+    }
+
+    private static long millis(String instant) {
+        return Instant.parse(instant).toEpochMilli();
+    }
+
+    private static List<String> ids(List<Event> events) {
+        List<String> ids = new ArrayList<>();
+        for (Event event : events) {
+            ids.add(event.getId());
+        }
+        return ids;
+    }
+
+    private static String timed(String id) {
+        return "{\"id\":\"" + id + "\",\"status\":\"confirmed\",\"start\":{\"dateTime\":\"2025-06-04T10:00:00Z\"},"
+                + "\"end\":{\"dateTime\":\"2025-06-04T11:00:00Z\"}}";
+    }
+
+    private static String allDay(String id, String start, String end) {
+        return "{\"id\":\"" + id + "\",\"status\":\"confirmed\",\"start\":{\"date\":\"" + start + "\"},"
+                + "\"end\":{\"date\":\"" + end + "\"}}";
+    }
+
+    private static MockLowLevelHttpResponse page(String timeZone, String nextPageToken, String nextSyncToken, String... items) {
+        StringBuilder json = new StringBuilder("{\"timeZone\":\"").append(timeZone).append('"');
+        if (nextPageToken != null) {
+            json.append(",\"nextPageToken\":\"").append(nextPageToken).append('"');
+        }
+        if (nextSyncToken != null) {
+            json.append(",\"nextSyncToken\":\"").append(nextSyncToken).append('"');
+        }
+        json.append(",\"items\":[").append(String.join(",", items)).append("]}");
+        return new MockLowLevelHttpResponse()
+                .setContentType("application/json; charset=UTF-8")
+                .setContent(json.toString());
+    }
+
+    private static MockLowLevelHttpResponse error(int status) {
+        return new MockLowLevelHttpResponse()
+                .setStatusCode(status)
+                .setContentType("application/json; charset=UTF-8")
+                .setContent("{\"error\":{\"code\":" + status + ",\"message\":\"gone\",\"errors\":[{\"reason\":\"fullSyncRequired\"}]}}");
+    }
+
+    // Answers requests with the queued responses in order and keeps their URLs
+    private static class StubTransport extends MockHttpTransport {
+        final Deque<MockLowLevelHttpResponse> replies = new ArrayDeque<>();
+        final List<String> urls = new ArrayList<>();
+
+        void reply(MockLowLevelHttpResponse response) {
+            replies.add(response);
+        }
+
+        @Override
+        public LowLevelHttpRequest buildRequest(String method, String url) {
+            urls.add(url);
+            return new MockLowLevelHttpRequest(url) {
+                @Override
+                public LowLevelHttpResponse execute() {
+                    return replies.poll();
+                }
+            };
+        }
+    }
+}
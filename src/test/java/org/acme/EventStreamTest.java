@@ -0,0 +1,34 @@
+package org.acme;
+
+import com.google.api.services.calendar.model.Event;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class EventStreamTest {
+    private final List<Event> events = List.of(new Event().setId("a"), new Event().setId("b"), new Event().setId("c"));
+
+    @Test
+    void cursorResumesAtTheOffset() throws IOException {
+        EventStream stream = EventStream.of(events, null);
+        stream.next();
+
+        EventStream resumed = EventStream.of(events, stream.cursor());
+        assertEquals("b", resumed.next().getId());
+        assertEquals("c", resumed.next().getId());
+        assertNull(resumed.cursor());
+    }
+
+    @Test
+    void foreignOrMalformedCursorsAreRejected() {
+        // "12:34" must not be read as offset 1234, and a pager cursor carries a page token
+        for (String cursor : new String[]{"12:34", "1:CigKGjVx", "1", ":", "-1:", "x:"}) {
+            assertThrows(IllegalArgumentException.class, () -> EventStream.of(events, cursor), cursor);
+        }
+    }
+}
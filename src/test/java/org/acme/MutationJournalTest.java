@@ -0,0 +1,55 @@
+package org.acme;
+
+import com.google.api.client.json.gson.GsonFactory;
+import org.acme.tools.extra.JournalRecord;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class MutationJournalTest {
+    private final GsonFactory json = GsonFactory.getDefaultInstance();
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void tornLastLineIsDroppedOnReplay() throws Exception {
+        Path path = dir.resolve("mutations.log");
+        try (MutationJournal journal = new MutationJournal(path, json, 0)) {
+            journal.append(List.of(create(1, "a"), create(2, "b"))).get();
+        }
+        // A crash in the middle of the next write
+        String torn = json.toString(create(3, "c"));
+        Files.writeString(path, torn.substring(0, torn.length() / 2), StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+
+        List<JournalRecord> records = MutationJournal.read(path, json);
+        assertEquals(2, records.size());
+        assertEquals("b", records.get(1).getEventId());
+    }
+
+    @Test
+    void rewriteReplacesTheFileAndLaterAppendsFollowIt() throws Exception {
+        Path path = dir.resolve("mutations.log");
+        try (MutationJournal journal = new MutationJournal(path, json, 0)) {
+            journal.append(List.of(create(1, "a"), create(2, "b"))).get();
+            journal.rewrite(List.of(create(2, "b"))).get();
+            journal.append(List.of(create(3, "c"))).get();
+        }
+
+        List<JournalRecord> records = MutationJournal.read(path, json);
+        assertEquals(List.of("b", "c"), List.of(records.get(0).getEventId(), records.get(1).getEventId()));
+        assertEquals(List.of("mutations.log"), List.of(dir.toFile().list()));
+    }
+
+    private static JournalRecord create(long seq, String eventId) {
+        return new JournalRecord().setSeq(seq).setOp(JournalRecord.CREATE).setTenant(TenantContext.DEFAULT)
+                .setCalendarId("primary").setEventId(eventId).setAt(0L);
+    }
+}
@@ -0,0 +1,115 @@
+package org.acme;
+
+import com.google.api.client.auth.oauth2.BearerToken;
+import com.google.api.client.auth.oauth2.Credential;
+import com.google.api.client.http.GenericUrl;
+import com.google.api.client.http.HttpRequest;
+import com.google.api.client.http.HttpRequestInitializer;
+import com.google.api.client.testing.http.MockHttpTransport;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class TenantRegistryTest {
+    private final CountDownLatch release = new CountDownLatch(1);
+    private final AtomicInteger loads = new AtomicInteger();
+    private TenantRegistry registry;
+
+    @BeforeEach
+    void setUp() {
+        registry = new TenantRegistry();
+        registry.maxTenants = 10;
+        registry.idleTimeout = Duration.ofMinutes(30);
+        registry.tenantQps = 1000;
+        registry.credentialManager = new CredentialManager() {
+            @Override
+            public HttpRequestInitializer initializer() {
+                return request -> {
+                };
+            }
+
+            @Override
+            public void keepRefreshed(String tenant, Credential loaded) {
+            }
+        };
+        registry.authService = new GoogleAuthService() {
+            @Override
+            public Credential load(String userId) throws IOException {
+                if (loads.incrementAndGet() == 1 && "broken".equals(userId)) {
+                    throw new IOException("No stored Google credentials for " + userId);
+                }
+                if ("slow".equals(userId)) {
+                    try {
+                        release.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+                return new Credential(BearerToken.authorizationHeaderAccessMethod()).setAccessToken(userId + "-token");
+            }
+        };
+    }
+
+    @Test
+    void slowCredentialLoadDoesNotHoldOtherTenants() throws Exception {
+        CompletableFuture<HttpRequest> slow = CompletableFuture.supplyAsync(() -> {
+            try {
+                return request("slow");
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        while (loads.get() == 0) {
+            Thread.sleep(1);
+        }
+
+        // Would block on the registry lock if the file was read while holding it
+        CompletableFuture<HttpRequest> other = CompletableFuture.supplyAsync(() -> {
+            try {
+                return request(TenantContext.DEFAULT);
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        other.get(5, TimeUnit.SECONDS);
+        assertFalse(slow.isDone());
+
+        release.countDown();
+        assertEquals("Bearer slow-token", authorization(slow.get(5, TimeUnit.SECONDS)));
+    }
+
+    @Test
+    void failedCredentialLoadIsRetriedByTheNextRequest() throws Exception {
+        assertThrows(IOException.class, () -> request("broken"));
+
+        HttpRequest request = request("broken");
+        assertEquals("Bearer broken-token", authorization(request));
+        assertEquals(2, loads.get());
+    }
+
+    private HttpRequest request(String tenant) throws Exception {
+        return TenantContext.call(tenant, () -> {
+            HttpRequest request = new MockHttpTransport().createRequestFactory(registry.initializer())
+                    .buildGetRequest(new GenericUrl("https://www.googleapis.com/calendar/v3/users/me/calendarList"));
+            // The credential sets its header when the request is sent
+            if (request.getInterceptor() != null) {
+                request.getInterceptor().intercept(request);
+            }
+            return request;
+        });
+    }
+
+    private static String authorization(HttpRequest request) {
+        return request.getHeaders().getAuthorization();
+    }
+}
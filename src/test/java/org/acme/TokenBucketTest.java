@@ -0,0 +1,40 @@
+package org.acme;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TokenBucketTest {
+
+    @Test
+    void batchTakesOnePermitPerItem() throws InterruptedException {
+        TokenBucket bucket = new TokenBucket(0.001, 50);
+        bucket.acquire(49);
+        assertTrue(bucket.tryAcquire());
+        assertFalse(bucket.tryAcquire());
+    }
+
+    @Test
+    void largeBatchWaitsForTheMissingPermits() throws InterruptedException {
+        TokenBucket bucket = new TokenBucket(100, 10);
+        long start = System.nanoTime();
+        // 10 permits are there, the other 10 take 100 ms at 100/s
+        bucket.acquire(20);
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+        assertTrue(elapsedMillis >= 90, "waited " + elapsedMillis + " ms");
+    }
+
+    @Test
+    void loweringTheRateShrinksTheBurst() {
+        TokenBucket bucket = new TokenBucket(0.001, 100);
+        bucket.setRate(0.001, 10);
+        int granted = 0;
+        while (bucket.tryAcquire()) {
+            granted++;
+        }
+        assertEquals(10, granted);
+        assertEquals(10, bucket.getCapacity(), 0.001);
+    }
+}
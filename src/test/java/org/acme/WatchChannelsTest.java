@@ -0,0 +1,163 @@
+package org.acme;
+
+import com.google.api.client.json.gson.GsonFactory;
+import com.google.api.client.util.DateTime;
+import com.google.api.services.calendar.Calendar;
+import com.google.api.services.calendar.model.EventDateTime;
+import com.sun.net.httpserver.HttpServer;
+import jakarta.enterprise.event.Event;
+import jakarta.enterprise.event.NotificationOptions;
+import jakarta.enterprise.util.TypeLiteral;
+import org.acme.simulator.SimulatorTransport;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.lang.annotation.Annotation;
+import java.net.InetSocketAddress;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Watch, notify and refresh against the simulator's push channels. A local HTTP server stands in
+// for WatchRoutes and hands the notifications to WatchChannels the same way.
+class WatchChannelsTest {
+    private final String calendarId = SimulatorTransport.primary();
+    private SimulatorTransport transport;
+    private Calendar calendarService;
+    private HttpServer receiver;
+    private WatchChannels watchChannels;
+    private EventMirror mirror;
+    private final AtomicInteger changes = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() throws Exception {
+        transport = new SimulatorTransport(1, 20);
+        calendarService = new Calendar.Builder(transport, GsonFactory.getDefaultInstance(), null)
+                .setRootUrl(SimulatorTransport.ROOT_URL)
+                .setApplicationName("test")
+                .build();
+        mirror = new EventMirror();
+
+        receiver = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        receiver.createContext(WatchChannels.CALLBACK_PATH, exchange -> {
+            int status = watchChannels.notified(exchange.getRequestHeaders().getFirst("X-Goog-Channel-ID"),
+                    exchange.getRequestHeaders().getFirst("X-Goog-Channel-Token"),
+                    exchange.getRequestHeaders().getFirst("X-Goog-Resource-State"));
+            exchange.sendResponseHeaders(status, -1);
+            exchange.close();
+        });
+        receiver.start();
+
+        watchChannels = new WatchChannels();
+        watchChannels.calendarService = calendarService;
+        watchChannels.changes = new Fired();
+        watchChannels.enabled = true;
+        watchChannels.address = Optional.of("http://localhost:" + receiver.getAddress().getPort());
+        watchChannels.ttl = Duration.ofDays(7);
+        watchChannels.renewMargin = Duration.ofHours(1);
+        watchChannels.checkInterval = Duration.ofHours(1);
+        watchChannels.maxStaleness = Duration.ofHours(1);
+        watchChannels.init();
+
+        mirror.calendarService = calendarService;
+        mirror.watchChannels = watchChannels;
+        mirror.enabled = true;
+        // Unwatched, every read would sync
+        mirror.syncInterval = Duration.ZERO;
+    }
+
+    @AfterEach
+    void tearDown() {
+        watchChannels.shutdown();
+        receiver.stop(0);
+    }
+
+    @Test
+    void notificationRefreshesTheWatchedCalendar() throws Exception {
+        int before = watched();
+
+        // Nothing changed, so reads are served from the copy
+        mirror.index(calendarId);
+        mirror.index(calendarId);
+        assertEquals(before, transport.getListCount());
+
+        calendarService.events().insert(calendarId, new com.google.api.services.calendar.model.Event()
+                .setId("added12345")
+                .setSummary("Added elsewhere")
+                .setStart(new EventDateTime().setDateTime(new DateTime(System.currentTimeMillis())))
+                .setEnd(new EventDateTime().setDateTime(new DateTime(System.currentTimeMillis() + 3_600_000)))).execute();
+        await(() -> watchChannels.getNotificationCount() == 1 && changes.get() == 2);
+
+        assertTrue(mirror.index(calendarId).all().stream().anyMatch(event -> "added12345".equals(event.getId())));
+        assertEquals(before + 1, transport.getListCount());
+    }
+
+    @Test
+    void watchedCalendarIsRefreshedAfterMaxStaleness() throws Exception {
+        int before = watched();
+
+        watchChannels.maxStaleness = Duration.ZERO;
+        mirror.index(calendarId);
+        assertEquals(before + 1, transport.getListCount());
+        assertEquals(0, watchChannels.getNotificationCount());
+    }
+
+    // Reads the calendar until its channel is open and the copy has caught up with what changed
+    // before it opened; returns the events.list calls made by then
+    private int watched() throws Exception {
+        mirror.index(calendarId);
+        // Opening the channel announces the changes it may have missed
+        await(() -> watchChannels.getOpenCount() == 1 && changes.get() == 1);
+        mirror.index(calendarId);
+        return transport.getListCount();
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean() && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        assertTrue(condition.getAsBoolean());
+    }
+
+    // Delivers CalendarChanged to the mirror, as CDI would, and counts it
+    private class Fired implements Event<CalendarChanged> {
+        @Override
+        public void fire(CalendarChanged event) {
+            mirror.onCalendarChanged(event);
+            changes.incrementAndGet();
+        }
+
+        @Override
+        public <U extends CalendarChanged> CompletionStage<U> fireAsync(U event) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public <U extends CalendarChanged> CompletionStage<U> fireAsync(U event, NotificationOptions options) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Event<CalendarChanged> select(Annotation... qualifiers) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public <U extends CalendarChanged> Event<U> select(Class<U> subtype, Annotation... qualifiers) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public <U extends CalendarChanged> Event<U> select(TypeLiteral<U> subtype, Annotation... qualifiers) {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
@@ -0,0 +1,198 @@
+package org.acme;
+
+import com.google.api.client.json.gson.GsonFactory;
+import com.google.api.services.calendar.Calendar;
+import com.google.api.client.util.DateTime;
+import com.google.api.services.calendar.model.Event;
+import com.google.api.services.calendar.model.EventDateTime;
+import org.acme.tools.extra.QueuedMutation;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class WriteBehindTest {
+    private WriteBehind writeBehind;
+    private CalendarExecutor executor;
+
+    @TempDir
+    Path dir;
+
+    @AfterEach
+    void tearDown() {
+        writeBehind.shutdown();
+        if (executor != null) {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void deletingAnUnsentCreateCancelsBoth() throws Exception {
+        writeBehind = start();
+        QueuedMutation create = writeBehind.create("primary", event("abcde1"));
+
+        List<QueuedMutation> deletes = writeBehind.delete("primary", List.of("abcde1"));
+
+        assertEquals(QueuedMutation.State.CANCELLED, create.getState());
+        assertEquals(QueuedMutation.State.CANCELLED, deletes.get(0).getState());
+        assertEquals(0, writeBehind.getPendingCount());
+        assertEquals(2, writeBehind.getCancelledCount());
+
+        // Nothing is sent again after a restart
+        writeBehind.shutdown();
+        writeBehind = start();
+        assertEquals(0, writeBehind.getPendingCount());
+        assertEquals(QueuedMutation.State.CANCELLED, writeBehind.find(create.getId()).getState());
+    }
+
+    @Test
+    void pendingMutationsAreReplayedAfterARestart() throws Exception {
+        writeBehind = start();
+        QueuedMutation create = writeBehind.create("primary", event("abcde1"));
+        writeBehind.delete("primary", List.of("abcde2"));
+
+        writeBehind.shutdown();
+        writeBehind = start();
+        assertEquals(2, writeBehind.getPendingCount());
+        assertEquals(QueuedMutation.State.PENDING, writeBehind.find(create.getId()).getState());
+    }
+
+    @Test
+    void queuedMutationsAreSentTogetherInOneBatch() throws Exception {
+        BatchTransport transport = new BatchTransport((id, attempt) -> BatchTransport.Part.ok());
+        // Long enough for all three to be queued before the first drain
+        writeBehind = start(transport, Duration.ofMillis(500));
+        QueuedMutation create = writeBehind.create("primary", event("abcde1"));
+        List<QueuedMutation> deletes = writeBehind.delete("primary", List.of("e1", "e2"));
+
+        awaitFinished(create, deletes.get(0), deletes.get(1));
+        assertEquals(QueuedMutation.State.APPLIED, create.getState(), create.toString());
+        assertEquals(QueuedMutation.State.APPLIED, deletes.get(1).getState());
+        assertEquals(List.of(List.of("events", "e1", "e2")), transport.batches);
+        assertEquals(3, writeBehind.getAppliedCount());
+    }
+
+    @Test
+    void transientFailuresAreRetriedOnALaterDrain() throws Exception {
+        BatchTransport transport = new BatchTransport((id, attempt) -> attempt == 1
+                ? BatchTransport.Part.error(503, "backendError")
+                : BatchTransport.Part.ok());
+        writeBehind = start(transport);
+        QueuedMutation delete = writeBehind.delete("primary", List.of("e1")).get(0);
+
+        awaitFinished(delete);
+        assertEquals(QueuedMutation.State.APPLIED, delete.getState());
+        assertEquals(2, transport.attempts("e1"));
+        assertEquals(2, transport.batches.size());
+    }
+
+    @Test
+    void deleteOfAnEventGoogleNoLongerKnowsIsDone() throws Exception {
+        BatchTransport transport = new BatchTransport((id, attempt) -> BatchTransport.Part.error(404, "notFound"));
+        writeBehind = start(transport);
+        QueuedMutation delete = writeBehind.delete("primary", List.of("e1")).get(0);
+
+        awaitFinished(delete);
+        assertEquals(QueuedMutation.State.APPLIED, delete.getState());
+        assertEquals("already deleted", delete.getMessage());
+        assertEquals(1, transport.attempts("e1"));
+    }
+
+    @Test
+    void permanentFailuresAreNotRetriedOrReplayed() throws Exception {
+        BatchTransport transport = new BatchTransport((id, attempt) -> BatchTransport.Part.error(403, "forbidden"));
+        writeBehind = start(transport);
+        QueuedMutation delete = writeBehind.delete("primary", List.of("e1")).get(0);
+
+        awaitFinished(delete);
+        assertEquals(QueuedMutation.State.FAILED, delete.getState());
+        assertEquals(403, delete.getStatusCode());
+        assertEquals(1, writeBehind.getFailedCount());
+
+        // Its final state is in the journal, so a restart does not send it again
+        writeBehind.shutdown();
+        writeBehind = start();
+        assertEquals(0, writeBehind.getPendingCount());
+        assertEquals(QueuedMutation.State.FAILED, writeBehind.find(delete.getId()).getState());
+        assertEquals(1, transport.attempts("e1"));
+    }
+
+    // Drains far less often than the tests run, so mutations stay queued
+    private WriteBehind start() throws Exception {
+        return start(null, Duration.ofHours(1));
+    }
+
+    // Drains every few milliseconds and retries almost at once
+    private WriteBehind start(BatchTransport transport) throws Exception {
+        return start(transport, Duration.ofMillis(5));
+    }
+
+    private WriteBehind start(BatchTransport transport, Duration drainInterval) throws Exception {
+        WriteBehind started = new WriteBehind();
+        started.enabled = true;
+        started.jsonFactory = GsonFactory.getDefaultInstance();
+        started.journalPath = dir.resolve("mutations.log").toString();
+        started.commitDelay = Duration.ZERO;
+        started.drainInterval = drainInterval;
+        started.retryDelay = Duration.ofMillis(1);
+        started.maxRetries = 8;
+        if (transport != null) {
+            started.bulkMutationEngine = engine(transport);
+            started.eventMirror = new EventMirror();
+            started.recurrenceCache = new RecurrenceCache();
+            started.readCoalescer = new ReadCoalescer();
+            started.readCoalescer.window = Duration.ofSeconds(1);
+            started.readCoalescer.init();
+        }
+        started.onStart(null);
+        return started;
+    }
+
+    // The engine tries each item once, so retries are left to the write-behind queue
+    private BulkMutationEngine engine(BatchTransport transport) {
+        executor = new CalendarExecutor();
+        executor.maxConcurrency = 4;
+        executor.init();
+        CalendarRateLimiter rateLimiter = new CalendarRateLimiter();
+        rateLimiter.jsonFactory = GsonFactory.getDefaultInstance();
+        rateLimiter.tenantRegistry = CalendarRateLimiterTest.tenants(1000);
+        rateLimiter.minQps = 1;
+        rateLimiter.maxRetries = 6;
+        rateLimiter.backoffMillis = 10_000;
+        rateLimiter.maxBackoffMillis = 10_000;
+
+        BulkMutationEngine engine = new BulkMutationEngine();
+        engine.calendarService = new Calendar.Builder(transport, GsonFactory.getDefaultInstance(), rateLimiter.wrap(null))
+                .setApplicationName("test")
+                .build();
+        engine.calendarExecutor = executor;
+        engine.rateLimiter = rateLimiter;
+        engine.batchSize = 50;
+        engine.maxAttempts = 1;
+        engine.backoffMillis = 1;
+        return engine;
+    }
+
+    private static void awaitFinished(QueuedMutation... mutations) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        for (QueuedMutation mutation : mutations) {
+            while (mutation.isPending() && System.nanoTime() < deadline) {
+                Thread.sleep(5);
+            }
+            assertTrue(!mutation.isPending(), mutation.toString());
+        }
+    }
+
+    private static Event event(String id) {
+        return new Event().setId(id).setSummary("Test")
+                .setStart(new EventDateTime().setDateTime(new DateTime("2025-06-04T10:00:00Z")))
+                .setEnd(new EventDateTime().setDateTime(new DateTime("2025-06-04T11:00:00Z")));
+    }
+}
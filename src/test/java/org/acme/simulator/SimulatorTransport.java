@@ -0,0 +1,73 @@
+package org.acme.simulator;
+
+import com.google.api.client.http.LowLevelHttpRequest;
+import com.google.api.client.http.LowLevelHttpResponse;
+import com.google.api.client.json.gson.GsonFactory;
+import com.google.api.client.testing.http.MockHttpTransport;
+import com.google.api.client.testing.http.MockLowLevelHttpRequest;
+import com.google.api.client.testing.http.MockLowLevelHttpResponse;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Sends the Calendar client's requests straight to an in-process CalendarSimulator, without its
+// HTTP routes or latency. Build the client with ROOT_URL as its root URL.
+public class SimulatorTransport extends MockHttpTransport {
+    public static final String ROOT_URL = "http://localhost" + CalendarSimulator.ROOT;
+
+    private final CalendarSimulator simulator;
+    private final AtomicInteger lists = new AtomicInteger();
+
+    public SimulatorTransport(int calendars, int eventsPerCalendar) {
+        simulator = new CalendarSimulator();
+        simulator.jsonFactory = GsonFactory.getDefaultInstance();
+        simulator.enabled = true;
+        simulator.calendarCount = calendars;
+        simulator.eventsPerCalendar = eventsPerCalendar;
+        simulator.latency = Duration.ZERO;
+        simulator.latencyJitter = Duration.ZERO;
+    }
+
+    // ID of the first generated calendar
+    public static String primary() {
+        return "sim-user@example.com";
+    }
+
+    // events.list calls answered so far
+    public int getListCount() {
+        return lists.get();
+    }
+
+    @Override
+    public LowLevelHttpRequest buildRequest(String method, String url) {
+        return new MockLowLevelHttpRequest(url) {
+            @Override
+            public LowLevelHttpResponse execute() throws IOException {
+                URI uri = URI.create(url);
+                String path = uri.getRawPath().substring(CalendarSimulator.ROOT.length());
+                if (method.equals("GET") && path.endsWith("/events")) {
+                    lists.incrementAndGet();
+                }
+                Map<String, String> headers = new HashMap<>();
+                if (getContentType() != null) {
+                    headers.put("content-type", getContentType());
+                }
+                byte[] body = getContentAsString().getBytes(StandardCharsets.UTF_8);
+                CalendarSimulator.Response response = simulator.handle(method, path, uri.getRawQuery(), headers, body);
+                MockLowLevelHttpResponse result = new MockLowLevelHttpResponse()
+                        .setStatusCode(response.status())
+                        .setContent(response.body());
+                if (response.contentType() != null) {
+                    result.setContentType(response.contentType());
+                }
+                response.headers().forEach(result::addHeader);
+                return result;
+            }
+        };
+    }
+}
@@ -0,0 +1,85 @@
+package org.acme.tools.extra;
+
+import com.google.api.client.util.DateTime;
+import com.google.api.services.calendar.model.Event;
+import com.google.api.services.calendar.model.EventAttendee;
+import com.google.api.services.calendar.model.EventDateTime;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class EventFilterTest {
+
+    @Test
+    void allTermsMustMatchAndMinusNegates() {
+        EventFilter filter = EventFilter.parse("attendee:ana duration>=30m -summary~\"^(gym|travel)\"");
+        Event standup = event("Team sync", "10:00", "10:30").setAttendees(new ArrayList<>(List.of(new EventAttendee().setEmail("ana@example.com"))));
+
+        assertTrue(filter.test(standup));
+        assertFalse(filter.test(standup.clone().setSummary("Gym with Ana")));
+        assertFalse(filter.test(standup.clone().setEnd(time("10:15"))));
+        assertFalse(filter.test(standup.clone().setAttendees(null)));
+    }
+
+    @Test
+    void quotedValuesKeepTheirSpaces() {
+        EventFilter filter = EventFilter.parse("location:\"room a\"");
+
+        assertTrue(filter.test(event("Review", "10:00", "11:00").setLocation("Big Room A")));
+        assertFalse(filter.test(event("Review", "10:00", "11:00").setLocation("Room B")));
+    }
+
+    @Test
+    void durationComparisons() {
+        Event hour = event("Review", "10:00", "11:00");
+
+        assertTrue(EventFilter.parse("duration:1h").test(hour));
+        assertTrue(EventFilter.parse("duration<=60m").test(hour));
+        assertFalse(EventFilter.parse("duration<60m").test(hour));
+        assertTrue(EventFilter.parse("duration>59m").test(hour));
+        assertFalse(EventFilter.parse("duration>=1d").test(hour));
+    }
+
+    @Test
+    void statusDefaultsToConfirmed() {
+        Event unsent = event("Review", "10:00", "11:00");
+
+        assertTrue(EventFilter.parse("status:confirmed").test(unsent));
+        assertFalse(EventFilter.parse("status:tentative").test(unsent));
+        assertTrue(EventFilter.parse("status:Tentative").test(unsent.setStatus("tentative")));
+    }
+
+    @Test
+    void invalidExpressionsAreRejected() {
+        assertNull(EventFilter.parse("  "));
+        assertThrows(IllegalArgumentException.class, () -> EventFilter.parse("status:cancelled"));
+        assertThrows(IllegalArgumentException.class, () -> EventFilter.parse("colour:red"));
+        assertThrows(IllegalArgumentException.class, () -> EventFilter.parse("summary"));
+        assertThrows(IllegalArgumentException.class, () -> EventFilter.parse("summary~\"(unclosed\""));
+        assertThrows(IllegalArgumentException.class, () -> EventFilter.parse("summary:\"open"));
+        assertThrows(IllegalArgumentException.class, () -> EventFilter.parse("duration>soon"));
+        assertThrows(IllegalArgumentException.class, () -> EventFilter.parse("allday:maybe"));
+    }
+
+    @Test
+    void apiFieldsAddOnlyWhatTheFilterReads() {
+        EventFilter filter = EventFilter.parse("summary:sync location~room duration>1h");
+
+        assertEquals("nextPageToken,items(id,summary,location,start,end)", filter.apiFields("nextPageToken,items(id,summary)"));
+    }
+
+    private static Event event(String summary, String start, String end) {
+        return new Event().setSummary(summary).setStart(time(start)).setEnd(time(end));
+    }
+
+    private static EventDateTime time(String clock) {
+        return new EventDateTime().setDateTime(new DateTime("2025-06-04T" + clock + ":00Z"));
+    }
+}
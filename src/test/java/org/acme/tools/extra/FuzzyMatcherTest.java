@@ -0,0 +1,81 @@
+package org.acme.tools.extra;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class FuzzyMatcherTest {
+    private final FuzzyMatcher matcher = new FuzzyMatcher();
+
+    @Test
+    void emptyStrings() {
+        assertSame("", "", 0);
+        assertSame("", "abc", 3);
+        assertSame("", "abc", 2);
+        assertSame("abc", "", 5);
+    }
+
+    @Test
+    void distanceExactlyAtTheLimitAndOnePast() {
+        // kitten -> sitting takes three edits
+        assertEquals(3, matcher.distance("kitten", "sitting", 3));
+        assertEquals(3, matcher.distance("kitten", "sitting", 2));
+        assertSame("kitten", "sitting", 3);
+        assertSame("kitten", "sitting", 2);
+        assertSame("flaw", "lawn", 2);
+        assertSame("flaw", "lawn", 1);
+    }
+
+    @Test
+    void unequalLengths() {
+        assertSame("team", "team sync", 5);
+        assertSame("team", "team sync", 4);
+        assertSame("planning", "plan", 4);
+        assertSame("Design review", "desgn reveiw", 3);
+        assertSame("a", "abcdef", 5);
+    }
+
+    @Test
+    void matchesThePlainMatrixOnRandomInput() {
+        Random random = new Random(42);
+        for (int i = 0; i < 5000; i++) {
+            String a = word(random, random.nextInt(12));
+            String b = word(random, random.nextInt(12));
+            assertSame(a, b, random.nextInt(6));
+        }
+    }
+
+    // The banded result must equal the full matrix one, capped at maxDistance + 1
+    private void assertSame(String a, String b, int maxDistance) {
+        int expected = Math.min(reference(a, b), maxDistance + 1);
+        assertEquals(expected, matcher.distance(a, b, maxDistance), a + " / " + b + " within " + maxDistance);
+    }
+
+    private static int reference(String a, String b) {
+        int[][] d = new int[a.length() + 1][b.length() + 1];
+        for (int i = 0; i <= a.length(); i++) {
+            d[i][0] = i;
+        }
+        for (int j = 0; j <= b.length(); j++) {
+            d[0][j] = j;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            for (int j = 1; j <= b.length(); j++) {
+                int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                d[i][j] = Math.min(d[i - 1][j - 1] + cost, Math.min(d[i - 1][j], d[i][j - 1]) + 1);
+            }
+        }
+        return d[a.length()][b.length()];
+    }
+
+    // A small alphabet, so the random strings share characters
+    private static String word(Random random, int length) {
+        StringBuilder word = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            word.append((char) ('a' + random.nextInt(4)));
+        }
+        return word.toString();
+    }
+}
@@ -0,0 +1,77 @@
+package org.acme.tools.extra;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+// Times are in minutes to keep the cases readable
+class SlotFinderTest {
+
+    @Test
+    void longGapYieldsSeveralStepAlignedSlots() {
+        SlotFinder finder = new SlotFinder();
+        finder.addBusy(600, 660);
+
+        List<SlotFinder.Slot> slots = finder.find(new long[]{540}, new long[]{720}, 1, 30, 15, 10);
+
+        assertEquals(List.of(540L, 555L, 570L, 660L, 675L, 690L), starts(slots));
+        assertEquals(600, slots.get(0).freeUntil());
+        assertEquals(720, slots.get(5).freeUntil());
+    }
+
+    @Test
+    void overlappingAndTouchingBusyIntervalsAreJoined() {
+        SlotFinder finder = new SlotFinder();
+        finder.addBusy(560, 620);
+        finder.addBusy(540, 600);
+        finder.addBusy(620, 650);
+        finder.addBusy(700, 710);
+        finder.addBusy(705, 720);
+
+        // Free only from 650 to 700, and the first aligned start after 650 is 660
+        assertEquals(List.of(660L), starts(finder.find(new long[]{540}, new long[]{720}, 1, 30, 15, 10)));
+    }
+
+    @Test
+    void gapsTooShortForTheLengthAreSkipped() {
+        SlotFinder finder = new SlotFinder();
+        finder.addBusy(560, 600);
+        finder.addBusy(620, 700);
+
+        assertEquals(List.of(), starts(finder.find(new long[]{540}, new long[]{720}, 1, 30, 15, 10)));
+    }
+
+    @Test
+    void searchesEachWindowAndStopsAtTheLimit() {
+        SlotFinder finder = new SlotFinder();
+        // Spans the night, so it blocks the end of the first window and the start of the second
+        finder.addBusy(690, 2040);
+
+        List<SlotFinder.Slot> slots = finder.find(new long[]{540, 1980}, new long[]{720, 2160}, 2, 60, 30, 4);
+
+        assertEquals(List.of(540L, 570L, 600L, 630L), starts(slots));
+        assertEquals(List.of(2040L, 2070L, 2100L),
+                starts(finder.find(new long[]{1980}, new long[]{2160}, 1, 60, 30, 10)));
+    }
+
+    @Test
+    void emptyCalendarIsFreeAllWindow() {
+        SlotFinder finder = new SlotFinder();
+
+        List<SlotFinder.Slot> slots = finder.find(new long[]{540}, new long[]{600}, 1, 60, 15, 10);
+
+        assertEquals(List.of(540L), starts(slots));
+        assertEquals(0, finder.getBusyCount());
+    }
+
+    private static List<Long> starts(List<SlotFinder.Slot> slots) {
+        List<Long> starts = new ArrayList<>();
+        for (SlotFinder.Slot slot : slots) {
+            starts.add(slot.start());
+        }
+        return starts;
+    }
+}